@@ -1,5 +1,6 @@
 package com.tcon.communication_service;
 
+import io.mongock.runner.springboot.EnableMongock;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.http.client.HttpClientAutoConfiguration;
@@ -27,6 +28,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableAsync
 @EnableScheduling
 @EnableFeignClients
+@EnableMongock
 public class CommunicationServiceApplication {
 
     public static void main(String[] args) {
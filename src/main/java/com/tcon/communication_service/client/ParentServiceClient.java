@@ -2,6 +2,7 @@
 package com.tcon.communication_service.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
@@ -19,18 +20,14 @@ public interface ParentServiceClient {
     @GetMapping("/api/parents/{parentId}/students")
     List<String> getChildStudentIds(@PathVariable("parentId") String parentId);
 
-    @GetMapping("/api/students/{studentId}/parents")
-    List<String> getParentIds(@PathVariable("studentId") String studentId);
-
+    /**
+     * Used when the call fails or the circuit is open (see FeignClientConfig)
+     */
+    @Component
     class ParentServiceClientFallback implements ParentServiceClient {
         @Override
         public List<String> getChildStudentIds(String parentId) {
             return Collections.emptyList();
         }
-
-        @Override
-        public List<String> getParentIds(String studentId) {
-            return Collections.emptyList();
-        }
     }
 }
\ No newline at end of file
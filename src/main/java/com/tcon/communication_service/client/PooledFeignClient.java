@@ -0,0 +1,161 @@
+package com.tcon.communication_service.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pooled Feign Client
+ * Feign transport over a shared pooled Apache HttpClient 5 (see FeignClientConfig), used as
+ * the delegate of the load-balancing client, so each call goes to a resolved instance.
+ * - Timeouts: connect timeout on the pool, read timeout per request from Feign's options.
+ * - Latency histograms per endpoint: feign.client.requests{client,method,status}.
+ * - GETs (idempotent) are retried per client (resilience4j.retry.* metrics) on IO errors and
+ *   502/503/504, each retry taking a permit from the shared retry budget; without one the
+ *   last outcome is returned. Retries go to the instance the load balancer already chose.
+ * Calls run on the caller's thread. Response bodies are buffered (small JSON payloads), so
+ * the connection goes back to the pool as soon as the call returns.
+ */
+public class PooledFeignClient implements Client {
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(502, 503, 504);
+
+    private final CloseableHttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+    private final Timeout connectionRequestTimeout;
+    private final RetryRegistry retries;
+
+    public PooledFeignClient(CloseableHttpClient httpClient, MeterRegistry meterRegistry,
+                             Duration connectionRequestTimeout, RetryRegistry retries) {
+        this.httpClient = httpClient;
+        this.meterRegistry = meterRegistry;
+        this.connectionRequestTimeout = Timeout.of(connectionRequestTimeout);
+        this.retries = retries;
+    }
+
+    /**
+     * Retry policy for GETs; a retry only happens if the budget has a permit left.
+     */
+    public static RetryConfig retryConfig(int maxAttempts, Duration wait, RateLimiter budget) {
+        return RetryConfig.<Response>custom()
+                .maxAttempts(maxAttempts)
+                .waitDuration(wait)
+                .retryOnResult(response -> RETRYABLE_STATUSES.contains(response.status()) && budget.acquirePermission())
+                .retryOnException(e -> e instanceof IOException && budget.acquirePermission())
+                .build();
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (request.httpMethod() != Request.HttpMethod.GET) {
+            return timed(request, options);
+        }
+        try {
+            return retries.retry(clientName(request)).executeCheckedSupplier(() -> timed(request, options));
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IOException(t);
+        }
+    }
+
+    private Response timed(Request request, Request.Options options) throws IOException {
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try {
+            Response response = send(request, options);
+            status = Integer.toString(response.status());
+            return response;
+        } finally {
+            Timer.builder("feign.client.requests")
+                    .description("Feign call latency per endpoint")
+                    .tag("client", clientName(request))
+                    .tag("method", methodName(request))
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Transport
+    // ─────────────────────────────────────────────────────────────
+
+    private Response send(Request request, Request.Options options) throws IOException {
+        HttpUriRequestBase httpRequest = new HttpUriRequestBase(request.httpMethod().name(), URI.create(request.url()));
+        String contentType = null;
+        for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                contentType = header.getValue().iterator().next();
+            }
+            header.getValue().forEach(value -> httpRequest.addHeader(header.getKey(), value));
+        }
+        if (request.body() != null) {
+            httpRequest.setEntity(new ByteArrayEntity(request.body(),
+                    contentType != null ? ContentType.parse(contentType) : null));
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .setResponseTimeout(Timeout.ofMilliseconds(options.readTimeoutMillis()))
+                .setRedirectsEnabled(options.isFollowRedirects())
+                .build());
+
+        return httpClient.execute(httpRequest, context, response -> {
+            Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Header header : response.getHeaders()) {
+                headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+            }
+            byte[] body = response.getEntity() != null ? EntityUtils.toByteArray(response.getEntity()) : null;
+            return Response.builder()
+                    .status(response.getCode())
+                    .reason(response.getReasonPhrase())
+                    .headers(headers)
+                    .request(request)
+                    .body(body)
+                    .build();
+        });
+    }
+
+    private static String clientName(Request request) {
+        return request.requestTemplate() != null && request.requestTemplate().feignTarget() != null
+                ? request.requestTemplate().feignTarget().type().getSimpleName()
+                : "unknown";
+    }
+
+    private static String methodName(Request request) {
+        return request.requestTemplate() != null && request.requestTemplate().methodMetadata() != null
+                ? request.requestTemplate().methodMetadata().method().getName()
+                : request.httpMethod().name();
+    }
+}
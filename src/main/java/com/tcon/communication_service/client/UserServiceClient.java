@@ -3,18 +3,20 @@ package com.tcon.communication_service.client;
 
 import com.tcon.communication_service.messaging.dto.ContactDto;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 
+import java.util.Collections;
 import java.util.List;
 
 @FeignClient(
         name = "auth-user-service",
         url = "${auth-user-service.url:}",
-        contextId = "userServiceClient"
-
+        contextId = "userServiceClient",
+        fallback = UserServiceClient.UserServiceClientFallback.class
 )
 public interface UserServiceClient {
 
@@ -24,4 +26,14 @@ public interface UserServiceClient {
             @RequestHeader("X-User-Role") String userRole
     );
 
+    /**
+     * Used when the call fails or the circuit is open (see FeignClientConfig)
+     */
+    @Component
+    class UserServiceClientFallback implements UserServiceClient {
+        @Override
+        public List<ContactDto> getContacts(String userId, String userRole) {
+            return Collections.emptyList();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.tcon.communication_service.config;
+
+import com.tcon.communication_service.client.PooledFeignClient;
+import feign.Client;
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4jBulkheadConfigurationBuilder;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4jBulkheadProvider;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.openfeign.loadbalancer.FeignBlockingLoadBalancerClient;
+import org.springframework.cloud.openfeign.loadbalancer.LoadBalancerFeignRequestTransformer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Feign Client Configuration
+ * Transport and resilience for the auth-user-service Feign clients:
+ * - pooled Apache HttpClient 5 (feign-client.pool.*), wrapped by the load-balancing client;
+ *   timeouts come from spring.cloud.openfeign.client.config.*
+ * - resilience4j semaphore bulkhead + count-based circuit breaker per Feign method
+ *   (feign-client.bulkhead.*, feign-client.circuit-breaker.*) behind
+ *   spring.cloud.openfeign.circuitbreaker, which also activates the client fallbacks; IO
+ *   errors, timeouts and 5xx count as failures, 4xx answers do not
+ * - resilience4j retry of idempotent GETs (feign-client.retry.*), limited by a retry budget
+ *   shared by all calls to auth-user-service, so retries can't multiply load on an outage
+ *
+ * @author Senior Developer
+ * @version 1.0.0
+ */
+@Configuration
+public class FeignClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient feignHttpClient(
+            @Value("${feign-client.pool.max-total:100}") int maxTotal,
+            @Value("${feign-client.pool.max-per-route:50}") int maxPerRoute,
+            @Value("${feign-client.pool.time-to-live:5m}") Duration timeToLive,
+            @Value("${feign-client.pool.idle-evict:30s}") Duration idleEvict,
+            @Value("${spring.cloud.openfeign.client.config.default.connect-timeout:2000}") long connectTimeoutMillis) {
+
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxTotal)
+                        .setMaxConnPerRoute(maxPerRoute)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                                .setTimeToLive(TimeValue.of(timeToLive))
+                                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                                .build())
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEvict))
+                .disableAutomaticRetries()   // retried by PooledFeignClient, within the retry budget
+                .build();
+    }
+
+    @Bean
+    public PooledFeignClient pooledFeignClient(
+            CloseableHttpClient feignHttpClient,
+            MeterRegistry meterRegistry,
+            @Value("${feign-client.pool.acquire-timeout:500ms}") Duration acquireTimeout,
+            @Value("${feign-client.retry.max-attempts:3}") int maxAttempts,
+            @Value("${feign-client.retry.wait:50ms}") Duration wait,
+            @Value("${feign-client.retry.budget-per-second:10}") int budgetPerSecond) {
+
+        RateLimiter budget = RateLimiter.of("feign-retry-budget", RateLimiterConfig.custom()
+                .limitForPeriod(budgetPerSecond)
+                .limitRefreshPeriod(Duration.ofSeconds(1))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+        RetryRegistry retries = RetryRegistry.of(PooledFeignClient.retryConfig(maxAttempts, wait, budget));
+        TaggedRetryMetrics.ofRetryRegistry(retries).bindTo(meterRegistry);
+        return new PooledFeignClient(feignHttpClient, meterRegistry, acquireTimeout, retries);
+    }
+
+    /**
+     * Replaces the default load-balanced client (plain HttpURLConnection delegate).
+     * With an explicit auth-user-service.url, Feign unwraps this to the pooled delegate.
+     */
+    @Bean
+    public Client feignClient(PooledFeignClient pooledFeignClient,
+                              LoadBalancerClient loadBalancerClient,
+                              LoadBalancerClientFactory loadBalancerClientFactory,
+                              List<LoadBalancerFeignRequestTransformer> transformers) {
+        return new FeignBlockingLoadBalancerClient(pooledFeignClient, loadBalancerClient,
+                loadBalancerClientFactory, transformers);
+    }
+
+    @Bean
+    public Customizer<Resilience4JCircuitBreakerFactory> feignCircuitBreakerCustomizer(
+            @Value("${feign-client.circuit-breaker.window:20}") int window,
+            @Value("${feign-client.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${feign-client.circuit-breaker.open-duration:10s}") Duration openDuration,
+            @Value("${spring.cloud.openfeign.client.config.default.read-timeout:3000}") long readTimeoutMillis,
+            @Value("${feign-client.retry.max-attempts:3}") int maxAttempts) {
+
+        CircuitBreakerConfig circuitBreaker = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(window)
+                .minimumNumberOfCalls(window)
+                .failureRateThreshold(failureRateThreshold)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(1)
+                .recordException(FeignClientConfig::countsAsFailure)
+                .build();
+        // Backstop only, when spring.cloud.circuitbreaker.resilience4j.disable-time-limiter is off
+        TimeLimiterConfig timeLimiter = TimeLimiterConfig.custom()
+                .timeoutDuration(Duration.ofMillis(readTimeoutMillis * (maxAttempts + 1)))
+                .build();
+        return factory -> factory.configureDefault(id -> new Resilience4JConfigBuilder(id)
+                .circuitBreakerConfig(circuitBreaker)
+                .timeLimiterConfig(timeLimiter)
+                .build());
+    }
+
+    @Bean
+    public Customizer<Resilience4jBulkheadProvider> feignBulkheadCustomizer(
+            @Value("${feign-client.bulkhead.max-concurrent:25}") int maxConcurrent,
+            @Value("${feign-client.bulkhead.max-wait:50ms}") Duration maxWait) {
+
+        BulkheadConfig bulkhead = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrent)
+                .maxWaitDuration(maxWait)
+                .build();
+        return provider -> provider.configureDefault(id -> new Resilience4jBulkheadConfigurationBuilder()
+                .bulkheadConfig(bulkhead)
+                .threadPoolBulkheadConfig(ThreadPoolBulkheadConfig.ofDefaults())
+                .build());
+    }
+
+    /**
+     * IO errors, timeouts and 5xx count against the breaker; 4xx answers do not.
+     */
+    static boolean countsAsFailure(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FeignException feign) {
+                return feign.status() < 0 || feign.status() >= 500;
+            }
+        }
+        return true;
+    }
+}
@@ -1,20 +1,36 @@
 package com.tcon.communication_service.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcon.communication_service.event.EventDeserializer;
+import com.tcon.communication_service.event.EventSerializer;
+import com.tcon.communication_service.event.EventTypeRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 /**
  * Kafka Configuration
@@ -44,6 +60,29 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${spring.kafka.chat-producer.linger-ms:5}")
+    private int chatLingerMs;
+
+    @Value("${spring.kafka.chat-producer.batch-size:65536}")
+    private int chatBatchSize;
+
+    @Value("${spring.kafka.chat-producer.compression-type:lz4}")
+    private String chatCompressionType;
+
+    @Value("${spring.kafka.message-consumer.concurrency:3}")
+    private int messageConsumerConcurrency;
+
+    @Value("${spring.kafka.message-consumer.max-poll-records:500}")
+    private int messageConsumerMaxPollRecords;
+
+    private final EventTypeRegistry eventTypeRegistry;
+
+    private final ObjectMapper eventObjectMapper = EventSerializer.eventObjectMapper();
+
+    public KafkaConfig(EventTypeRegistry eventTypeRegistry) {
+        this.eventTypeRegistry = eventTypeRegistry;
+    }
+
     // ==================== TOPIC CONFIGURATION ====================
 
     @Bean
@@ -78,32 +117,99 @@ public class KafkaConfig {
                 .build();
     }
 
+    // ==================== PRODUCER CONFIGURATION ====================
+
+    /**
+     * Default producer (spring.kafka.producer.*), used by the video publishers.
+     * Declared here because the chat template below would otherwise switch off Boot's own.
+     */
+    @Bean
+    @Primary
+    public ProducerFactory<String, Object> producerFactory(KafkaProperties kafkaProperties,
+                                                           ObjectProvider<SslBundles> sslBundles) {
+        return new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()),
+                new StringSerializer(), new EventSerializer(eventTypeRegistry, eventObjectMapper));
+    }
+
+    @Bean
+    @Primary
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    /**
+     * Chat event producer: same base settings, tuned for many small keyed events.
+     * Idempotence keeps per-key (conversation) order across retries.
+     */
+    @Bean
+    public ProducerFactory<String, Object> chatEventProducerFactory(KafkaProperties kafkaProperties,
+                                                                    ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> config = kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable());
+        config.put(ProducerConfig.LINGER_MS_CONFIG, chatLingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, chatBatchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, chatCompressionType);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.CLIENT_ID_CONFIG, "communication-service-chat-events");
+        return new DefaultKafkaProducerFactory<>(config,
+                new StringSerializer(), new EventSerializer(eventTypeRegistry, eventObjectMapper));
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> chatEventKafkaTemplate(
+            @Qualifier("chatEventProducerFactory") ProducerFactory<String, Object> chatEventProducerFactory) {
+        return new KafkaTemplate<>(chatEventProducerFactory);
+    }
+
     // ==================== CONSUMER CONFIGURATION ====================
 
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, Object> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
 
-        // ✅ Use ErrorHandlingDeserializer to skip bad messages
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
-        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
+        // ✅ ErrorHandlingDeserializer skips bad messages; registered event types become
+        // their records, everything else (other services' events) stays a Map
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(config,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new EventDeserializer(eventTypeRegistry, eventObjectMapper)));
 
-        // ✅ Trust all packages and use Map as default
-        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "java.util.Map");
+        // Client metrics (kafka.consumer.fetch.manager.records.lag.max, fetch rates, ...)
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
 
-        return new DefaultKafkaConsumerFactory<>(config);
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        return factory;
     }
 
+    /**
+     * Batch listener for message-events (MessageEventListener): one consumer thread per
+     * partition, each poll handed over as a list so READ receipts can be coalesced.
+     * Records of one conversation share a partition (see MessageEventPublisher), so
+     * per-conversation order holds within and across batches.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> messageEventListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(messageConsumerConcurrency);
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, messageConsumerMaxPollRecords);
+        overrides.put(ConsumerConfig.CLIENT_ID_CONFIG, "communication-service-message-events");
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
         return factory;
     }
 }
@@ -33,11 +33,23 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.database}")
     private String databaseName;
 
+    @Value("${spring.data.mongodb.auto-index-creation:true}")
+    private boolean autoIndexCreation;
+
     @Override
     protected String getDatabaseName() {
         return databaseName;
     }
 
+    /**
+     * AbstractMongoClientConfiguration defaults to false and ignores the Boot property,
+     * so @Indexed / @CompoundIndex (unique and TTL indexes included) would never be created
+     */
+    @Override
+    protected boolean autoIndexCreation() {
+        return autoIndexCreation;
+    }
+
     @Override
     public MongoClient mongoClient() {
         ConnectionString connectionString = new ConnectionString(mongoUri);
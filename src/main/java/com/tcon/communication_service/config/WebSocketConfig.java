@@ -1,10 +1,17 @@
 package com.tcon.communication_service.config;
 
 import com.tcon.communication_service.websocket.JwtHandshakeInterceptor;
+import com.tcon.communication_service.websocket.OutboundFrameCoalescer;
+import com.tcon.communication_service.websocket.OutboundFrameMetrics;
+import com.tcon.communication_service.websocket.PresenceRegistry;
+import com.tcon.communication_service.websocket.RedisStompRelay;
 import com.tcon.communication_service.websocket.UserIdHandshakeHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -18,6 +25,13 @@ import org.springframework.web.socket.config.annotation.WebSocketTransportRegist
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+    private final ObjectProvider<RedisStompRelay> redisStompRelay;
+    private final PresenceRegistry presenceRegistry;
+    private final ObjectProvider<OutboundFrameCoalescer> outboundFrameCoalescer;
+    private final OutboundFrameMetrics outboundFrameMetrics;
+
+    @Value("${websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
@@ -32,9 +46,34 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Per-user destinations: /user/queue/...
         config.setUserDestinationPrefix("/user");
 
+        // websocket.broker.mode=redis: mirror /topic and /user frames to the other replicas
+        redisStompRelay.ifAvailable(relay -> {
+            config.configureBrokerChannel().interceptors(relay);
+            log.info("🔧 [WebSocket] Redis relay enabled for /topic and /user destinations");
+        });
+
         log.info("✅ [WebSocket] Message broker configured");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Every inbound frame (heartbeats included) refreshes the sender's presence
+        registration.interceptors(presenceRegistry);
+
+        // websocket.coalescing.enabled: picks up the x-frame-batching opt-in from CONNECT
+        outboundFrameCoalescer.ifAvailable(registration::interceptors);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Coalescer first, so the metrics count the frames that actually go out
+        outboundFrameCoalescer.ifAvailable(coalescer -> {
+            registration.interceptors(coalescer);
+            log.info("🔧 [WebSocket] Outbound frame coalescing enabled");
+        });
+        registration.interceptors(outboundFrameMetrics);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         log.info("🔧 [WebSocket] Registering STOMP endpoint: /ws-messaging");
@@ -42,7 +81,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws-messaging")
                 .setAllowedOriginPatterns("*")
                 .addInterceptors(jwtHandshakeInterceptor)
-                .setHandshakeHandler(new UserIdHandshakeHandler())
+                .setHandshakeHandler(new UserIdHandshakeHandler(compressionEnabled))
                 .withSockJS()
                 .setWebSocketEnabled(true)
                 .setSessionCookieNeeded(false)
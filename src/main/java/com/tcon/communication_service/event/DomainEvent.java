@@ -0,0 +1,18 @@
+package com.tcon.communication_service.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Domain Event
+ * Marker for typed Kafka events. The wire name and version of each implementation live in
+ * EventTypeRegistry; the JSON body carries the record's own fields plus "eventType", so
+ * consumers that still read plain maps keep working.
+ */
+public interface DomainEvent {
+
+    /**
+     * Kafka record key: events with the same key stay on one partition, in order.
+     */
+    @JsonIgnore
+    String partitionKey();
+}
@@ -0,0 +1,67 @@
+package com.tcon.communication_service.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Event Deserializer
+ * Resolves the record from the eventType / eventVersion headers, falling back to the
+ * "eventType" body field (version 1) for producers that send no headers. Event types not in
+ * the registry - including those owned by other services - are returned as a Map, as before.
+ */
+public class EventDeserializer implements Deserializer<Object> {
+
+    private final EventTypeRegistry registry;
+    private final ObjectMapper objectMapper;
+
+    public EventDeserializer(EventTypeRegistry registry, ObjectMapper objectMapper) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            String name = header(headers, EventTypeRegistry.TYPE_HEADER);
+            String version = header(headers, EventTypeRegistry.VERSION_HEADER);
+            if (name != null) {
+                return objectMapper.readValue(data, targetFor(name, version != null ? Integer.parseInt(version) : 1));
+            }
+
+            // Headerless producer: look inside the body
+            JsonNode body = objectMapper.readTree(data);
+            JsonNode bodyType = body.get(EventTypeRegistry.TYPE_HEADER);
+            return objectMapper.treeToValue(body,
+                    targetFor(bodyType != null && bodyType.isTextual() ? bodyType.asText() : null, 1));
+        } catch (IOException | NumberFormatException e) {
+            throw new SerializationException("Can't deserialize event from topic " + topic, e);
+        }
+    }
+
+    private Class<?> targetFor(String name, int version) {
+        Class<?> eventClass = name != null ? registry.classFor(name, version) : null;
+        return eventClass != null ? eventClass : Map.class;
+    }
+
+    private static String header(Headers headers, String key) {
+        Header header = headers != null ? headers.lastHeader(key) : null;
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.tcon.communication_service.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Event Serializer
+ * Typed events: compact JSON (no nulls, no Java type headers) with the registry name and
+ * version as eventType / eventVersion headers and "eventType" in the body. Anything else
+ * (maps from code not yet moved to typed events) is written as plain JSON.
+ */
+public class EventSerializer implements Serializer<Object> {
+
+    private final EventTypeRegistry registry;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Event wire format: ISO-8601 dates, nulls omitted, unknown fields ignored so
+     * consumers tolerate fields added by newer producers.
+     */
+    public static ObjectMapper eventObjectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    public EventSerializer(EventTypeRegistry registry, ObjectMapper objectMapper) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+
+        try {
+            if (!(data instanceof DomainEvent event)) {
+                return objectMapper.writeValueAsBytes(data);
+            }
+
+            EventTypeRegistry.EventType type = registry.typeOf(event);
+            if (headers != null) {
+                headers.add(EventTypeRegistry.TYPE_HEADER, type.name().getBytes(StandardCharsets.UTF_8));
+                headers.add(EventTypeRegistry.VERSION_HEADER,
+                        Integer.toString(type.version()).getBytes(StandardCharsets.UTF_8));
+            }
+
+            ObjectNode body = objectMapper.valueToTree(event);
+            body.put(EventTypeRegistry.TYPE_HEADER, type.name());
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("Can't serialize event for topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.tcon.communication_service.event;
+
+import com.tcon.communication_service.messaging.event.ConversationReadUpToEvent;
+import com.tcon.communication_service.messaging.event.MessageDeliveredEvent;
+import com.tcon.communication_service.messaging.event.MessageReadEvent;
+import com.tcon.communication_service.messaging.event.MessageSentEvent;
+import com.tcon.communication_service.messaging.event.MessagesDeliveredEvent;
+import com.tcon.communication_service.video.event.RecordingAvailableEvent;
+import com.tcon.communication_service.video.event.RecordingReadyEvent;
+import com.tcon.communication_service.video.event.SessionEndedEvent;
+import com.tcon.communication_service.video.event.SessionStartedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Event Type Registry
+ * Wire name + schema version of every typed event this service produces or consumes.
+ * A new incompatible schema gets a new record registered under the same name with the next
+ * version; consumers pick the record from the eventType / eventVersion headers.
+ */
+@Component
+public class EventTypeRegistry {
+
+    public static final String TYPE_HEADER = "eventType";
+    public static final String VERSION_HEADER = "eventVersion";
+
+    private final Map<Class<?>, EventType> byClass = new HashMap<>();
+    private final Map<EventType, Class<? extends DomainEvent>> byType = new HashMap<>();
+
+    public EventTypeRegistry() {
+        // Messaging
+        register("MESSAGE_SENT", 1, MessageSentEvent.class);
+        register("MESSAGE_DELIVERED", 1, MessageDeliveredEvent.class);
+        register("MESSAGES_DELIVERED", 1, MessagesDeliveredEvent.class);
+        register("MESSAGE_READ", 1, MessageReadEvent.class);
+        register("CONVERSATION_READ_UP_TO", 1, ConversationReadUpToEvent.class);
+
+        // Video
+        register("SESSION_STARTED", 1, SessionStartedEvent.class);
+        register("SESSION_ENDED", 1, SessionEndedEvent.class);
+        register("RECORDING_AVAILABLE", 1, RecordingAvailableEvent.class);
+        register("RECORDING_READY", 1, RecordingReadyEvent.class);
+    }
+
+    private void register(String name, int version, Class<? extends DomainEvent> eventClass) {
+        EventType type = new EventType(name, version);
+        byClass.put(eventClass, type);
+        byType.put(type, eventClass);
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unregistered event class
+     */
+    public EventType typeOf(DomainEvent event) {
+        EventType type = byClass.get(event.getClass());
+        if (type == null) {
+            throw new IllegalArgumentException("Unregistered event type: " + event.getClass().getName());
+        }
+        return type;
+    }
+
+    /**
+     * @return the record for this name and version, or null if not registered
+     */
+    public Class<? extends DomainEvent> classFor(String name, int version) {
+        return byType.get(new EventType(name, version));
+    }
+
+    public record EventType(String name, int version) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.tcon.communication_service.event.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Outbox Event
+ * A Kafka event waiting to be published by OutboxRelay. Deleted once the broker acks it,
+ * moved to outbox_dead_letters after max-attempts failures.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "outbox_events")
+@CompoundIndexes({
+        @CompoundIndex(name = "outbox_order_idx", def = "{'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "outbox_retry_idx", def = "{'nextAttemptAt': 1}", sparse = true)
+})
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    private String topic;
+
+    /**
+     * Kafka key; events of one aggregate are published in insertion order
+     */
+    private String partitionKey;
+
+    private String eventType;
+
+    private Integer eventVersion;
+
+    /**
+     * Event record as wire JSON (EventSerializer.eventObjectMapper)
+     */
+    private String payload;
+
+    private Instant createdAt;
+
+    @Builder.Default
+    private Integer attempts = 0;
+
+    private Instant nextAttemptAt;
+
+    private String lastError;
+}
@@ -0,0 +1,12 @@
+package com.tcon.communication_service.event.repository;
+
+import com.tcon.communication_service.event.entity.OutboxEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outbox Event Repository
+ */
+@Repository
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String> {
+}
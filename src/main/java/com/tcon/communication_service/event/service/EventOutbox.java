@@ -0,0 +1,162 @@
+package com.tcon.communication_service.event.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
+import com.tcon.communication_service.event.DomainEvent;
+import com.tcon.communication_service.event.EventSerializer;
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.entity.OutboxEvent;
+import com.tcon.communication_service.event.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Event Outbox (message.outbox.enabled)
+ * Publishers call append() right after the state change they describe; the event is stored
+ * in outbox_events and OutboxRelay publishes it in the background, so request threads never
+ * wait on the broker and a broker outage delays events instead of dropping them.
+ * Callers wrap the state change and its append() in atomically(): with
+ * message.outbox.transactional (needs a replica set) both are one Mongo transaction, so a
+ * crash can neither lose the event nor publish one for a write that never happened. Outside
+ * a transaction, a failed outbox write falls back to sending the event directly.
+ */
+@Slf4j
+@Component
+public class EventOutbox {
+
+    private static final int MAX_TRANSACTION_ATTEMPTS = 5;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventTypeRegistry eventTypeRegistry;
+    private final ObjectProvider<OutboxRelay> outboxRelay;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper = EventSerializer.eventObjectMapper();
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public EventOutbox(
+            OutboxEventRepository outboxEventRepository,
+            EventTypeRegistry eventTypeRegistry,
+            ObjectProvider<OutboxRelay> outboxRelay,
+            @Qualifier("chatEventKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+            MongoDatabaseFactory mongoDatabaseFactory,
+            @Value("${message.outbox.enabled:true}") boolean enabled,
+            @Value("${message.outbox.transactional:false}") boolean transactional) {
+
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventTypeRegistry = eventTypeRegistry;
+        this.outboxRelay = outboxRelay;
+        this.kafkaTemplate = kafkaTemplate;
+        this.enabled = enabled;
+        // Not a bean: the application's @Transactional methods keep running without transactions
+        this.transactionTemplate = enabled && transactional
+                ? new TransactionTemplate(new MongoTransactionManager(mongoDatabaseFactory))
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run a state change and the events it appends as one unit (see class comment). The work
+     * is retried on transient transaction errors, such as a write conflict with a concurrent
+     * send to the same conversation, so it must only write to Mongo.
+     */
+    public <T> T atomically(Supplier<T> work) {
+        if (transactionTemplate == null) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_TRANSACTION_ATTEMPTS || !isTransient(e)) {
+                    throw e;
+                }
+                log.debug("Outbox transaction attempt {} failed, retrying: {}", attempt, e.getMessage());
+            }
+        }
+    }
+
+    public void append(String topic, DomainEvent event) {
+        appendAll(topic, List.of(event));
+    }
+
+    /**
+     * Store events for one topic; their order is kept per partition key.
+     */
+    public void appendAll(String topic, List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        try {
+            outboxEventRepository.insert(events.stream().map(event -> toOutboxEvent(topic, event, now)).toList());
+        } catch (DataAccessException | IllegalArgumentException e) {
+            if (inTransaction) {
+                // Rolls the state change back with it
+                throw e;
+            }
+            log.error("❌ Outbox write failed, sending {} events directly: {}", events.size(), e.getMessage());
+            events.forEach(event -> kafkaTemplate.send(topic, event.partitionKey(), event));
+            return;
+        }
+
+        if (inTransaction) {
+            // Not visible to the relay before the commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.ifAvailable(OutboxRelay::wakeUp);
+                }
+            });
+        } else {
+            outboxRelay.ifAvailable(OutboxRelay::wakeUp);
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return e instanceof TransientDataAccessException;
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, DomainEvent event, Instant now) {
+        EventTypeRegistry.EventType type = eventTypeRegistry.typeOf(event);
+        try {
+            return OutboxEvent.builder()
+                    .topic(topic)
+                    .partitionKey(event.partitionKey())
+                    .eventType(type.name())
+                    .eventVersion(type.version())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(now)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Can't serialize " + type.name(), e);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.tcon.communication_service.event.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcon.communication_service.event.DomainEvent;
+import com.tcon.communication_service.event.EventSerializer;
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.entity.OutboxEvent;
+import com.tcon.communication_service.event.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox Relay (message.outbox.enabled)
+ * Publishes outbox_events in (createdAt, _id) order through the chat producer, a batch at a
+ * time, and deletes them once acked.
+ * - One relay per cluster: the node holding the outbox_relay_lease document publishes, the
+ *   others only retry the lease. Appends on the leader wake it at once; events appended on
+ *   other nodes are picked up within poll-interval.
+ * - Per-key order: a key has one event in flight at a time (keys are sent side by side), so
+ *   a later event is never acked before an earlier one fails. A failed event and everything
+ *   after it for the same key stay in the outbox, and the key is held back until the failed
+ *   event is due again (backoff up to max-backoff). Held keys are left out of the query, so
+ *   they never fill a batch and other keys keep flowing. Delivery is at-least-once: an event
+ *   whose ack timed out may be sent again.
+ * - After max-attempts failures an event is moved to outbox_dead_letters (with its last
+ *   error) and the rest of its key goes on.
+ * - Started and stopped as a SmartLifecycle: publishing begins once the context is fully
+ *   wired and stops (lease released) before the Kafka producer is closed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "message.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final String LEASE_COLLECTION = "outbox_relay_lease";
+    private static final String LEASE_ID = "outbox-relay";
+    private static final String DEAD_LETTER_COLLECTION = "outbox_dead_letters";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventTypeRegistry eventTypeRegistry;
+    private final ObjectMapper objectMapper = EventSerializer.eventObjectMapper();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Semaphore wakeups = new Semaphore(0);
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long leaseMillis;
+    private final long sendTimeoutMillis;
+    private final long maxBackoffMillis;
+    private final int maxAttempts;
+    private final Counter published;
+    private final Counter failed;
+    private final Counter deadLettered;
+    private final Timer publishDelay;
+
+    private volatile Thread relay;
+    private volatile boolean running;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            MongoTemplate mongoTemplate,
+            @Qualifier("chatEventKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+            EventTypeRegistry eventTypeRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${message.outbox.batch-size:500}") int batchSize,
+            @Value("${message.outbox.poll-interval:500ms}") Duration pollInterval,
+            @Value("${message.outbox.lease:30s}") Duration lease,
+            @Value("${message.outbox.send-timeout:10s}") Duration sendTimeout,
+            @Value("${message.outbox.max-backoff:60s}") Duration maxBackoff,
+            @Value("${message.outbox.max-attempts:20}") int maxAttempts) {
+
+        this.outboxEventRepository = outboxEventRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.eventTypeRegistry = eventTypeRegistry;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.leaseMillis = lease.toMillis();
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.maxAttempts = maxAttempts;
+
+        Gauge.builder("message.outbox.pending", mongoTemplate,
+                        template -> template.getCollection(template.getCollectionName(OutboxEvent.class))
+                                .estimatedDocumentCount())
+                .description("Events stored but not yet published")
+                .register(meterRegistry);
+        this.published = Counter.builder("message.outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("message.outbox.failures").register(meterRegistry);
+        this.deadLettered = Counter.builder("message.outbox.dead_lettered")
+                .description("Events moved to outbox_dead_letters after max-attempts failures")
+                .register(meterRegistry);
+        this.publishDelay = Timer.builder("message.outbox.delay")
+                .description("Time from outbox append to broker acknowledgement")
+                .register(meterRegistry);
+
+        log.info("🔧 Outbox relay: node={}, batchSize={}, pollInterval={}", nodeId, batchSize, pollInterval);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        relay = new Thread(this::run, "outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    /**
+     * Publish soon instead of at the next poll.
+     */
+    public void wakeUp() {
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        Thread thread = relay;
+        if (!running || thread == null) {
+            return;
+        }
+        running = false;
+        wakeUp();
+        try {
+            thread.join(sendTimeoutMillis + TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(LEASE_ID).and("owner").is(nodeId)),
+                    LEASE_COLLECTION);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Could not release outbox lease: {}", e.getMessage());
+        }
+        log.info("🛑 Outbox relay stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Last to start, first to stop: before the Kafka listener containers and producer
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Relay loop
+    // ─────────────────────────────────────────────────────────────
+
+    private void run() {
+        while (running) {
+            try {
+                wakeups.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+
+                // Keep going while batches come back full; renew the lease before each one
+                while (running && holdLease() && relayBatch() == batchSize) {
+                    log.debug("Outbox backlog, relaying next batch");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Outbox relay failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private boolean holdLease() {
+        long now = System.currentTimeMillis();
+        Query query = Query.query(Criteria.where("_id").is(LEASE_ID).orOperator(
+                Criteria.where("owner").is(nodeId),
+                Criteria.where("expiresAt").lt(new Date(now))));
+        Update update = new Update().set("owner", nodeId).set("expiresAt", new Date(now + leaseMillis));
+        try {
+            mongoTemplate.upsert(query, update, LEASE_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Held by another node
+            return false;
+        }
+    }
+
+    /**
+     * @return number of due events processed (a full batch means there may be more)
+     */
+    int relayBatch() throws InterruptedException {
+        Instant now = Instant.now();
+        List<OutboxEvent> pending = findDue(now);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<OutboxEvent>> byKey = new LinkedHashMap<>();
+        for (OutboxEvent event : pending) {
+            byKey.computeIfAbsent(event.getPartitionKey() != null ? event.getPartitionKey() : event.getId(),
+                    key -> new ArrayList<>()).add(event);
+        }
+
+        List<String> done = new ArrayList<>();
+        List<OutboxEvent> retries = new ArrayList<>();
+        List<OutboxEvent> held = new ArrayList<>();
+        List<OutboxEvent> deadLetters = new ArrayList<>();
+
+        // Rounds: the next event of every live key is sent together, and a key's next event
+        // only goes out once the previous one is acked
+        List<Iterator<OutboxEvent>> live = new ArrayList<>();
+        byKey.values().forEach(events -> live.add(events.iterator()));
+        while (!live.isEmpty()) {
+            Map<OutboxEvent, Iterator<OutboxEvent>> round = new LinkedHashMap<>();
+            Map<OutboxEvent, CompletableFuture<?>> sends = new LinkedHashMap<>();
+            for (Iterator<OutboxEvent> key : live) {
+                OutboxEvent event = key.next();
+                round.put(event, key);
+                sends.put(event, send(event));
+            }
+            live.clear();
+
+            long deadline = System.currentTimeMillis() + sendTimeoutMillis;
+            for (Map.Entry<OutboxEvent, Iterator<OutboxEvent>> entry : round.entrySet()) {
+                OutboxEvent event = entry.getKey();
+                Iterator<OutboxEvent> rest = entry.getValue();
+                String error = await(sends.get(event), deadline);
+                if (error == null) {
+                    done.add(event.getId());
+                    publishDelay.record(Duration.between(event.getCreatedAt(), Instant.now()));
+                } else if (attempts(event) + 1 >= maxAttempts) {
+                    deadLetters.add(retry(event, error, now));
+                } else {
+                    retries.add(retry(event, error, now));
+                    // Behind a failed event: held, not an attempt of their own
+                    rest.forEachRemaining(behind -> {
+                        behind.setNextAttemptAt(event.getNextAttemptAt());
+                        held.add(behind);
+                    });
+                }
+                if (rest.hasNext()) {
+                    live.add(rest);
+                }
+            }
+        }
+
+        if (!done.isEmpty()) {
+            outboxEventRepository.deleteAllById(done);
+            published.increment(done.size());
+        }
+        if (!retries.isEmpty() || !held.isEmpty()) {
+            outboxEventRepository.saveAll(retries);
+            outboxEventRepository.saveAll(held);
+            failed.increment(retries.size());
+            log.warn("⚠️ Outbox: {} events failed, {} more held behind them for retry", retries.size(), held.size());
+        }
+        if (!deadLetters.isEmpty()) {
+            deadLetter(deadLetters);
+        }
+        return done.size() + retries.size() + held.size() + deadLetters.size();
+    }
+
+    /**
+     * Oldest events that are due, leaving out every key held back by a failed event.
+     */
+    private List<OutboxEvent> findDue(Instant now) {
+        List<String> heldKeys = mongoTemplate.findDistinct(Query.query(Criteria.where("nextAttemptAt").gt(now)),
+                        "partitionKey", OutboxEvent.class, String.class).stream()
+                .filter(Objects::nonNull)
+                .toList();
+
+        Criteria due = new Criteria().orOperator(
+                Criteria.where("nextAttemptAt").is(null),
+                Criteria.where("nextAttemptAt").lte(now));
+        if (!heldKeys.isEmpty()) {
+            due = due.and("partitionKey").nin(heldKeys);
+        }
+        Query query = Query.query(due)
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "_id"))
+                .limit(batchSize);
+        return mongoTemplate.find(query, OutboxEvent.class);
+    }
+
+    /**
+     * Park events that keep failing so the rest of their key can go on.
+     */
+    private void deadLetter(List<OutboxEvent> events) {
+        // save: idempotent if the relay dies before the delete
+        events.forEach(event -> mongoTemplate.save(event, DEAD_LETTER_COLLECTION));
+        outboxEventRepository.deleteAllById(events.stream().map(OutboxEvent::getId).toList());
+        deadLettered.increment(events.size());
+        events.forEach(event -> log.error("❌ Outbox event {} ({} key={}) moved to {} after {} attempts: {}",
+                event.getId(), event.getEventType(), event.getPartitionKey(), DEAD_LETTER_COLLECTION,
+                event.getAttempts(), event.getLastError()));
+    }
+
+    private CompletableFuture<?> send(OutboxEvent event) {
+        Class<? extends DomainEvent> eventClass =
+                eventTypeRegistry.classFor(event.getEventType(), event.getEventVersion());
+        if (eventClass == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Unregistered event type " + event.getEventType() + " v" + event.getEventVersion()));
+        }
+        try {
+            return kafkaTemplate.send(event.getTopic(), event.getPartitionKey(),
+                    objectMapper.readValue(event.getPayload(), eventClass));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return null on success, else the failure message
+     */
+    private String await(CompletableFuture<?> send, long deadline) throws InterruptedException {
+        try {
+            send.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            return null;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.toString();
+        }
+    }
+
+    private static int attempts(OutboxEvent event) {
+        return event.getAttempts() != null ? event.getAttempts() : 0;
+    }
+
+    private OutboxEvent retry(OutboxEvent event, String error, Instant now) {
+        int attempts = attempts(event) + 1;
+        long backoff = Math.min(maxBackoffMillis, 100L << Math.min(attempts, 20));
+        event.setAttempts(attempts);
+        event.setNextAttemptAt(now.plusMillis(backoff));
+        event.setLastError(error);
+        return event;
+    }
+}
@@ -5,7 +5,8 @@ import com.tcon.communication_service.messaging.dto.MessageDto;
 import com.tcon.communication_service.messaging.dto.MessageSendRequest;
 import com.tcon.communication_service.messaging.dto.TypingIndicatorDto;
 import com.tcon.communication_service.messaging.exception.ParentAccessDeniedException;
-import com.tcon.communication_service.messaging.service.MessageService;
+import com.tcon.communication_service.messaging.service.MessageDeliveryService;
+import com.tcon.communication_service.messaging.service.TypingStateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -18,14 +19,17 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+
 @Slf4j
 @Controller
 @RequiredArgsConstructor
 public class ChatWebSocketController {
 
-    private final MessageService messageService;
+    private final MessageDeliveryService messageDeliveryService;
     private final SimpMessagingTemplate messagingTemplate;
     private final ObjectMapper objectMapper;
+    private final TypingStateService typingStateService;
 
     /**
      * ✅ FIXED: senderRole now passed to service (3-param method)
@@ -49,14 +53,11 @@ public class ChatWebSocketController {
                     request.getContent().substring(0, Math.min(50, request.getContent().length())));
 
             // ✅ FIXED: Pass senderRole as second param to match service signature
-            MessageDto message = messageService.sendMessage(senderId, senderRole, request);
-
-            String convId = message.getConversationId();
-            messagingTemplate.convertAndSend("/topic/conversations/" + convId, message);
-            messagingTemplate.convertAndSendToUser(message.getReceiverId(), "/queue/messages", message);
+            // A replayed retry is not pushed again; the sender still gets the ack
+            MessageDto message = messageDeliveryService.send(senderId, senderRole, request).message();
             messagingTemplate.convertAndSendToUser(senderId, "/queue/delivery", message);
 
-            log.debug("✅ WS Sent conv={} msg={}", convId, message.getId());
+            log.debug("✅ WS Sent conv={} msg={}", message.getConversationId(), message.getId());
 
         } catch (ParentAccessDeniedException e) {
             log.warn("🚫 Parent blocked: {}", e.getMessage());
@@ -68,11 +69,18 @@ public class ChatWebSocketController {
         }
     }
 
+    /**
+     * Indicators feed the typing state machine; /topic/typing/{id} only sees start/stop transitions
+     */
     @MessageMapping("/chat.typing/{conversationId}")
     public void sendTypingIndicator(@DestinationVariable String conversationId,
-                                    @Payload TypingIndicatorDto indicator) {
-        indicator.setConversationId(conversationId);
-        messagingTemplate.convertAndSend("/topic/typing/" + conversationId, indicator);
+                                    @Payload TypingIndicatorDto indicator,
+                                    Principal principal) {
+        String userId = principal != null ? principal.getName() : indicator.getUserId();
+        if (userId == null) {
+            return;
+        }
+        typingStateService.onIndicator(conversationId, userId, Boolean.TRUE.equals(indicator.getIsTyping()));
     }
 
     @MessageMapping("/chat.join/{conversationId}")
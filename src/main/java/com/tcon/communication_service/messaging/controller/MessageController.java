@@ -1,14 +1,18 @@
 package com.tcon.communication_service.messaging.controller;
 
 import com.tcon.communication_service.client.UserServiceClient;
-import com.tcon.communication_service.client.ParentServiceClient;
+import com.tcon.communication_service.messaging.service.ParentChildrenCache;
 import com.tcon.communication_service.messaging.dto.ContactDto;
 import com.tcon.communication_service.messaging.dto.ConversationDto;
 import com.tcon.communication_service.messaging.dto.MessageDto;
 import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.messaging.dto.MessageSliceDto;
+import com.tcon.communication_service.messaging.dto.SyncResponseDto;
 import com.tcon.communication_service.messaging.exception.ParentAccessDeniedException;
 import com.tcon.communication_service.messaging.service.ConversationService;
+import com.tcon.communication_service.messaging.service.MessageDeliveryService;
 import com.tcon.communication_service.messaging.service.MessageService;
+import com.tcon.communication_service.messaging.service.SyncService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,9 +33,11 @@ import java.util.List;
 public class MessageController {
 
     private final MessageService messageService;
+    private final MessageDeliveryService messageDeliveryService;
     private final ConversationService conversationService;
+    private final SyncService syncService;
     private final UserServiceClient userServiceClient;
-    private final ParentServiceClient parentServiceClient;
+    private final ParentChildrenCache parentChildrenCache;
 
     // ─────────────────────────────────────────────────────────────
     // Send message
@@ -40,13 +46,19 @@ public class MessageController {
     public ResponseEntity<MessageDto> sendMessage(
             @RequestHeader("X-User-Id") String senderId,
             @RequestHeader("X-User-Role") String senderRole,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody MessageSendRequest request) {
 
         log.info("📤 Sending message from {} ({}) to {}", senderId, senderRole, request.getReceiverId());
+        if (request.getIdempotencyKey() == null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
         try {
-            MessageDto message = messageService.sendMessage(senderId, senderRole, request);
-            log.info("✅ Message sent: {}", message.getId());
-            return ResponseEntity.status(HttpStatus.CREATED).body(message);
+            MessageService.SendResult result = messageDeliveryService.send(senderId, senderRole, request);
+            log.info("✅ Message sent: {}", result.message().getId());
+            // A replayed retry gets the original message back with 200 instead of 201
+            return ResponseEntity.status(result.replayed() ? HttpStatus.OK : HttpStatus.CREATED)
+                    .body(result.message());
         } catch (ParentAccessDeniedException e) {
             log.warn("🚫 Send blocked: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
@@ -79,6 +91,50 @@ public class MessageController {
         }
     }
 
+    // ─────────────────────────────────────────────────────────────
+    // Get messages in a conversation (keyset / cursor pagination)
+    // ─────────────────────────────────────────────────────────────
+    @GetMapping("/conversations/{conversationId}/messages")
+    public ResponseEntity<MessageSliceDto> getMessagesSlice(
+            @PathVariable String conversationId,
+            @RequestHeader("X-User-Id") String userId,
+            @RequestHeader("X-User-Role") String userRole,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(defaultValue = "50") int size) {
+
+        log.debug("📖 Loading message slice for {} ({}) - conv: {}", userId, userRole, conversationId);
+        try {
+            if ("PARENT".equalsIgnoreCase(userRole)) {
+                messageService.validateParentAccess(userId, conversationId);
+            }
+            MessageSliceDto slice = messageService.getConversationMessagesSlice(
+                    conversationId, before, after, afterSeq, Math.min(Math.max(size, 1), 100));
+            return ResponseEntity.ok(slice);
+        } catch (ParentAccessDeniedException e) {
+            log.warn("🚫 Parent access denied: {} -> {}", userId, conversationId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Delta sync: changes across all conversations since a token
+    // ─────────────────────────────────────────────────────────────
+    @GetMapping("/sync")
+    public ResponseEntity<SyncResponseDto> sync(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String since) {
+
+        log.debug("🔄 Sync for {} since {}", userId, since);
+        try {
+            return ResponseEntity.ok(syncService.sync(userId, since));
+        } catch (IllegalArgumentException e) {
+            log.warn("🚫 Invalid sync token from {}: {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
     // ─────────────────────────────────────────────────────────────
     // Mark single message as read (parents blocked)
     // ─────────────────────────────────────────────────────────────
@@ -192,7 +248,7 @@ public class MessageController {
 
         try {
             if ("PARENT".equalsIgnoreCase(userRole)) {
-                List<String> childIds = parentServiceClient.getChildStudentIds(userId);
+                List<String> childIds = parentChildrenCache.getChildStudentIds(userId);
                 log.info("👨‍👩‍👧 Parent {} children: {}", userId, childIds);
 
                 if (childIds == null || childIds.isEmpty()) {
@@ -0,0 +1,70 @@
+package com.tcon.communication_service.messaging.controller;
+
+import com.tcon.communication_service.messaging.dto.UserPresenceDto;
+import com.tcon.communication_service.messaging.service.ConversationService;
+import com.tcon.communication_service.websocket.PresenceRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Presence lookups are limited to the caller and the users they share a conversation with;
+ * other ids are refused (single lookup) or left out of the result (bulk lookup).
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/messages/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private static final int MAX_BULK_USERS = 200;
+
+    private final PresenceRegistry presenceRegistry;
+    private final ConversationService conversationService;
+
+    // ─────────────────────────────────────────────────────────────
+    // Presence of one user
+    // ─────────────────────────────────────────────────────────────
+    @GetMapping("/{userId}")
+    public ResponseEntity<UserPresenceDto> getPresence(
+            @RequestHeader("X-User-Id") String callerId,
+            @PathVariable String userId) {
+
+        if (!userId.equals(callerId) && !conversationService.getConversationPartnerIds(callerId).contains(userId)) {
+            log.warn("🚫 Presence of {} requested by {} without a shared conversation", userId, callerId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(presenceRegistry.getPresence(userId));
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Presence of several users (e.g. a contact list)
+    // ─────────────────────────────────────────────────────────────
+    @GetMapping
+    public ResponseEntity<Map<String, UserPresenceDto>> getPresence(
+            @RequestHeader("X-User-Id") String callerId,
+            @RequestParam List<String> userIds) {
+
+        if (userIds.size() > MAX_BULK_USERS) {
+            log.warn("🚫 Presence lookup for {} users exceeds limit {}", userIds.size(), MAX_BULK_USERS);
+            return ResponseEntity.badRequest().build();
+        }
+
+        Set<String> visible = conversationService.getConversationPartnerIds(callerId);
+        List<String> allowed = userIds.stream()
+                .filter(userId -> userId.equals(callerId) || visible.contains(userId))
+                .distinct()
+                .toList();
+        if (allowed.size() < userIds.size()) {
+            log.debug("Presence lookup by {}: {} of {} ids not visible", callerId,
+                    userIds.size() - allowed.size(), userIds.size());
+        }
+        return ResponseEntity.ok(allowed.isEmpty() ? Map.of() : presenceRegistry.getPresence(allowed));
+    }
+}
@@ -1,6 +1,7 @@
 package com.tcon.communication_service.messaging.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -39,7 +40,9 @@ public class ConversationDto {
     private String lastMessageId;
     private String lastMessageContent;
     private String lastMessageSenderId;
+    private Long lastMessageSeq;  // highest seq sent so far; a client holding less has a gap
     private Map<String, Integer> unreadCounts;
+    private Map<String, ReadWatermark> readWatermarks;
     private Integer unreadCount;
 
 }
@@ -0,0 +1,33 @@
+package com.tcon.communication_service.messaging.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Message Cursor
+ * Keyset position (seq) in a conversation's history, exchanged with clients
+ * as an opaque URL-safe token
+ */
+@Data
+@AllArgsConstructor
+public class MessageCursor {
+
+    private long seq;
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(seq).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MessageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return new MessageCursor(Long.parseLong(raw));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid message cursor: " + token);
+        }
+    }
+}
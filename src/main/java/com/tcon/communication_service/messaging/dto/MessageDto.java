@@ -11,13 +11,14 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class MessageDto {
 
     private String id;
     private String conversationId;
+    private Long seq;
     private String senderId;
     private String receiverId;
     private String content;
@@ -44,4 +45,7 @@ public class MessageDto {
 
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "UTC")
     private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "UTC")
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -33,4 +33,9 @@ public class MessageSendRequest {
     private Long fileSize;
     private String mimeType;
     private String replyToMessageId;
+
+    // Optional client-generated key (e.g. a UUID per compose); retries with the same key
+    // return the original message instead of sending it again
+    @Size(max = 128, message = "Idempotency key cannot exceed 128 characters")
+    private String idempotencyKey;
 }
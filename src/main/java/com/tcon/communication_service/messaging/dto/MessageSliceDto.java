@@ -0,0 +1,24 @@
+package com.tcon.communication_service.messaging.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Message Slice DTO
+ * One keyset page of a conversation's history (newest first) with the cursor to continue from
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSliceDto {
+
+    private List<MessageDto> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
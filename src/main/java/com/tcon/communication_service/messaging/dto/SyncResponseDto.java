@@ -0,0 +1,26 @@
+package com.tcon.communication_service.messaging.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Sync Response DTO
+ * Changes since a sync token: new, edited and soft-deleted messages, plus conversations
+ * whose preview, unread counters or read watermarks changed. Continue with nextToken;
+ * hasMore means another call returns more changes right away.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponseDto {
+
+    private List<MessageDto> messages;
+    private List<ConversationDto> conversations;
+    private String nextToken;
+    private boolean hasMore;
+}
@@ -0,0 +1,62 @@
+package com.tcon.communication_service.messaging.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * Sync Token
+ * Positions (updatedAt, id) in the message and conversation change feeds, exchanged with
+ * clients as an opaque URL-safe token. A null id means "everything up to the instant".
+ */
+@Data
+@AllArgsConstructor
+public class SyncToken {
+
+    private LocalDateTime messagesAt;
+    private String messageId;
+    private LocalDateTime conversationsAt;
+    private String conversationId;
+
+    public static SyncToken at(LocalDateTime instant) {
+        return new SyncToken(instant, null, instant, null);
+    }
+
+    public String encode() {
+        String raw = toMillis(messagesAt) + ":" + nullToEmpty(messageId) + ":"
+                + toMillis(conversationsAt) + ":" + nullToEmpty(conversationId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+            return new SyncToken(fromMillis(parts[0]), emptyToNull(parts[1]),
+                    fromMillis(parts[2]), emptyToNull(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid sync token: " + token);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(String millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(millis)), ZoneId.systemDefault());
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
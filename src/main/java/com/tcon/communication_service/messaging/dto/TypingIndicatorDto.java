@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Typing Indicator DTO
  * Indicates user typing status
@@ -18,4 +20,8 @@ public class TypingIndicatorDto {
     private String conversationId;
     private String userId;
     private Boolean isTyping;
+
+    // Set on server frames: everyone typing in the conversation after this transition
+    private List<String> typingUserIds;
+    private Integer typingCount;
 }
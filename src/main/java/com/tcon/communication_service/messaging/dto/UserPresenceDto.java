@@ -0,0 +1,29 @@
+package com.tcon.communication_service.messaging.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPresenceDto {
+
+    private String userId;
+    private boolean online;
+
+    // Sessions held by the node that answered
+    private int sessionCount;
+
+    // Nodes holding at least one session for the user
+    private List<String> nodes;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "UTC")
+    private LocalDateTime lastSeenAt;
+}
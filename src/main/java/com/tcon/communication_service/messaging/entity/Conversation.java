@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -24,6 +25,7 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "conversations")
+@CompoundIndex(name = "participant_sync_idx", def = "{'participantIds': 1, 'updatedAt': 1, '_id': 1}")
 public class Conversation {
 
     @Id
@@ -35,14 +37,25 @@ public class Conversation {
     @Builder.Default
     private String type = "DIRECT";  // ← Added type field (DIRECT or GROUP)
 
+    // Canonical "<type>:<sorted participant ids>" key for two-party conversations.
+    // Sparse so group conversations (and not-yet-migrated documents) are not indexed.
+    @Indexed(name = "pair_key_uidx", unique = true, sparse = true)
+    private String pairKey;
+
     private String lastMessageId;
     private String lastMessageContent;
     private String lastMessageSenderId;
     private LocalDateTime lastMessageAt;
 
+    // Last Message.seq handed out in this conversation (only ever changed with $inc)
+    private Long messageSeq;
+
     @Builder.Default
     private Map<String, Integer> unreadCounts = new HashMap<>();  // userId -> count
 
+    @Builder.Default
+    private Map<String, ReadWatermark> readWatermarks = new HashMap<>();  // userId -> read position
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -50,23 +63,15 @@ public class Conversation {
     private LocalDateTime updatedAt;
 
     // Helper methods
-    public void updateLastMessage(String messageId, String content, String senderId) {
-        this.lastMessageId = messageId;
-        this.lastMessageContent = content;
-        this.lastMessageSenderId = senderId;
-        this.lastMessageAt = LocalDateTime.now();
-
-        // Increment unread count for other participants
-        participantIds.stream()
-                .filter(id -> !id.equals(senderId))
-                .forEach(id -> unreadCounts.merge(id, 1, Integer::sum));
-    }
-
-    public void resetUnreadCount(String userId) {
-        unreadCounts.put(userId, 0);
+    public static String pairKey(String type, List<String> participantIds) {
+        return type + ":" + String.join("|", participantIds.stream().sorted().toList());
     }
 
     public int getUnreadCount(String userId) {
         return unreadCounts.getOrDefault(userId, 0);
     }
+
+    public ReadWatermark getReadWatermark(String userId) {
+        return readWatermarks != null ? readWatermarks.get(userId) : null;
+    }
 }
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
@@ -25,7 +26,10 @@ import java.time.LocalDateTime;
 @Document(collection = "messages")
 @CompoundIndexes({
         @CompoundIndex(name = "conversation_timestamp_idx", def = "{'conversationId': 1, 'createdAt': -1}"),
-        @CompoundIndex(name = "sender_receiver_idx", def = "{'senderId': 1, 'receiverId': 1}")
+        @CompoundIndex(name = "conversation_seq_uidx", def = "{'conversationId': 1, 'seq': -1}", unique = true,
+                partialFilter = "{ 'seq': { '$exists': true } }"),
+        @CompoundIndex(name = "sender_receiver_idx", def = "{'senderId': 1, 'receiverId': 1}"),
+        @CompoundIndex(name = "conversation_sync_idx", def = "{'conversationId': 1, 'updatedAt': 1, '_id': 1}")
 })
 public class Message {
 
@@ -35,6 +39,10 @@ public class Message {
     @Indexed
     private String conversationId;
 
+    // Position in the conversation, from Conversation.messageSeq ($inc at send time).
+    // Strictly increasing per conversation but not gap-free (failed sends, soft deletes).
+    private Long seq;
+
     @Indexed
     private String senderId;
 
@@ -61,6 +69,10 @@ public class Message {
     private String replyToMessageId;
     private String replyToContent; // Cached for performance
 
+    // "senderId:clientKey" for sends that carried an idempotency key; absent otherwise
+    @Indexed(name = "sender_idempotency_uidx", unique = true, sparse = true)
+    private String idempotencyKey;
+
     // Read receipts
     private LocalDateTime readAt;
 
@@ -84,6 +96,10 @@ public class Message {
     @CreatedDate
     private LocalDateTime createdAt;
 
+    // Any change (send, edit, soft delete, delivery); drives delta sync
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+
     // Helper methods
     public void markAsRead() {
         this.status = MessageStatus.READ;
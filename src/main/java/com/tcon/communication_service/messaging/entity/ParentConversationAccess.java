@@ -0,0 +1,46 @@
+package com.tcon.communication_service.messaging.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parent Conversation Access Entity
+ * Precomputed grant: parentId may observe conversationId because their child studentId
+ * takes part in it. _id is "{parentId}:{conversationId}", so the access check is one
+ * _id lookup. Maintained by ParentConversationIndex.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "parent_conversation_access")
+@CompoundIndexes({
+        @CompoundIndex(name = "parent_student_idx", def = "{'parentId': 1, 'studentId': 1}")
+})
+public class ParentConversationAccess {
+
+    @Id
+    private String id;
+
+    private String parentId;
+
+    private String studentId;
+
+    @Indexed
+    private String conversationId;
+
+    private LocalDateTime createdAt;
+
+    public static String key(String parentId, String conversationId) {
+        return parentId + ":" + conversationId;
+    }
+}
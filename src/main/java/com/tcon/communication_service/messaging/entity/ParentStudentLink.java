@@ -0,0 +1,40 @@
+package com.tcon.communication_service.messaging.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parent Student Link Entity
+ * Local copy of a parent/student link known to auth-user-service, learned from link events,
+ * verified parent checks and reconciliation. Lets ParentConversationIndex grant parents
+ * access to a new conversation without a reverse lookup. _id is "{parentId}:{studentId}".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "parent_student_links")
+public class ParentStudentLink {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String parentId;
+
+    @Indexed
+    private String studentId;
+
+    private LocalDateTime linkedAt;
+
+    public static String key(String parentId, String studentId) {
+        return parentId + ":" + studentId;
+    }
+}
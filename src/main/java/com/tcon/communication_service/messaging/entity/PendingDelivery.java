@@ -0,0 +1,51 @@
+package com.tcon.communication_service.messaging.entity;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending Delivery Entity
+ * A message frame that could not be pushed because the receiver had no WebSocket session.
+ * Drained in one batch when the receiver reconnects; Mongo removes leftovers at expiresAt.
+ * A drain claims its batch (claimedBy/claimedUntil) and only deletes it once the frame went
+ * out, so a drain that dies half way leaves the batch to the next one after the lease.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "pending_deliveries")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_message_uidx", def = "{'userId': 1, 'messageId': 1}", unique = true),
+        @CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': 1}")
+})
+public class PendingDelivery {
+
+    @Id
+    private String id;
+
+    private String userId;
+    private String messageId;
+
+    // Frame payload as it would have been pushed
+    private MessageDto message;
+
+    private LocalDateTime createdAt;
+
+    // Drain lease; unclaimed (or lease over) when claimedUntil is null or past
+    private String claimedBy;
+    private LocalDateTime claimedUntil;
+
+    @Indexed(name = "pending_delivery_ttl_idx", expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+}
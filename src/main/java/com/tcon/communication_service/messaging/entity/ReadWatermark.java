@@ -0,0 +1,35 @@
+package com.tcon.communication_service.messaging.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read Watermark
+ * Per-user read position in a conversation: every message addressed to the user
+ * and created at or before lastReadAt counts as read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadWatermark {
+
+    private String lastReadMessageId;
+
+    // createdAt of the last read message
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "UTC")
+    private LocalDateTime lastReadAt;
+
+    // When the user read up to the watermark
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "UTC")
+    private LocalDateTime readAt;
+
+    public boolean covers(LocalDateTime messageCreatedAt) {
+        return lastReadAt != null && messageCreatedAt != null && !messageCreatedAt.isAfter(lastReadAt);
+    }
+}
@@ -19,4 +19,5 @@ import java.time.LocalDateTime;
 public class TypingIndicator {
     private String userId;
     private LocalDateTime startedAt;
+    private LocalDateTime lastActiveAt;
 }
@@ -0,0 +1,26 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * CONVERSATION_READ_UP_TO v1: everything senderIds sent up to readUpTo was read by readerId
+ */
+@Builder
+public record ConversationReadUpToEvent(
+        String conversationId,
+        String readerId,
+        List<String> senderIds,
+        LocalDateTime readUpTo,
+        long count,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return conversationId;
+    }
+}
@@ -0,0 +1,21 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * MESSAGE_DELIVERED v1
+ */
+@Builder
+public record MessageDeliveredEvent(
+        String messageId,
+        String conversationId,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return conversationId;
+    }
+}
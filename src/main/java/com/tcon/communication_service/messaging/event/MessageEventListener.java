@@ -1,75 +1,218 @@
 package com.tcon.communication_service.messaging.event;
 
-import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.event.DomainEvent;
+import com.tcon.communication_service.event.EventTypeRegistry;
 import com.tcon.communication_service.messaging.repository.MessageRepository;
-import lombok.RequiredArgsConstructor;
+import com.tcon.communication_service.websocket.PresenceRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Message Event Listener
- * Bridges Kafka message events to WebSocket notifications
+ * Bridges Kafka message events to WebSocket notifications, one poll at a time
+ * (messageEventListenerContainerFactory: batch mode, one consumer per partition).
+ * Within a batch, READ receipts are coalesced in conversation order:
+ * - MESSAGE_READ: one /queue/message-read frame per (conversation, sender), carrying all ids
+ * - CONVERSATION_READ_UP_TO: one frame per (conversation, reader) with the latest watermark
+ * Missing sender ids are resolved with one findAllById per batch.
  */
-@Component
-@RequiredArgsConstructor
 @Slf4j
+@Component
 public class MessageEventListener {
 
     private final SimpMessagingTemplate messagingTemplate;
     private final MessageRepository messageRepository;
+    private final PresenceRegistry presenceRegistry;
+    private final EventTypeRegistry eventTypeRegistry;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+    private final Timer consumeLag;
+    private final Counter readFrames;
+    private final Counter coalescedReads;
+
+    public MessageEventListener(
+            SimpMessagingTemplate messagingTemplate,
+            MessageRepository messageRepository,
+            PresenceRegistry presenceRegistry,
+            EventTypeRegistry eventTypeRegistry,
+            MeterRegistry meterRegistry) {
+
+        this.messagingTemplate = messagingTemplate;
+        this.messageRepository = messageRepository;
+        this.presenceRegistry = presenceRegistry;
+        this.eventTypeRegistry = eventTypeRegistry;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("message.events.consume.batch")
+                .description("Records per message-events poll")
+                .register(meterRegistry);
+        this.consumeLag = Timer.builder("message.events.consume.lag")
+                .description("Time from produce to consume of message events")
+                .register(meterRegistry);
+        this.readFrames = Counter.builder("message.events.read_frames")
+                .description("/queue/message-read frames sent from message events")
+                .register(meterRegistry);
+        this.coalescedReads = Counter.builder("message.events.read_coalesced")
+                .description("READ events folded into another frame of the same batch")
+                .register(meterRegistry);
+    }
 
     @KafkaListener(
             topics = "${spring.kafka.topics.message-events}",
-            groupId = "ws-message-events"
+            groupId = "ws-message-events",
+            containerFactory = "messageEventListenerContainerFactory"
     )
-    public void handleMessageEvent(Map<String, Object> event) {
-        if (event == null || event.get("eventType") == null) {
-            return;
-        }
+    public void handleMessageEvents(List<ConsumerRecord<String, Object>> records) {
+        batchSize.record(records.size());
+        long now = System.currentTimeMillis();
 
-        String type = (String) event.get("eventType");
-        log.info("Kafka event received: {}", event);
+        // Insertion order = first occurrence in the batch, so conversations keep their order
+        Map<String, List<MessageReadEvent>> reads = new LinkedHashMap<>();
+        Map<String, ConversationReadUpToEvent> readUpTos = new LinkedHashMap<>();
 
-        if (!"MESSAGE_READ".equals(type)) {
-            return; // ignore SENT/DELIVERED
-        }
+        for (ConsumerRecord<String, Object> record : records) {
+            consumeLag.record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+            Object event = record.value();
+            consumed(event);
 
-        String messageId = (String) event.get("messageId");
-        String conversationId = (String) event.get("conversationId");
-        Object readAtObj = event.get("readAt");
-        String readAt = readAtObj != null ? readAtObj.toString() : null;
+            if (event instanceof MessageReadEvent read) {
+                if (read.messageId() == null || read.conversationId() == null) {
+                    log.warn("MESSAGE_READ event missing ids: {}", read);
+                    continue;
+                }
+                reads.computeIfAbsent(read.conversationId(), id -> new ArrayList<>()).add(read);
+            } else if (event instanceof ConversationReadUpToEvent readUpTo) {
+                if (readUpTo.conversationId() == null || readUpTo.senderIds() == null) {
+                    log.warn("CONVERSATION_READ_UP_TO event missing ids: {}", readUpTo);
+                    continue;
+                }
+                readUpTos.merge(readUpTo.conversationId() + ":" + readUpTo.readerId(), readUpTo, this::merge);
+            }
+            // ignore SENT/DELIVERED
+        }
 
-        if (messageId == null || conversationId == null) {
-            log.warn("MESSAGE_READ event missing ids: {}", event);
-            return;
+        if (!reads.isEmpty()) {
+            sendMessageReads(reads);
         }
+        readUpTos.values().forEach(this::sendConversationReadUpTo);
+        log.debug("Processed {} message events ({} conversations with reads, {} read-up-to)",
+                records.size(), reads.size(), readUpTos.size());
+    }
 
-        String senderId = (String) event.get("senderId");
-        if (senderId == null) {
-            Message message = messageRepository.findById(messageId).orElse(null);
-            if (message == null) {
-                log.warn("Message not found for MESSAGE_READ event: {}", messageId);
-                return;
+    /**
+     * One /queue/message-read frame per (conversation, sender). "id" / "readAt" are the
+     * latest read; "messageIds" lists every message read in the batch.
+     */
+    private void sendMessageReads(Map<String, List<MessageReadEvent>> reads) {
+        Map<String, String> resolvedSenders = resolveSenders(reads.values().stream()
+                .flatMap(List::stream)
+                .filter(read -> read.senderId() == null)
+                .map(MessageReadEvent::messageId)
+                .collect(Collectors.toSet()));
+
+        reads.forEach((conversationId, conversationReads) -> {
+            Map<String, List<MessageReadEvent>> bySender = new LinkedHashMap<>();
+            for (MessageReadEvent read : conversationReads) {
+                String senderId = read.senderId() != null ? read.senderId() : resolvedSenders.get(read.messageId());
+                if (senderId == null) {
+                    log.warn("Message not found for MESSAGE_READ event: {}", read.messageId());
+                    continue;
+                }
+                bySender.computeIfAbsent(senderId, id -> new ArrayList<>()).add(read);
             }
-            senderId = message.getSenderId();
-        }
 
+            bySender.forEach((senderId, senderReads) -> {
+                if (!presenceRegistry.isOnline(senderId)) {
+                    // Read state is served from the watermark when the sender reloads the conversation
+                    log.debug("💤 Sender {} offline, MESSAGE_READ frame skipped", senderId);
+                    return;
+                }
+
+                MessageReadEvent latest = senderReads.get(senderReads.size() - 1);
+                Map<String, Object> payload = new HashMap<>();
+                payload.put("id", latest.messageId());
+                payload.put("messageIds", senderReads.stream().map(MessageReadEvent::messageId).distinct().toList());
+                payload.put("conversationId", conversationId);
+                payload.put("status", "READ");
+                payload.put("readAt", latest.readAt() != null ? latest.readAt().toString() : null);
+
+                messagingTemplate.convertAndSendToUser(senderId, "/queue/message-read", payload);
+                readFrames.increment();
+                coalescedReads.increment(senderReads.size() - 1);
+                log.debug("Sent MESSAGE_READ WS event to user {} for {} messages", senderId, senderReads.size());
+            });
+        });
+    }
+
+    /**
+     * Tells each sender that everything they sent in the conversation up to readUpTo has been read.
+     */
+    private void sendConversationReadUpTo(ConversationReadUpToEvent event) {
         Map<String, Object> payload = new HashMap<>();
-        payload.put("id", messageId);
-        payload.put("conversationId", conversationId);
+        payload.put("conversationId", event.conversationId());
         payload.put("status", "READ");
-        payload.put("readAt", readAt);
+        payload.put("readerId", event.readerId());
+        payload.put("readUpTo", event.readUpTo() != null ? event.readUpTo().toString() : null);
+        payload.put("count", event.count());
+
+        for (String senderId : event.senderIds()) {
+            if (presenceRegistry.isOnline(senderId)) {
+                messagingTemplate.convertAndSendToUser(senderId, "/queue/message-read", payload);
+                readFrames.increment();
+            }
+        }
+
+        log.debug("Sent CONVERSATION_READ_UP_TO WS event to {} for conversation {}",
+                event.senderIds(), event.conversationId());
+    }
+
+    private ConversationReadUpToEvent merge(ConversationReadUpToEvent earlier, ConversationReadUpToEvent later) {
+        coalescedReads.increment();
+        Set<String> senderIds = new LinkedHashSet<>(earlier.senderIds());
+        senderIds.addAll(later.senderIds());
 
-        messagingTemplate.convertAndSendToUser(
-                senderId,
-                "/queue/message-read",
-                payload
-        );
+        return ConversationReadUpToEvent.builder()
+                .conversationId(later.conversationId())
+                .readerId(later.readerId())
+                .senderIds(new ArrayList<>(senderIds))
+                .readUpTo(earlier.readUpTo() == null
+                        || (later.readUpTo() != null && later.readUpTo().isAfter(earlier.readUpTo()))
+                        ? later.readUpTo() : earlier.readUpTo())
+                .count(earlier.count() + later.count())
+                .timestamp(later.timestamp())
+                .build();
+    }
+
+    private Map<String, String> resolveSenders(Set<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> senders = new HashMap<>();
+        messageRepository.findAllById(messageIds)
+                .forEach(message -> senders.put(message.getId(), message.getSenderId()));
+        return senders;
+    }
 
-        log.info("Sent MESSAGE_READ WS event to user {} for message {}", senderId, messageId);
-    }}
\ No newline at end of file
+    private void consumed(Object event) {
+        String eventType = event instanceof DomainEvent domainEvent
+                ? eventTypeRegistry.typeOf(domainEvent).name()
+                : event == null ? "INVALID" : "UNKNOWN";
+        meterRegistry.counter("message.events.consumed", "eventType", eventType).increment();
+    }
+}
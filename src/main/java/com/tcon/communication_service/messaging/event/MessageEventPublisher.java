@@ -1,77 +1,166 @@
 package com.tcon.communication_service.messaging.event;
 
+import com.tcon.communication_service.event.DomainEvent;
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.service.EventOutbox;
 import com.tcon.communication_service.messaging.entity.Message;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Message Event Publisher
- * Publishes message events to Kafka
+ * Publishes typed message events (see EventTypeRegistry) to Kafka through the chat producer
+ * (see KafkaConfig), keyed by conversationId (receiverId for receiver-scoped events) so each conversation's events stay
+ * on one partition, in order. With message.outbox.enabled the events go through EventOutbox
+ * and OutboxRelay; otherwise they are sent directly, and send outcome and broker-ack latency
+ * are recorded as message.events.publish{eventType,outcome}.
  *
  * @author Senior Developer
  * @version 1.0.0
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class MessageEventPublisher {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventTypeRegistry eventTypeRegistry;
+    private final EventOutbox eventOutbox;
+    private final MeterRegistry meterRegistry;
+    private final String topicName;
 
-    @Value("${spring.kafka.topics.message-events}")
-    private String topicName;
+    public MessageEventPublisher(
+            @Qualifier("chatEventKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+            EventTypeRegistry eventTypeRegistry,
+            EventOutbox eventOutbox,
+            MeterRegistry meterRegistry,
+            @Value("${spring.kafka.topics.message-events}") String topicName) {
+
+        this.kafkaTemplate = kafkaTemplate;
+        this.eventTypeRegistry = eventTypeRegistry;
+        this.eventOutbox = eventOutbox;
+        this.meterRegistry = meterRegistry;
+        this.topicName = topicName;
+    }
 
     public void publishMessageSent(Message message) {
-        Map<String, Object> event = new HashMap<>();
-        event.put("eventType", "MESSAGE_SENT");
-        event.put("messageId", message.getId());
-        event.put("conversationId", message.getConversationId());
-        event.put("senderId", message.getSenderId());
-        event.put("receiverId", message.getReceiverId());
-        event.put("messageType", message.getType());
-        event.put("timestamp", java.time.Instant.now());
-
-        publish(event);
+        publish(toMessageSent(message));
         log.info("Publishing MESSAGE_SENT for {}", message.getId()); // ✅ correct
     }
 
+    /**
+     * MESSAGE_SENT for a batch of stored messages (write-behind flush), one outbox insert
+     */
+    public void publishMessagesSent(List<Message> messages) {
+        List<MessageSentEvent> events = messages.stream().map(this::toMessageSent).toList();
+        if (eventOutbox.isEnabled()) {
+            eventOutbox.appendAll(topicName, events);
+        } else {
+            events.forEach(this::publish);
+        }
+        log.debug("Publishing MESSAGE_SENT for {} messages", messages.size());
+    }
+
+    private MessageSentEvent toMessageSent(Message message) {
+        return MessageSentEvent.builder()
+                .messageId(message.getId())
+                .conversationId(message.getConversationId())
+                .seq(message.getSeq())
+                .senderId(message.getSenderId())
+                .receiverId(message.getReceiverId())
+                .messageType(message.getType())
+                .timestamp(Instant.now())
+                .build();
+    }
+
 
     public void publishMessageDelivered(Message message) {
-        Map<String, Object> event = new HashMap<>();
-        event.put("eventType", "MESSAGE_DELIVERED");
-        event.put("messageId", message.getId());
-        event.put("conversationId", message.getConversationId());
-        event.put("timestamp", java.time.Instant.now());
+        publish(MessageDeliveredEvent.builder()
+                .messageId(message.getId())
+                .conversationId(message.getConversationId())
+                .timestamp(Instant.now())
+                .build());
+    }
 
-        publish(event);
+    /**
+     * One event for a batch of messages delivered together (offline queue drain)
+     */
+    public void publishMessagesDelivered(String receiverId, List<String> messageIds) {
+        publish(MessagesDeliveredEvent.builder()
+                .receiverId(receiverId)
+                .messageIds(messageIds)
+                .count(messageIds.size())
+                .timestamp(Instant.now())
+                .build());
     }
 
     public void publishMessageRead(Message message) {
-        Map<String, Object> event = new HashMap<>();
-        event.put("eventType", "MESSAGE_READ");
-        event.put("messageId", message.getId());
-        event.put("conversationId", message.getConversationId());
-        event.put("senderId", message.getSenderId()); // original sender
-        event.put("readAt", message.getReadAt());
-        event.put("timestamp", java.time.Instant.now());
-
-        publish(event);
+        publish(MessageReadEvent.builder()
+                .messageId(message.getId())
+                .conversationId(message.getConversationId())
+                .senderId(message.getSenderId()) // original sender
+                .readAt(message.getReadAt())
+                .timestamp(Instant.now())
+                .build());
         log.info("Publishing MESSAGE_READ for {}", message.getId()); // ✅
     }
 
 
-    private void publish(Map<String, Object> event) {
+    /**
+     * One aggregated event for a whole conversation read, instead of one MESSAGE_READ per message
+     */
+    public void publishConversationReadUpTo(String conversationId, String readerId, List<String> senderIds,
+                                            LocalDateTime readUpTo, long count) {
+        publish(ConversationReadUpToEvent.builder()
+                .conversationId(conversationId)
+                .readerId(readerId)
+                .senderIds(senderIds)
+                .readUpTo(readUpTo)
+                .count(count)
+                .timestamp(Instant.now())
+                .build());
+        log.info("Publishing CONVERSATION_READ_UP_TO for {} ({} messages)", conversationId, count);
+    }
+
+    private void publish(DomainEvent event) {
+        if (eventOutbox.isEnabled()) {
+            eventOutbox.append(topicName, event);
+            return;
+        }
+
+        String eventType = eventTypeRegistry.typeOf(event).name();
+        long start = System.nanoTime();
         try {
-            kafkaTemplate.send(topicName, event);
-            log.info("Published message event: {}", event.get("eventType"));
+            kafkaTemplate.send(topicName, event.partitionKey(), event)
+                    .whenComplete((result, ex) -> {
+                        record(eventType, ex == null ? "success" : "failure", start);
+                        if (ex != null) {
+                            log.error("Error publishing message event {}: {}", eventType, ex.getMessage());
+                        }
+                    });
+            log.debug("Published message event: {}", eventType);
         } catch (Exception e) {
+            // Serialization or metadata errors surface synchronously
+            record(eventType, "failure", start);
             log.error("Error publishing message event: {}", e.getMessage(), e);
         }
     }
+
+    private void record(String eventType, String outcome, long startNanos) {
+        Timer.builder("message.events.publish")
+                .description("Time from send to broker acknowledgement of chat events")
+                .tag("eventType", eventType)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
 }
\ No newline at end of file
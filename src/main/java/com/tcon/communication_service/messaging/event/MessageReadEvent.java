@@ -0,0 +1,24 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * MESSAGE_READ v1. senderId is the original sender, who gets the read receipt.
+ */
+@Builder
+public record MessageReadEvent(
+        String messageId,
+        String conversationId,
+        String senderId,
+        LocalDateTime readAt,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return conversationId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import com.tcon.communication_service.messaging.entity.MessageType;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * MESSAGE_SENT v1
+ */
+@Builder
+public record MessageSentEvent(
+        String messageId,
+        String conversationId,
+        Long seq,
+        String senderId,
+        String receiverId,
+        MessageType messageType,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return conversationId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * MESSAGES_DELIVERED v1: a batch delivered together (offline queue drain)
+ */
+@Builder
+public record MessagesDeliveredEvent(
+        String receiverId,
+        List<String> messageIds,
+        int count,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return receiverId;
+    }
+}
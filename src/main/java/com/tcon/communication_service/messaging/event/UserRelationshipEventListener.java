@@ -0,0 +1,64 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.messaging.service.ParentChildrenCache;
+import com.tcon.communication_service.messaging.service.ParentConversationIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * User Relationship Event Listener
+ * Consumes the user service's parent/student link events twice:
+ * - cache invalidation: every node clears its own ParentChildrenCache tier, so each
+ *   instance has its own consumer group named after its host (the pod name, like
+ *   websocket.broker.node-id), from latest (a restarted node starts empty anyway). A restarted
+ *   container of the same pod rejoins its group instead of creating a new one.
+ * - ParentConversationIndex updates on PARENT_STUDENT_LINKED / _UNLINKED: one shared
+ *   consumer group with committed offsets, so events published while every node is down or
+ *   restarting are still applied; the index writes are idempotent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRelationshipEventListener {
+
+    private final ParentChildrenCache parentChildrenCache;
+    private final ParentConversationIndex parentConversationIndex;
+
+    @KafkaListener(
+            topics = "${spring.kafka.topics.user-relationship-events}",
+            groupId = "communication-service-relationships-${HOSTNAME:${random.uuid}}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void handleRelationshipEvent(Map<String, Object> event) {
+        Object parentId = event.get("parentId");
+        log.info("📨 Received relationship event: {} (parent {})", event.get("eventType"), parentId);
+
+        if (parentId == null) {
+            parentChildrenCache.invalidateAll();
+            return;
+        }
+        parentChildrenCache.invalidate(parentId.toString());
+    }
+
+    @KafkaListener(
+            topics = "${spring.kafka.topics.user-relationship-events}",
+            groupId = "communication-service-parent-access",
+            properties = "auto.offset.reset=earliest"
+    )
+    public void indexRelationshipEvent(Map<String, Object> event) {
+        Object parentId = event.get("parentId");
+        Object studentId = event.get("studentId");
+        if (parentId == null || studentId == null) {
+            return;
+        }
+        if ("PARENT_STUDENT_LINKED".equals(event.get("eventType"))) {
+            parentConversationIndex.onLinked(parentId.toString(), studentId.toString());
+        } else if ("PARENT_STUDENT_UNLINKED".equals(event.get("eventType"))) {
+            parentConversationIndex.onUnlinked(parentId.toString(), studentId.toString());
+        }
+    }
+}
@@ -7,11 +7,13 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ConversationRepository extends MongoRepository<Conversation, String> {
+public interface ConversationRepository extends MongoRepository<Conversation, String>,
+        ConversationRepositoryCustom {
 
     // Find by exact participant list (sorted)
     @Query("{ 'participantIds': { $all: ?0 } }")
@@ -49,9 +51,24 @@ public interface ConversationRepository extends MongoRepository<Conversation, St
     @Query(value = "{ 'participantIds': ?0 }", delete = true)
     void deleteByParticipantId(String userId);
 
-    // ✅ Find by exact participants + type (for getOrCreate)
-    @Query("{ 'participantIds': { $all: ?0 }, 'type': ?1 }")
-    Optional<Conversation> findByParticipantIdsAndType(List<String> participantIds, String type);
+    // ✅ Read watermarks only (message read-state derivation)
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'readWatermarks': 1 }")
+    Optional<Conversation> findReadWatermarksById(String conversationId);
+
+    // Read watermarks of several conversations in one query
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'readWatermarks': 1 }")
+    List<Conversation> findReadWatermarksByIdIn(Collection<String> conversationIds);
+
+    // Ids of all conversations the user participates in (delta sync scope)
+    @Query(value = "{ 'participantIds': ?0 }", fields = "{ '_id': 1 }")
+    List<Conversation> findIdsByParticipantId(String userId);
+
+    // Participants of every conversation the user is in (presence visibility)
+    @Query(value = "{ 'participantIds': ?0 }", fields = "{ 'participantIds': 1 }")
+    List<Conversation> findParticipantIdsByParticipantId(String userId);
+
+    // ✅ Find by canonical pair keys (for getOrCreate, backed by pair_key_uidx)
+    List<Conversation> findByPairKeyIn(Collection<String> pairKeys);
 
     // ✅ Parent-direct: by single participant + type
     @Query(value = "{ 'participantIds': ?0, 'type': ?1 }", sort = "{ 'lastMessageAt': -1 }")
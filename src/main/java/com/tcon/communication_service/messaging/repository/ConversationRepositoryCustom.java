@@ -0,0 +1,83 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversation Repository (custom fragment)
+ * Field-level atomic updates that avoid read-modify-write of Conversation documents
+ */
+public interface ConversationRepositoryCustom {
+
+    /**
+     * Get-or-create a two-party conversation with a single upsert on its pair key.
+     * Concurrent first messages converge on the same document thanks to pair_key_uidx.
+     */
+    Conversation upsertByPairKey(List<String> participantIds, String type);
+
+    /**
+     * Reserve the next message sequence number of a conversation ($inc on messageSeq).
+     *
+     * @return the reserved seq, or null if the conversation does not exist
+     */
+    Long nextMessageSeq(String conversationId);
+
+    /**
+     * Number the conversation's messages created since the given time that have no seq yet
+     * (stored by nodes that predate Message.seq during a rolling deploy), oldest first, from a
+     * block reserved on messageSeq.
+     *
+     * @return number of messages that were numbered
+     */
+    int numberUnsequencedMessages(String conversationId, LocalDateTime since);
+
+    /**
+     * Record newly sent messages on their conversation: sets the last-message fields from the
+     * newest one and increments the recipients' unread counters in a single update.
+     *
+     * @param unreadIncrements recipient id -> number of new messages for that recipient
+     * @return true if the conversation exists and was updated
+     */
+    boolean applyLastMessage(String conversationId, Message message, Map<String, Integer> unreadIncrements);
+
+    /**
+     * Move the user's read watermark to the conversation's current last message and reset
+     * their unread counter, atomically (pipeline update, no read-modify-write).
+     *
+     * @return the conversation as it was before the update (participantIds, last message,
+     * unread counters and read watermarks), or null if the conversation does not exist or
+     * the user is not a participant
+     */
+    Conversation markReadUpToLastMessage(String conversationId, String userId);
+
+    /**
+     * Move the user's read watermark forward to the given position. Never moves a watermark
+     * backwards. The unread counter is reset when the position is the conversation's last
+     * message, and recounted from the messages past the new watermark otherwise.
+     *
+     * @return true if the watermark advanced
+     */
+    boolean advanceReadWatermark(String conversationId, String userId, ReadWatermark watermark);
+
+    /**
+     * Refresh the cached last-message content after an edit, but only if the edited
+     * message is still the conversation's last message. Unread counters are not touched.
+     *
+     * @return true if the conversation was updated
+     */
+    boolean updateLastMessageContent(String conversationId, String messageId, String content);
+
+    /**
+     * The user's conversations changed (new message, read state, unread counters) after the
+     * (updatedAt, id) position and no later than upTo, oldest change first.
+     *
+     * @param afterId tie-breaker at exactly {@code after}, or null to start strictly after it
+     */
+    List<Conversation> findChangedSince(String userId, LocalDateTime after, String afterId,
+                                        LocalDateTime upTo, int limit);
+}
@@ -0,0 +1,226 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversation Repository (custom fragment implementation)
+ * Uses MongoTemplate $set / $inc updates so concurrent writers never overwrite each other
+ */
+@RequiredArgsConstructor
+public class ConversationRepositoryCustomImpl implements ConversationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Conversation upsertByPairKey(List<String> participantIds, String type) {
+        List<String> sorted = participantIds.stream().sorted().toList();
+        Query query = Query.query(Criteria.where("pairKey").is(Conversation.pairKey(type, sorted)));
+
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .setOnInsert("participantIds", sorted)
+                .setOnInsert("type", type)
+                .setOnInsert("unreadCounts", new HashMap<String, Integer>())
+                .setOnInsert("createdAt", now)
+                .setOnInsert("updatedAt", now);
+
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Conversation.class);
+        } catch (DuplicateKeyException e) {
+            // Lost the race against a concurrent upsert for the same pair
+            return mongoTemplate.findOne(query, Conversation.class);
+        }
+    }
+
+    @Override
+    public Long nextMessageSeq(String conversationId) {
+        Query query = byId(conversationId);
+        query.fields().include("messageSeq");
+
+        Conversation conversation = mongoTemplate.findAndModify(query, new Update().inc("messageSeq", 1),
+                FindAndModifyOptions.options().returnNew(true), Conversation.class);
+        return conversation != null ? conversation.getMessageSeq() : null;
+    }
+
+    @Override
+    public int numberUnsequencedMessages(String conversationId, LocalDateTime since) {
+        // Bounded by conversation_timestamp_idx; only the window's messages are checked for seq
+        Query query = Query.query(Criteria.where("conversationId").is(conversationId)
+                        .and("createdAt").gte(since)
+                        .and("seq").exists(false))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "_id")));
+        query.fields().include("_id");
+        List<Document> messages = mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(Message.class));
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        Query counter = byId(conversationId);
+        counter.fields().include("messageSeq");
+        Conversation conversation = mongoTemplate.findAndModify(counter, new Update().inc("messageSeq", messages.size()),
+                FindAndModifyOptions.options().returnNew(true), Conversation.class);
+        if (conversation == null) {
+            return 0;
+        }
+
+        // A concurrent send may number the same messages: the first writer wins, the other block is a gap
+        long next = conversation.getMessageSeq() - messages.size() + 1;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class);
+        for (Document message : messages) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(message.get("_id")).and("seq").exists(false)),
+                    new Update().set("seq", next++));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public boolean applyLastMessage(String conversationId, Message message, Map<String, Integer> unreadIncrements) {
+        LocalDateTime sentAt = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+
+        Update update = new Update()
+                .set("lastMessageId", message.getId())
+                .set("lastMessageContent", message.getContent())
+                .set("lastMessageSenderId", message.getSenderId())
+                .set("lastMessageAt", sentAt)
+                .set("updatedAt", LocalDateTime.now());
+
+        unreadIncrements.forEach((recipientId, count) -> update.inc(unreadCountField(recipientId), count));
+
+        return mongoTemplate.updateFirst(byId(conversationId), update, Conversation.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public Conversation markReadUpToLastMessage(String conversationId, String userId) {
+        Query query = Query.query(Criteria.where("_id").is(conversationId)
+                .and("participantIds").is(userId));
+        query.fields().include("participantIds", "lastMessageId", "lastMessageAt",
+                "unreadCounts", "readWatermarks");
+
+        String watermarkField = readWatermarkField(userId);
+
+        // Watermark values come from the document itself, so this stays a single atomic update
+        Document watermark = new Document("$cond", List.of(
+                new Document("$ifNull", List.of("$lastMessageId", false)),
+                new Document("lastReadMessageId", "$lastMessageId")
+                        .append("lastReadAt", "$lastMessageAt")
+                        .append("readAt", "$$NOW"),
+                "$" + watermarkField));
+
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set",
+                new Document(watermarkField, watermark)
+                        .append(unreadCountField(userId), 0)
+                        .append("updatedAt", "$$NOW"))));
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), Conversation.class);
+    }
+
+    @Override
+    public boolean advanceReadWatermark(String conversationId, String userId, ReadWatermark watermark) {
+        String watermarkField = readWatermarkField(userId);
+        String unreadField = unreadCountField(userId);
+        String lastReadAtField = watermarkField + ".lastReadAt";
+        Object lastReadAt = mongoTemplate.getConverter().convertToMongoType(watermark.getLastReadAt());
+
+        Query query = Query.query(Criteria.where("_id").is(conversationId)
+                .and("participantIds").is(userId)
+                .orOperator(
+                        Criteria.where(lastReadAtField).is(null),
+                        Criteria.where(lastReadAtField).lt(watermark.getLastReadAt())));
+        query.fields().include("unreadCounts");
+
+        // The counter only drops to 0 when the watermark reaches the conversation's last message;
+        // reading an older message leaves it for the recount below
+        Document caughtUp = new Document("$or", List.of(
+                new Document("$eq", List.of("$lastMessageId", watermark.getLastReadMessageId())),
+                new Document("$lt", List.of("$lastMessageAt", lastReadAt))));
+
+        Document watermarkValue = new Document("lastReadMessageId", watermark.getLastReadMessageId())
+                .append("lastReadAt", lastReadAt)
+                .append("readAt", mongoTemplate.getConverter().convertToMongoType(watermark.getReadAt()));
+
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set",
+                new Document(watermarkField, new Document("$literal", watermarkValue))
+                        .append(unreadField, new Document("$cond", List.of(caughtUp, 0,
+                                new Document("$ifNull", List.of("$" + unreadField, 0)))))
+                        .append("updatedAt", "$$NOW"))));
+
+        Conversation updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Conversation.class);
+        if (updated == null) {
+            return false;
+        }
+
+        if (updated.getUnreadCount(userId) > 0) {
+            // Newer messages stay unread: recount past the new watermark, unless it moved on meanwhile
+            long unread = mongoTemplate.count(
+                    MessageRepositoryCustomImpl.unreadQuery(conversationId, userId, watermark.getLastReadAt()),
+                    Message.class);
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(conversationId)
+                            .and(lastReadAtField).is(watermark.getLastReadAt())),
+                    new Update().set(unreadField, (int) unread),
+                    Conversation.class);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean updateLastMessageContent(String conversationId, String messageId, String content) {
+        Query query = Query.query(Criteria.where("_id").is(conversationId)
+                .and("lastMessageId").is(messageId));
+
+        Update update = new Update()
+                .set("lastMessageContent", content)
+                .set("updatedAt", LocalDateTime.now());
+
+        return mongoTemplate.updateFirst(query, update, Conversation.class).getMatchedCount() > 0;
+    }
+
+    static Query byId(String conversationId) {
+        return Query.query(Criteria.where("_id").is(conversationId));
+    }
+
+    static String unreadCountField(String userId) {
+        return "unreadCounts." + userId;
+    }
+
+    static String readWatermarkField(String userId) {
+        return "readWatermarks." + userId;
+    }
+
+    @Override
+    public List<Conversation> findChangedSince(String userId, LocalDateTime after, String afterId,
+                                               LocalDateTime upTo, int limit) {
+        Criteria criteria = Criteria.where("participantIds").is(userId)
+                .andOperator(MessageRepositoryCustomImpl.changedSince(after, afterId),
+                        Criteria.where("updatedAt").lte(upTo));
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "updatedAt").and(Sort.by(Sort.Direction.ASC, "_id")))
+                .limit(limit);
+
+        return mongoTemplate.find(query, Conversation.class);
+    }
+}
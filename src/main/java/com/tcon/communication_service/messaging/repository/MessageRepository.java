@@ -20,7 +20,8 @@ import java.util.Optional;
  * @version 1.0.0
  */
 @Repository
-public interface MessageRepository extends MongoRepository<Message, String> {
+public interface MessageRepository extends MongoRepository<Message, String>,
+        MessageRepositoryCustom {
 
     /**
      * Find messages by conversation with pagination (descending order)
@@ -38,6 +39,18 @@ public interface MessageRepository extends MongoRepository<Message, String> {
             String conversationId
     );
 
+    /**
+     * ✅ Load only the content of a message
+     * Used to cache reply-to content without fetching the whole document
+     */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'content': 1 }")
+    Optional<Message> findContentById(String messageId);
+
+    /**
+     * Message created by an earlier send with this (sender-scoped) idempotency key
+     */
+    Optional<Message> findByIdempotencyKey(String idempotencyKey);
+
     /**
      * Find top 50 messages in conversation (for quick loading)
      */
@@ -0,0 +1,48 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.dto.MessageCursor;
+import com.tcon.communication_service.messaging.entity.Message;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Message Repository (custom fragment)
+ * Queries that need MongoTemplate criteria building
+ */
+public interface MessageRepositoryCustom {
+
+    /**
+     * Count messages addressed to the receiver that are not covered by their read
+     * watermark (created after it). The watermark is the only read state consulted.
+     *
+     * @param after the receiver's watermark, or null if they never read the conversation
+     */
+    long countUnread(String conversationId, String receiverId, LocalDateTime after);
+
+    /**
+     * Keyset page of non-deleted messages, newest first.
+     *
+     * @param cursor position to page from, or null for the newest messages
+     * @param older  true to return messages before the cursor, false for messages after it
+     * @param limit  maximum number of messages to return
+     */
+    List<Message> findKeysetPage(String conversationId, MessageCursor cursor, boolean older, int limit);
+
+    /**
+     * Move the given messages from SENT to DELIVERED in one update.
+     *
+     * @return number of messages that changed state
+     */
+    long markDelivered(Collection<String> messageIds, LocalDateTime deliveredAt);
+
+    /**
+     * Messages of the given conversations changed after the (updatedAt, id) position and
+     * no later than upTo, oldest change first. Deleted messages are included.
+     *
+     * @param afterId tie-breaker at exactly {@code after}, or null to start strictly after it
+     */
+    List<Message> findChangedSince(Collection<String> conversationIds, LocalDateTime after, String afterId,
+                                   LocalDateTime upTo, int limit);
+}
@@ -0,0 +1,107 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.dto.MessageCursor;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.MessageStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Message Repository (custom fragment implementation)
+ */
+@RequiredArgsConstructor
+public class MessageRepositoryCustomImpl implements MessageRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public long countUnread(String conversationId, String receiverId, LocalDateTime after) {
+        return mongoTemplate.count(unreadQuery(conversationId, receiverId, after), Message.class);
+    }
+
+    /**
+     * Messages to the receiver past their read watermark, shared with the single-message read path
+     */
+    static Query unreadQuery(String conversationId, String receiverId, LocalDateTime after) {
+        Criteria criteria = Criteria.where("conversationId").is(conversationId)
+                .and("receiverId").is(receiverId)
+                .and("isDeleted").is(false);
+
+        if (after != null) {
+            criteria = criteria.and("createdAt").gt(after);
+        }
+
+        return Query.query(criteria);
+    }
+
+    @Override
+    public List<Message> findKeysetPage(String conversationId, MessageCursor cursor, boolean older, int limit) {
+        // $exists matches the partial filter of conversation_seq_uidx, so the planner can use it
+        Criteria seq = Criteria.where("seq").exists(true);
+        if (cursor != null) {
+            seq = older ? seq.lt(cursor.getSeq()) : seq.gt(cursor.getSeq());
+        }
+        Criteria criteria = Criteria.where("conversationId").is(conversationId)
+                .and("isDeleted").is(false)
+                .andOperator(seq);
+
+        Sort.Direction direction = older ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Query query = Query.query(criteria)
+                .with(Sort.by(direction, "seq"))
+                .limit(limit);
+
+        List<Message> messages = new ArrayList<>(mongoTemplate.find(query, Message.class));
+        if (!older) {
+            Collections.reverse(messages);
+        }
+        return messages;
+    }
+
+    @Override
+    public long markDelivered(Collection<String> messageIds, LocalDateTime deliveredAt) {
+        Query query = Query.query(Criteria.where("_id").in(messageIds)
+                .and("status").is(MessageStatus.SENT));
+
+        Update update = new Update()
+                .set("status", MessageStatus.DELIVERED)
+                .set("deliveredAt", deliveredAt)
+                .set("updatedAt", deliveredAt);
+
+        return mongoTemplate.updateMulti(query, update, Message.class).getModifiedCount();
+    }
+
+    @Override
+    public List<Message> findChangedSince(Collection<String> conversationIds, LocalDateTime after, String afterId,
+                                          LocalDateTime upTo, int limit) {
+        Criteria criteria = Criteria.where("conversationId").in(conversationIds)
+                .andOperator(changedSince(after, afterId), Criteria.where("updatedAt").lte(upTo));
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "updatedAt").and(Sort.by(Sort.Direction.ASC, "_id")))
+                .limit(limit);
+
+        return mongoTemplate.find(query, Message.class);
+    }
+
+    /**
+     * Keyset position on (updatedAt, _id), shared with the conversation change feed
+     */
+    static Criteria changedSince(LocalDateTime after, String afterId) {
+        if (afterId == null) {
+            return Criteria.where("updatedAt").gt(after);
+        }
+        return new Criteria().orOperator(
+                Criteria.where("updatedAt").gt(after),
+                Criteria.where("updatedAt").is(after).and("_id").gt(afterId));
+    }
+}
@@ -0,0 +1,18 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.ParentConversationAccess;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ParentConversationAccessRepository extends MongoRepository<ParentConversationAccess, String> {
+
+    // Parent unlinked from a student
+    @Query(value = "{ 'parentId': ?0, 'studentId': ?1 }", delete = true)
+    void deleteByParentIdAndStudentId(String parentId, String studentId);
+
+    // Conversation deleted
+    @Query(value = "{ 'conversationId': ?0 }", delete = true)
+    void deleteByConversationId(String conversationId);
+}
@@ -0,0 +1,24 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.ParentStudentLink;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ParentStudentLinkRepository extends MongoRepository<ParentStudentLink, String> {
+
+    // Parents of a new conversation's participants
+    List<ParentStudentLink> findByStudentIdIn(Collection<String> studentIds);
+
+    // Reconciliation: a parent's known children
+    List<ParentStudentLink> findByParentId(String parentId);
+
+    // Reconciliation: parents known so far, one page at a time
+    @Query(value = "{ 'parentId': { $gt: ?0 } }", fields = "{ 'parentId': 1 }", sort = "{ 'parentId': 1 }")
+    List<ParentStudentLink> findParentIdsAfter(String parentId, Pageable pageable);
+}
@@ -0,0 +1,16 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.PendingDelivery;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Pending Delivery Repository
+ * Per-user queue of frames held back while the user was offline
+ */
+@Repository
+public interface PendingDeliveryRepository extends MongoRepository<PendingDelivery, String>,
+        PendingDeliveryRepositoryCustom {
+
+    long countByUserId(String userId);
+}
@@ -0,0 +1,33 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.PendingDelivery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Pending Delivery Repository (custom fragment)
+ */
+public interface PendingDeliveryRepositoryCustom {
+
+    /**
+     * Queue a delivery; a second enqueue of the same (userId, messageId) is a no-op.
+     */
+    void enqueue(PendingDelivery delivery);
+
+    /**
+     * Claim the user's oldest unclaimed deliveries (or ones whose lease ran out) until
+     * claimedUntil and return them, oldest first. Concurrent claims get disjoint batches.
+     */
+    List<PendingDelivery> claim(String userId, String claimId, int limit, LocalDateTime claimedUntil);
+
+    /**
+     * Remove a claimed batch once it was pushed.
+     */
+    void complete(String claimId);
+
+    /**
+     * Give a claimed batch back to the queue after a failed push.
+     */
+    void release(String claimId);
+}
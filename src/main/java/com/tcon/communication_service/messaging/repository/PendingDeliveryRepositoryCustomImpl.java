@@ -0,0 +1,74 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.PendingDelivery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Pending Delivery Repository (custom fragment implementation)
+ */
+@RequiredArgsConstructor
+public class PendingDeliveryRepositoryCustomImpl implements PendingDeliveryRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void enqueue(PendingDelivery delivery) {
+        Query query = Query.query(Criteria.where("userId").is(delivery.getUserId())
+                .and("messageId").is(delivery.getMessageId()));
+
+        Update update = new Update()
+                .setOnInsert("message", delivery.getMessage())
+                .setOnInsert("createdAt", delivery.getCreatedAt())
+                .setOnInsert("expiresAt", delivery.getExpiresAt());
+
+        mongoTemplate.upsert(query, update, PendingDelivery.class);
+    }
+
+    @Override
+    public List<PendingDelivery> claim(String userId, String claimId, int limit, LocalDateTime claimedUntil) {
+        LocalDateTime now = LocalDateTime.now();
+        Query candidates = Query.query(claimable(now).and("userId").is(userId))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "_id"))
+                .limit(limit);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, PendingDelivery.class).stream()
+                .map(PendingDelivery::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Re-checked per document: ids a concurrent drain claimed in between are skipped
+        mongoTemplate.updateMulti(Query.query(claimable(now).and("_id").in(ids)),
+                new Update().set("claimedBy", claimId).set("claimedUntil", claimedUntil),
+                PendingDelivery.class);
+
+        return mongoTemplate.find(Query.query(Criteria.where("claimedBy").is(claimId))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "_id")), PendingDelivery.class);
+    }
+
+    @Override
+    public void complete(String claimId) {
+        mongoTemplate.remove(Query.query(Criteria.where("claimedBy").is(claimId)), PendingDelivery.class);
+    }
+
+    @Override
+    public void release(String claimId) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("claimedBy").is(claimId)),
+                new Update().unset("claimedBy").unset("claimedUntil"), PendingDelivery.class);
+    }
+
+    private static Criteria claimable(LocalDateTime now) {
+        return new Criteria().orOperator(
+                Criteria.where("claimedUntil").is(null),
+                Criteria.where("claimedUntil").lt(now));
+    }
+}
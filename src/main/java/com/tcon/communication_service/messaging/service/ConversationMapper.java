@@ -30,7 +30,9 @@ public class ConversationMapper {
                 .lastMessageContent(conversation.getLastMessageContent())
                 .lastMessageSenderId(conversation.getLastMessageSenderId())
                 .lastMessageAt(conversation.getLastMessageAt())
+                .lastMessageSeq(conversation.getMessageSeq())
                 .unreadCounts(conversation.getUnreadCounts())
+                .readWatermarks(conversation.getReadWatermarks())
                 .unreadCount(0)  // Default to 0 if no userId provided
                 .createdAt(conversation.getCreatedAt())
                 .updatedAt(conversation.getUpdatedAt())
@@ -59,7 +61,9 @@ public class ConversationMapper {
                 .lastMessageContent(conversation.getLastMessageContent())
                 .lastMessageSenderId(conversation.getLastMessageSenderId())
                 .lastMessageAt(conversation.getLastMessageAt())
+                .lastMessageSeq(conversation.getMessageSeq())
                 .unreadCounts(conversation.getUnreadCounts())
+                .readWatermarks(conversation.getReadWatermarks())
                 .unreadCount(userUnreadCount)  // ✅ Set user-specific unread count
                 .createdAt(conversation.getCreatedAt())
                 .updatedAt(conversation.getUpdatedAt())
@@ -82,7 +86,9 @@ public class ConversationMapper {
                 .lastMessageContent(dto.getLastMessageContent())
                 .lastMessageSenderId(dto.getLastMessageSenderId())
                 .lastMessageAt(dto.getLastMessageAt())
+                .messageSeq(dto.getLastMessageSeq())
                 .unreadCounts(dto.getUnreadCounts())
+                .readWatermarks(dto.getReadWatermarks())
                 .createdAt(dto.getCreatedAt())
                 .updatedAt(dto.getUpdatedAt())
                 .build();
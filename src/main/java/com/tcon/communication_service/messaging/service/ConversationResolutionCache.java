@@ -0,0 +1,107 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Conversation Resolution Cache
+ * Bounded, TTL-evicting map of (sorted participant pair) -> resolved conversation id and type,
+ * so repeated sends between the same users skip the getOrCreate lookup entirely.
+ * Hit/miss/eviction counts are published as "cache.*" metrics (cache=conversation.resolution).
+ *
+ * Entries are per node and never invalidated by other replicas. A PARENT_DIRECT resolution is
+ * final (it wins over every other type), so it keeps the full ttl. Any other type can be
+ * superseded by a PARENT_DIRECT / SUPPORT_DIRECT conversation created on another replica, so
+ * it only lives for replaceable-ttl: that bounds how long this node keeps routing the pair to
+ * the lower-precedence conversation.
+ */
+@Slf4j
+@Component
+public class ConversationResolutionCache {
+
+    private static final String CACHE_NAME = "conversation.resolution";
+
+    private final Cache<String, ResolvedConversation> cache;
+
+    public ConversationResolutionCache(
+            MeterRegistry meterRegistry,
+            @Value("${message.conversation-cache.max-size:10000}") long maxSize,
+            @Value("${message.conversation-cache.ttl:30m}") Duration ttl,
+            @Value("${message.conversation-cache.replaceable-ttl:30s}") Duration replaceableTtl) {
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ResolutionExpiry(ttl, replaceableTtl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("🔧 Conversation resolution cache: maxSize={}, ttl={}, replaceableTtl={}",
+                maxSize, ttl, replaceableTtl);
+    }
+
+    /**
+     * @param sortedParticipants participant ids, sorted
+     * @return a lightweight Conversation carrying only id, type and participantIds, or null
+     */
+    public Conversation get(List<String> sortedParticipants) {
+        ResolvedConversation resolved = cache.getIfPresent(key(sortedParticipants));
+        return resolved != null ? resolved.toConversation() : null;
+    }
+
+    public void put(Conversation conversation) {
+        cache.put(key(conversation.getParticipantIds()),
+                new ResolvedConversation(conversation.getId(), conversation.getType(),
+                        List.copyOf(conversation.getParticipantIds())));
+    }
+
+    public void invalidate(Conversation conversation) {
+        cache.invalidate(key(conversation.getParticipantIds()));
+    }
+
+    private String key(List<String> participants) {
+        return participants.stream().sorted().reduce((a, b) -> a + "|" + b).orElse("");
+    }
+
+    private record ResolutionExpiry(Duration finalTtl, Duration replaceableTtl)
+            implements Expiry<String, ResolvedConversation> {
+
+        @Override
+        public long expireAfterCreate(String key, ResolvedConversation value, long currentTime) {
+            return ("PARENT_DIRECT".equals(value.type()) ? finalTtl : replaceableTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, ResolvedConversation value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, ResolvedConversation value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private record ResolvedConversation(String id, String type, List<String> participantIds) {
+
+        Conversation toConversation() {
+            return Conversation.builder()
+                    .id(id)
+                    .type(type)
+                    .participantIds(participantIds)
+                    .build();
+        }
+    }
+}
@@ -1,21 +1,26 @@
 package com.tcon.communication_service.messaging.service;
 
-import com.tcon.communication_service.client.ParentServiceClient;
 import com.tcon.communication_service.messaging.dto.ConversationDto;
 import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
 import com.tcon.communication_service.messaging.repository.ConversationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -23,8 +28,15 @@ import java.util.Optional;
 public class ConversationService {
 
     private final ConversationRepository conversationRepository;
-    private final ParentServiceClient parentServiceClient;
+    private final ParentChildrenCache parentChildrenCache;
+    private final ParentConversationIndex parentConversationIndex;
     private final ConversationMapper conversationMapper;
+    private final ConversationResolutionCache resolutionCache;
+    private final RecentMessageCache recentMessageCache;
+
+    // How far back a send looks for messages stored without a seq by pre-seq nodes (0 = off)
+    @Value("${message.seq.legacy-catch-up:6h}")
+    private Duration legacyCatchUp;
 
     // ─────────────────────────────────────────────────────────────
     // Get or create conversation
@@ -37,75 +49,76 @@ public class ConversationService {
         List<String> participants = Arrays.asList(currentUserId, otherUserId);
         participants.sort(String::compareTo);
 
-        // ✅ Check PARENT_DIRECT first — reuse regardless of who is sending
-        // This prevents teacher reply creating a new DIRECT conversation
-        // when a PARENT_DIRECT already exists between these two users
-        Optional<Conversation> existingParentDirect =
-                conversationRepository.findByParticipantIdsAndType(participants, "PARENT_DIRECT");
-        if (existingParentDirect.isPresent()) {
-            log.info("✅ Reusing existing PARENT_DIRECT conversation for {}({}) ↔ {}",
-                    currentUserId, role, otherUserId);
-            return existingParentDirect.get();
+        // ✅ PARENT_DIRECT and SUPPORT_DIRECT are reused regardless of who is sending
+        // (prevents a teacher reply creating a new DIRECT conversation when a
+        // PARENT_DIRECT already exists), otherwise the sender's role decides the type.
+        // All candidates are fetched with one indexed pairKey lookup.
+        String roleType = conversationTypeForRole(role);
+
+        Conversation cached = resolutionCache.get(participants);
+        if (cached != null && isReusableFor(cached.getType(), roleType)) {
+            log.debug("✅ Resolved {} conversation {} from cache", cached.getType(), cached.getId());
+            return cached;
         }
 
-        // ✅ Check SUPPORT_DIRECT — reuse regardless of who is sending
-        Optional<Conversation> existingSupport =
-                conversationRepository.findByParticipantIdsAndType(participants, "SUPPORT_DIRECT");
-        if (existingSupport.isPresent()) {
-            log.info("✅ Reusing existing SUPPORT_DIRECT conversation for {}({}) ↔ {}",
-                    currentUserId, role, otherUserId);
-            return existingSupport.get();
+        List<String> resolutionOrder = roleType.equals("DIRECT")
+                ? List.of("PARENT_DIRECT", "SUPPORT_DIRECT", "DIRECT")
+                : List.of("PARENT_DIRECT", "SUPPORT_DIRECT");
+
+        List<Conversation> candidates = conversationRepository.findByPairKeyIn(
+                resolutionOrder.stream().map(type -> Conversation.pairKey(type, participants)).toList());
+
+        for (String type : resolutionOrder) {
+            for (Conversation candidate : candidates) {
+                if (type.equals(candidate.getType())) {
+                    log.info("✅ Reusing existing {} conversation for {}({}) ↔ {}",
+                            type, currentUserId, role, otherUserId);
+                    resolutionCache.put(candidate);
+                    return candidate;
+                }
+            }
         }
 
-        // Route by sender role for new conversations only
+        Conversation created = createConversation(participants, roleType);
+        resolutionCache.put(created);
+        return created;
+    }
+
+    // PARENT_DIRECT / SUPPORT_DIRECT win for every sender; DIRECT only for student/teacher senders
+    private boolean isReusableFor(String cachedType, String roleType) {
+        return "PARENT_DIRECT".equals(cachedType)
+                || "SUPPORT_DIRECT".equals(cachedType)
+                || cachedType.equals(roleType);
+    }
+
+    private String conversationTypeForRole(String role) {
         if ("PARENT".equalsIgnoreCase(role)) {
-            return getOrCreateParentDirectConversation(currentUserId, otherUserId);
+            return "PARENT_DIRECT";
         } else if ("MODERATOR".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role)) {
-            return getOrCreateSupportConversation(currentUserId, otherUserId);
-        } else {
-            return getOrCreateChildConversation(currentUserId, otherUserId);
+            return "SUPPORT_DIRECT";
         }
+        return "DIRECT";
     }
 
+    private Conversation createConversation(List<String> participants, String type) {
+        Conversation conversation = conversationRepository.upsertByPairKey(participants, type);
+        log.info("✅ Resolved {} conversation {}: {}", type, conversation.getId(), participants);
+        if (!"PARENT_DIRECT".equals(type)) {
+            parentConversationIndex.onConversationCreated(conversation);
+        }
+        return conversation;
+    }
 
     // Student ↔ Teacher DIRECT conversation
     @Transactional
     public Conversation getOrCreateChildConversation(String studentId, String teacherId) {
-        List<String> participants = Arrays.asList(studentId, teacherId);
-        participants.sort(String::compareTo);
-
-        return conversationRepository
-                .findByParticipantIdsAndType(participants, "DIRECT")
-                .orElseGet(() -> {
-                    Conversation conv = new Conversation();
-                    conv.setParticipantIds(participants);
-                    conv.setType("DIRECT");
-                    conv.setCreatedAt(LocalDateTime.now());
-                    conv.setUnreadCounts(new HashMap<>());
-                    log.info("✅ Created DIRECT conversation: {} ↔ {}", studentId, teacherId);
-                    return conversationRepository.save(conv);
-                });
+        return createConversation(List.of(studentId, teacherId), "DIRECT");
     }
 
     // Parent ↔ Teacher PARENT_DIRECT conversation
     @Transactional
     public Conversation getOrCreateParentDirectConversation(String parentId, String teacherId) {
-        List<String> participants = Arrays.asList(parentId, teacherId);
-        participants.sort(String::compareTo);
-
-        return conversationRepository
-                .findByParticipantIdsAndType(participants, "PARENT_DIRECT")
-                .orElseGet(() -> {
-                    Conversation conv = Conversation.builder()
-                            .participantIds(participants)
-                            .type("PARENT_DIRECT")
-                            .createdAt(LocalDateTime.now())
-                            .unreadCounts(new HashMap<>())
-                            .build();
-                    Conversation saved = conversationRepository.save(conv);
-                    log.info("✅ Created PARENT_DIRECT conversation: {} ↔ {}", parentId, teacherId);
-                    return saved;
-                });
+        return createConversation(List.of(parentId, teacherId), "PARENT_DIRECT");
     }
 
     // ─────────────────────────────────────────────────────────────
@@ -178,14 +191,20 @@ public class ConversationService {
 
         // 2. Parent — allowed if any child is participant
         if ("PARENT".equalsIgnoreCase(userRole)) {
-            List<String> childIds = parentServiceClient.getChildStudentIds(userId);
+            if (parentConversationIndex.isAuthorized(userId, conversationId)) {
+                return conversationMapper.toDto(conversation, userId);
+            }
+
+            List<String> childIds = parentChildrenCache.getChildStudentIds(userId);
             log.info("🔍 Parent {} children: {}", userId, childIds);
 
-            boolean anyChildInConversation = childIds.stream()
-                    .anyMatch(participants::contains);
+            List<String> childParticipants = childIds.stream()
+                    .filter(participants::contains)
+                    .toList();
 
-            if (anyChildInConversation) {
+            if (!childParticipants.isEmpty()) {
                 log.info("✅ Parent {} authorized via child", userId);
+                parentConversationIndex.recordVerified(userId, conversationId, participants, childIds);
                 return conversationMapper.toDto(conversation, userId);
             }
 
@@ -213,6 +232,20 @@ public class ConversationService {
         return conversationRepository.countUnreadConversations(userId);
     }
 
+    /**
+     * Users sharing at least one conversation with the given user (the user excluded).
+     */
+    public Set<String> getConversationPartnerIds(String userId) {
+        Set<String> partnerIds = new HashSet<>();
+        for (Conversation conversation : conversationRepository.findParticipantIdsByParticipantId(userId)) {
+            if (conversation.getParticipantIds() != null) {
+                partnerIds.addAll(conversation.getParticipantIds());
+            }
+        }
+        partnerIds.remove(userId);
+        return partnerIds;
+    }
+
     @Transactional
     public void deleteConversation(String conversationId, String userId) {
         log.info("🗑️ deleteConversation: {} by {}", conversationId, userId);
@@ -226,57 +259,116 @@ public class ConversationService {
         }
 
         conversationRepository.delete(conversation);
+        resolutionCache.invalidate(conversation);
+        recentMessageCache.invalidate(conversationId);
+        parentConversationIndex.onConversationDeleted(conversationId);
         log.info("✅ Conversation deleted: {}", conversationId);
     }
 
-    @Transactional
-    public void markConversationAsRead(String conversationId, String userId) {
+    /**
+     * Advance the user's read watermark to the conversation's last message and reset
+     * their unread counter in one atomic update.
+     *
+     * @return the conversation as it was before the update
+     */
+    public Conversation markConversationAsRead(String conversationId, String userId) {
         log.info("📖 markConversationAsRead: {} for {}", conversationId, userId);
 
-        Conversation conversation = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Conversation not found: " + conversationId));
-
-        if (!conversation.getParticipantIds().contains(userId)) {
+        Conversation previous = conversationRepository.markReadUpToLastMessage(conversationId, userId);
+        if (previous == null) {
+            if (!conversationRepository.existsById(conversationId)) {
+                throw new IllegalArgumentException("Conversation not found: " + conversationId);
+            }
             throw new IllegalArgumentException("User is not a participant in this conversation");
         }
-
-        conversation.resetUnreadCount(userId);
-        conversationRepository.save(conversation);
         log.info("✅ Conversation {} marked as read for {}", conversationId, userId);
+        return previous;
     }
 
-    @Transactional
-    public void updateLastMessage(String conversationId, String messageId,
-                                  String content, String senderId) {
-        log.info("📝 updateLastMessage for conversation {}", conversationId);
+    /**
+     * Advance the receiver's read watermark to a single message.
+     *
+     * @return true if the watermark moved forward
+     */
+    public boolean markMessageAsRead(Message message, String userId, LocalDateTime readAt) {
+        ReadWatermark watermark = ReadWatermark.builder()
+                .lastReadMessageId(message.getId())
+                .lastReadAt(message.getCreatedAt())
+                .readAt(readAt)
+                .build();
+        return conversationRepository.advanceReadWatermark(message.getConversationId(), userId, watermark);
+    }
 
-        Conversation conversation = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Conversation not found: " + conversationId));
+    public Map<String, ReadWatermark> getReadWatermarks(String conversationId) {
+        return conversationRepository.findReadWatermarksById(conversationId)
+                .map(Conversation::getReadWatermarks)
+                .orElse(Map.of());
+    }
+
+    /**
+     * Record a sent message on its conversation with one atomic $set/$inc update
+     * (no read-modify-write of the conversation document).
+     */
+    public void recordMessageSent(Conversation conversation, Message message) {
+        recordMessagesSent(conversation, List.of(message));
+    }
+
+    /**
+     * Reserve the next Message.seq of the conversation. Messages stored without a seq by
+     * pre-seq nodes during a rolling deploy are numbered first (message.seq.legacy-catch-up).
+     */
+    public long nextMessageSeq(Conversation conversation) {
+        if (legacyCatchUp != null && !legacyCatchUp.isZero()
+                && conversationRepository.numberUnsequencedMessages(conversation.getId(),
+                        LocalDateTime.now().minus(legacyCatchUp)) > 0) {
+            // Now visible to keyset reads: refill the first page
+            recentMessageCache.invalidate(conversation.getId());
+        }
 
-        conversation.updateLastMessage(messageId, content, senderId);
-        conversationRepository.save(conversation);
-        log.info("✅ Last message updated for conversation {}", conversationId);
+        Long seq = conversationRepository.nextMessageSeq(conversation.getId());
+        if (seq == null) {
+            // Deleted elsewhere while still cached here
+            resolutionCache.invalidate(conversation);
+            throw new IllegalArgumentException("Conversation not found: " + conversation.getId());
+        }
+        return seq;
+    }
+
+    /**
+     * Same as recordMessageSent for several messages of one conversation, oldest first,
+     * in one update (write-behind flushes).
+     */
+    public void recordMessagesSent(Conversation conversation, List<Message> messages) {
+        Map<String, Integer> unreadIncrements = new HashMap<>();
+        for (Message message : messages) {
+            for (String participantId : conversation.getParticipantIds()) {
+                if (!participantId.equals(message.getSenderId())) {
+                    unreadIncrements.merge(participantId, 1, Integer::sum);
+                }
+            }
+        }
+
+        Message last = messages.get(messages.size() - 1);
+        if (!conversationRepository.applyLastMessage(conversation.getId(), last, unreadIncrements)) {
+            // Deleted elsewhere while still cached here
+            resolutionCache.invalidate(conversation);
+            throw new IllegalArgumentException("Conversation not found: " + conversation.getId());
+        }
+    }
+
+    /**
+     * Refresh the conversation preview after an edit (no-op unless the edited
+     * message is the conversation's last message).
+     */
+    public void recordMessageEdited(Message message) {
+        if (conversationRepository.updateLastMessageContent(
+                message.getConversationId(), message.getId(), message.getContent())) {
+            log.info("✅ Last message preview updated for conversation {}", message.getConversationId());
+        }
     }
 
     @Transactional
     public Conversation getOrCreateSupportConversation(String supportUserId, String otherUserId) {
-        List<String> participants = Arrays.asList(supportUserId, otherUserId);
-        participants.sort(String::compareTo);
-
-        return conversationRepository
-                .findByParticipantIdsAndType(participants, "SUPPORT_DIRECT")
-                .orElseGet(() -> {
-                    Conversation conv = Conversation.builder()
-                            .participantIds(participants)
-                            .type("SUPPORT_DIRECT")
-                            .createdAt(LocalDateTime.now())
-                            .unreadCounts(new HashMap<>())
-                            .build();
-                    Conversation saved = conversationRepository.save(conv);
-                    log.info("✅ Created SUPPORT_DIRECT conversation: {} ↔ {}", supportUserId, otherUserId);
-                    return saved;
-                });
+        return createConversation(List.of(supportUserId, otherUserId), "SUPPORT_DIRECT");
     }
 }
\ No newline at end of file
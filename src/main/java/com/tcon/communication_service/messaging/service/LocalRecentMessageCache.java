@@ -0,0 +1,259 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Local Recent Message Cache (message.recent-cache.store=local)
+ * Per-conversation ring buffer of the newest messages (newest first), kept write-through by
+ * MessageService so first-page reads of active conversations never touch Mongo.
+ * Memory is bounded by messages-per-conversation x max-conversations; the least recently
+ * used conversations are evicted first, and every buffer is reloaded at least once per ttl.
+ *
+ * Fills race with write-through, so every entry change goes through the map's compute methods:
+ * - a send to a conversation that is not buffered yet is kept in an unloaded entry and merged
+ *   into the next load (covers sends racing the Mongo read and write-behind messages not yet
+ *   inserted);
+ * - edits, deletes and read watermarks bump a striped generation first, and a load whose
+ *   token no longer matches is dropped. Stripes are never evicted, unlike cache entries.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "message.recent-cache.store", havingValue = "local", matchIfMissing = true)
+public class LocalRecentMessageCache implements RecentMessageCache {
+
+    private static final Comparator<MessageDto> NEWEST_FIRST = Comparator
+            .comparing(MessageDto::getSeq, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .thenComparing(MessageDto::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(MessageDto::getId, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .reversed();
+
+    // Power of two; unrelated conversations sharing a stripe only cost a spurious reload
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache<String, RecentMessages> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final int capacity;
+
+    public LocalRecentMessageCache(
+            MeterRegistry meterRegistry,
+            @Value("${message.recent-cache.messages-per-conversation:50}") int capacity,
+            @Value("${message.recent-cache.max-conversations:2000}") long maxConversations,
+            @Value("${message.recent-cache.ttl:10m}") Duration ttl) {
+
+        this.capacity = capacity;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxConversations)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("🔧 Recent message cache: {} messages x {} conversations, ttl={}", capacity, maxConversations, ttl);
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public RecentPage getNewest(String conversationId, int size) {
+        RecentMessages recent = cache.getIfPresent(conversationId);
+        return recent != null ? recent.newest(size) : null;
+    }
+
+    @Override
+    public long loadToken(String conversationId) {
+        return generations.get(stripe(conversationId));
+    }
+
+    @Override
+    public void load(String conversationId, long token, List<MessageDto> newestFirst, long total,
+                     Map<String, ReadWatermark> readWatermarks) {
+        cache.asMap().compute(conversationId, (id, current) -> {
+            if (generations.get(stripe(id)) != token) {
+                // Edited, deleted or read after the Mongo read started; keep any unloaded sends
+                log.debug("Dropped stale recent-message load for {}", id);
+                return current;
+            }
+            RecentMessages loaded = new RecentMessages(capacity, newestFirst, total, readWatermarks);
+            if (current != null) {
+                loaded.mergeMissing(current, newestFirst.size() < capacity
+                        ? null : newestFirst.get(newestFirst.size() - 1));
+            }
+            return loaded;
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Write-through
+    // ─────────────────────────────────────────────────────────────
+
+    @Override
+    public void onSent(MessageDto message) {
+        cache.asMap().compute(message.getConversationId(), (id, recent) -> {
+            RecentMessages target = recent != null ? recent : RecentMessages.unloaded(capacity);
+            target.add(message);
+            return target;
+        });
+    }
+
+    @Override
+    public void onUpdated(MessageDto message) {
+        generations.incrementAndGet(stripe(message.getConversationId()));
+        cache.asMap().computeIfPresent(message.getConversationId(), (id, recent) -> {
+            recent.replace(message);
+            return recent;
+        });
+    }
+
+    @Override
+    public void onDeleted(String conversationId, String messageId) {
+        generations.incrementAndGet(stripe(conversationId));
+        cache.asMap().computeIfPresent(conversationId, (id, recent) -> {
+            recent.remove(messageId);
+            return recent;
+        });
+    }
+
+    @Override
+    public void onRead(String conversationId, String userId, ReadWatermark watermark) {
+        generations.incrementAndGet(stripe(conversationId));
+        cache.asMap().computeIfPresent(conversationId, (id, recent) -> {
+            recent.advanceWatermark(userId, watermark);
+            return recent;
+        });
+    }
+
+    @Override
+    public void invalidate(String conversationId) {
+        generations.incrementAndGet(stripe(conversationId));
+        cache.invalidate(conversationId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    private static int stripe(String conversationId) {
+        int hash = conversationId.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private static final class RecentMessages {
+
+        private final int capacity;
+        private final List<MessageDto> newestFirst;
+        private final Map<String, ReadWatermark> readWatermarks;
+        // Unloaded entries only hold sends waiting for the next load and are never served
+        private final boolean loaded;
+        private long total;
+
+        RecentMessages(int capacity, List<MessageDto> newestFirst, long total,
+                       Map<String, ReadWatermark> readWatermarks) {
+            this(capacity, newestFirst, total, readWatermarks, true);
+        }
+
+        private RecentMessages(int capacity, List<MessageDto> newestFirst, long total,
+                               Map<String, ReadWatermark> readWatermarks, boolean loaded) {
+            this.capacity = capacity;
+            this.newestFirst = new ArrayList<>(newestFirst.subList(0, Math.min(capacity, newestFirst.size())));
+            this.total = total;
+            this.readWatermarks = readWatermarks != null ? new HashMap<>(readWatermarks) : new HashMap<>();
+            this.loaded = loaded;
+        }
+
+        static RecentMessages unloaded(int capacity) {
+            return new RecentMessages(capacity, List.of(), 0, null, false);
+        }
+
+        synchronized RecentPage newest(int size) {
+            if (!loaded) {
+                return null;
+            }
+            boolean holdsAll = newestFirst.size() >= total;
+            if (size > newestFirst.size() && !holdsAll) {
+                return null;
+            }
+
+            List<MessageDto> page = newestFirst.subList(0, Math.min(size, newestFirst.size())).stream()
+                    .map(dto -> dto.toBuilder().build())
+                    .toList();
+            return new RecentPage(page, total, total > page.size(), Map.copyOf(readWatermarks));
+        }
+
+        /**
+         * Add the messages of {@code previous} that the Mongo read could not see: sent after it
+         * started, or not inserted yet. Messages older than the loaded window are left out.
+         *
+         * @param oldestLoaded oldest message of a full Mongo page, or null if the page holds them all
+         */
+        synchronized void mergeMissing(RecentMessages previous, MessageDto oldestLoaded) {
+            Set<String> loadedIds = new HashSet<>();
+            newestFirst.forEach(dto -> loadedIds.add(dto.getId()));
+
+            for (MessageDto message : previous.snapshot()) {
+                if (!loadedIds.contains(message.getId())
+                        && (oldestLoaded == null || NEWEST_FIRST.compare(message, oldestLoaded) < 0)) {
+                    add(message);
+                }
+            }
+        }
+
+        synchronized List<MessageDto> snapshot() {
+            return List.copyOf(newestFirst);
+        }
+
+        synchronized void add(MessageDto message) {
+            int index = 0;
+            while (index < newestFirst.size() && NEWEST_FIRST.compare(newestFirst.get(index), message) < 0) {
+                index++;
+            }
+            newestFirst.add(index, message);
+            total++;
+            if (newestFirst.size() > capacity) {
+                newestFirst.remove(newestFirst.size() - 1);
+            }
+        }
+
+        synchronized void replace(MessageDto message) {
+            newestFirst.replaceAll(existing -> existing.getId().equals(message.getId()) ? message : existing);
+        }
+
+        synchronized void remove(String messageId) {
+            if (newestFirst.removeIf(existing -> existing.getId().equals(messageId))
+                    || (loaded && total > newestFirst.size())) {
+                total = Math.max(0, total - 1);
+            }
+        }
+
+        synchronized void advanceWatermark(String userId, ReadWatermark watermark) {
+            readWatermarks.merge(userId, watermark, (current, next) ->
+                    current.covers(next.getLastReadAt()) ? current : next);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.websocket.PresenceRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Message Delivery Service
+ * The one send path for WebSocket and REST: stores the message (MessageService.send), then
+ * pushes it to the conversation topic and to the receiver, or queues it in the offline
+ * queue when the receiver has no session. A replayed retry is not pushed again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageDeliveryService {
+
+    private final MessageService messageService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceRegistry presenceRegistry;
+    private final OfflineDeliveryService offlineDeliveryService;
+    private final TypingStateService typingStateService;
+
+    public MessageService.SendResult send(String senderId, String senderRole, MessageSendRequest request) {
+        MessageService.SendResult result = messageService.send(senderId, senderRole, request);
+        if (result.replayed()) {
+            return result;
+        }
+
+        MessageDto message = result.message();
+        String convId = message.getConversationId();
+        messagingTemplate.convertAndSend("/topic/conversations/" + convId, message);
+        if (presenceRegistry.isOnline(message.getReceiverId())) {
+            messagingTemplate.convertAndSendToUser(message.getReceiverId(), "/queue/messages", message);
+        } else {
+            offlineDeliveryService.enqueue(message);
+        }
+        typingStateService.stop(convId, senderId);
+
+        log.debug("✅ Delivered conv={} msg={}", convId, message.getId());
+        return result;
+    }
+}
@@ -2,8 +2,12 @@ package com.tcon.communication_service.messaging.service;
 
 import com.tcon.communication_service.messaging.dto.MessageDto;
 import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.MessageStatus;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 /**
  * Message Mapper
  * Maps between message entities and DTOs
@@ -45,10 +49,43 @@ public class MessageMapper {
                 .isDeleted(entity.getIsDeleted())
                 .isEdited(entity.getIsEdited())
                 .editedAt(entity.getEditedAt())
+                .seq(entity.getSeq())
                 .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
                 .build();
     }
 
+    /**
+     * Convert Message entity to DTO, deriving read state from the conversation's
+     * read watermarks (per-message READ writes are no longer made)
+     *
+     * @param entity Message entity
+     * @param readWatermarks userId -> watermark of the message's conversation
+     * @return MessageDto
+     */
+    public MessageDto toDto(Message entity, Map<String, ReadWatermark> readWatermarks) {
+        MessageDto dto = toDto(entity);
+        if (dto != null) {
+            applyReadState(dto, readWatermarks);
+        }
+        return dto;
+    }
+
+    /**
+     * Mark the DTO as READ if the receiver's watermark covers it.
+     * Messages marked READ individually before watermarks existed keep their stored state.
+     */
+    public void applyReadState(MessageDto dto, Map<String, ReadWatermark> readWatermarks) {
+        if (readWatermarks == null || dto.getStatus() == MessageStatus.READ) {
+            return;
+        }
+        ReadWatermark watermark = readWatermarks.get(dto.getReceiverId());
+        if (watermark != null && watermark.covers(dto.getCreatedAt())) {
+            dto.setStatus(MessageStatus.READ);
+            dto.setReadAt(watermark.getReadAt());
+        }
+    }
+
     /**
      * Convert MessageDto to entity
      * ✅ UPDATED: Added deliveredAt field
@@ -80,7 +117,9 @@ public class MessageMapper {
                 .isDeleted(dto.getIsDeleted())
                 .isEdited(dto.getIsEdited())
                 .editedAt(dto.getEditedAt())
+                .seq(dto.getSeq())
                 .createdAt(dto.getCreatedAt())
+                .updatedAt(dto.getUpdatedAt())
                 .build();
     }
 }
\ No newline at end of file
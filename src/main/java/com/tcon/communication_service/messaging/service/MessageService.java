@@ -1,8 +1,10 @@
 package com.tcon.communication_service.messaging.service;
 
-import com.tcon.communication_service.client.ParentServiceClient;
+import com.tcon.communication_service.event.service.EventOutbox;
+import com.tcon.communication_service.messaging.dto.MessageCursor;
 import com.tcon.communication_service.messaging.dto.MessageDto;
 import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.messaging.dto.MessageSliceDto;
 import com.tcon.communication_service.messaging.entity.*;
 import com.tcon.communication_service.messaging.event.MessageEventPublisher;
 import com.tcon.communication_service.messaging.exception.ParentAccessDeniedException;
@@ -10,13 +12,19 @@ import com.tcon.communication_service.messaging.repository.ConversationRepositor
 import com.tcon.communication_service.messaging.repository.MessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -28,18 +36,50 @@ public class MessageService {
     private final ConversationService conversationService;
     private final MessageMapper messageMapper;
     private final MessageEventPublisher messageEventPublisher;
-    private final ParentServiceClient parentServiceClient;
+    private final EventOutbox eventOutbox;
+    private final ParentChildrenCache parentChildrenCache;
+    private final ParentConversationIndex parentConversationIndex;
+    private final RecentMessageCache recentMessageCache;
+    private final SendIdempotencyCache idempotencyCache;
+    private final ObjectProvider<MessageWriteBehindQueue> writeBehindQueue;
+
+    /**
+     * Outcome of a send; replayed is true when an earlier send with the same
+     * idempotency key was returned instead of creating a new message.
+     */
+    public record SendResult(MessageDto message, boolean replayed) {
+    }
 
     /**
      * ✅ FIXED: Accepts senderRole - used by both REST and WebSocket controllers
+     * Round trips per send: conversation lookup (single query), seq reservation, optional
+     * reply-to content projection, message insert and one atomic conversation update.
      */
     @Transactional
     public MessageDto sendMessage(String senderId, String senderRole, MessageSendRequest request) {
+        return send(senderId, senderRole, request).message();
+    }
+
+    /**
+     * Send honouring request.idempotencyKey: a key this sender already used returns the
+     * original message, with no new insert and no MESSAGE_SENT event.
+     */
+    @Transactional
+    public SendResult send(String senderId, String senderRole, MessageSendRequest request) {
         String receiverId = request.getReceiverId();
         if (receiverId == null || receiverId.isBlank()) {
             throw new IllegalArgumentException("receiverId is required");
         }
 
+        String idempotencyKey = scopedIdempotencyKey(senderId, request);
+        if (idempotencyKey != null) {
+            MessageDto replay = findReplay(idempotencyKey);
+            if (replay != null) {
+                log.info("🔁 Replayed send {} for key {}", replay.getId(), idempotencyKey);
+                return new SendResult(replay, true);
+            }
+        }
+
         var conversation = conversationService.getOrCreateConversation(
                 senderId, receiverId, senderRole
         );
@@ -69,32 +109,200 @@ public class MessageService {
                 .fileSize(request.getFileSize())
                 .mimeType(request.getMimeType())
                 .replyToMessageId(request.getReplyToMessageId())
+                .idempotencyKey(idempotencyKey)
+                .seq(conversationService.nextMessageSeq(conversation))
                 .expiresAt(LocalDateTime.now().plusDays(30))
                 .isDeleted(false)
                 .isEdited(false)
                 .build();
 
         if (request.getReplyToMessageId() != null) {
-            messageRepository.findById(request.getReplyToMessageId())
+            messageRepository.findContentById(request.getReplyToMessageId())
                     .ifPresent(replyTo -> message.setReplyToContent(replyTo.getContent()));
         }
 
-        Message saved = messageRepository.save(message);
-        conversationService.updateLastMessage(conversation.getId(), saved.getId(),
-                saved.getContent(), senderId);
+        MessageWriteBehindQueue writeBehind = writeBehindQueue.getIfAvailable();
+        if (writeBehind != null && writeBehind.isActive()) {
+            return new SendResult(sendWriteBehind(writeBehind, conversation, message, idempotencyKey), false);
+        }
+
+        // Message insert, conversation update and MESSAGE_SENT outbox entry as one unit
+        Message saved;
+        try {
+            saved = eventOutbox.atomically(() -> {
+                Message stored = messageRepository.insert(message);
+                conversationService.recordMessageSent(conversation, stored);
+                messageEventPublisher.publishMessageSent(stored);
+                return stored;
+            });
+        } catch (DuplicateKeyException e) {
+            // A concurrent retry with the same key won the insert (sender_idempotency_uidx)
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            Message original = messageRepository.findByIdempotencyKey(idempotencyKey).orElseThrow(() -> e);
+            idempotencyCache.put(idempotencyKey, original.getId());
+            return new SendResult(messageMapper.toDto(original), true);
+        }
+
+        MessageDto dto = messageMapper.toDto(saved);
+        recentMessageCache.onSent(dto);
+        if (idempotencyKey != null) {
+            idempotencyCache.put(idempotencyKey, saved.getId());
+        }
 
-        messageEventPublisher.publishMessageSent(saved);
         log.info("✅ Message sent: {}", saved.getId());
-        return messageMapper.toDto(saved);
+        return new SendResult(dto, false);
+    }
+
+    /**
+     * message.write-behind.enabled: assign id and timestamps here, return at once for the
+     * broadcast and leave the insert, conversation update and MESSAGE_SENT to the queue.
+     */
+    private MessageDto sendWriteBehind(MessageWriteBehindQueue writeBehind, Conversation conversation,
+                                       Message message, String idempotencyKey) {
+        // Millisecond precision, as stored, so cursors built from the broadcast DTO stay valid
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        message.setId(new ObjectId().toHexString());
+        message.setCreatedAt(now);
+        message.setUpdatedAt(now);
+        message.setVersion(0L);
+
+        writeBehind.enqueue(conversation, message);
+
+        MessageDto dto = messageMapper.toDto(message);
+        recentMessageCache.onSent(dto);
+        if (idempotencyKey != null) {
+            idempotencyCache.put(idempotencyKey, message.getId());
+        }
+        log.info("✅ Message sent (write-behind): {}", message.getId());
+        return dto;
+    }
+
+    /**
+     * Idempotency keys are scoped to the sender, so clients only need them unique per user.
+     */
+    private static String scopedIdempotencyKey(String senderId, MessageSendRequest request) {
+        String key = request.getIdempotencyKey();
+        return key == null || key.isBlank() ? null : senderId + ":" + key;
+    }
+
+    private MessageDto findReplay(String idempotencyKey) {
+        String messageId = idempotencyCache.get(idempotencyKey);
+        if (messageId == null) {
+            return null;
+        }
+        return messageRepository.findById(messageId).map(messageMapper::toDto).orElse(null);
     }
 
     /**
      * Get messages in a conversation (parents can read)
      */
     public Page<MessageDto> getConversationMessages(String conversationId, Pageable pageable) {
+        if (pageable.getPageNumber() == 0 && pageable.getSort().isUnsorted()) {
+            RecentMessageCache.RecentPage recent = getRecentPage(conversationId, pageable.getPageSize());
+            if (recent != null) {
+                return new PageImpl<>(recent.content(), pageable, recent.total());
+            }
+        }
+
+        Map<String, ReadWatermark> readWatermarks = conversationService.getReadWatermarks(conversationId);
         return messageRepository.findByConversationIdAndIsDeletedFalseOrderByCreatedAtDesc(
                         conversationId, pageable)
-                .map(messageMapper::toDto);
+                .map(message -> messageMapper.toDto(message, readWatermarks));
+    }
+
+    /**
+     * Keyset (cursor) page of a conversation's messages, newest first.
+     * No count query and no skip: each page is a range scan on conversation_seq_uidx.
+     *
+     * @param before   cursor to page towards older messages (takes precedence over after)
+     * @param after    cursor to page towards newer messages
+     * @param afterSeq raw seq to page newer from (gap fill), used when no cursor is given
+     */
+    public MessageSliceDto getConversationMessagesSlice(String conversationId, String before,
+                                                        String after, Long afterSeq, int size) {
+        if (after == null && afterSeq != null) {
+            after = new MessageCursor(afterSeq).encode();
+        }
+        if (before == null && after == null) {
+            RecentMessageCache.RecentPage recent = getRecentPage(conversationId, size);
+            if (recent != null) {
+                return toSlice(recent);
+            }
+        }
+
+        boolean older = before != null || after == null;
+        MessageCursor cursor = before != null ? MessageCursor.decode(before)
+                : after != null ? MessageCursor.decode(after) : null;
+
+        List<Message> messages = messageRepository.findKeysetPage(conversationId, cursor, older, size + 1);
+        boolean hasNext = messages.size() > size;
+        if (hasNext) {
+            messages = older ? messages.subList(0, size) : messages.subList(1, messages.size());
+        }
+
+        String nextCursor = null;
+        if (!messages.isEmpty()) {
+            // Older pages continue from the oldest message, newer pages from the newest
+            Message edge = older ? messages.get(messages.size() - 1) : messages.get(0);
+            nextCursor = edge.getSeq() != null ? new MessageCursor(edge.getSeq()).encode() : null;
+        }
+
+        Map<String, ReadWatermark> readWatermarks = conversationService.getReadWatermarks(conversationId);
+        return MessageSliceDto.builder()
+                .content(messages.stream().map(message -> messageMapper.toDto(message, readWatermarks)).toList())
+                .size(messages.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Newest page served from the recent-message buffer, loading the buffer from Mongo on a miss.
+     * Returns null when the page is larger than the buffer.
+     */
+    private RecentMessageCache.RecentPage getRecentPage(String conversationId, int size) {
+        if (size > recentMessageCache.capacity()) {
+            return null;
+        }
+
+        RecentMessageCache.RecentPage recent = recentMessageCache.getNewest(conversationId, size);
+        if (recent == null) {
+            long token = recentMessageCache.loadToken(conversationId);
+            List<MessageDto> newest = messageRepository
+                    .findKeysetPage(conversationId, null, true, recentMessageCache.capacity()).stream()
+                    .map(messageMapper::toDto)
+                    .toList();
+            long total = newest.size() < recentMessageCache.capacity()
+                    ? newest.size()
+                    : messageRepository.countByConversationIdAndIsDeletedFalse(conversationId);
+            recentMessageCache.load(conversationId, token, newest, total,
+                    conversationService.getReadWatermarks(conversationId));
+            recent = recentMessageCache.getNewest(conversationId, size);
+        }
+
+        if (recent != null) {
+            Map<String, ReadWatermark> readWatermarks = recent.readWatermarks();
+            recent.content().forEach(dto -> messageMapper.applyReadState(dto, readWatermarks));
+        }
+        return recent;
+    }
+
+    private MessageSliceDto toSlice(RecentMessageCache.RecentPage recent) {
+        List<MessageDto> content = recent.content();
+        String nextCursor = null;
+        if (!content.isEmpty()) {
+            MessageDto oldest = content.get(content.size() - 1);
+            nextCursor = oldest.getSeq() != null ? new MessageCursor(oldest.getSeq()).encode() : null;
+        }
+
+        return MessageSliceDto.builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(recent.hasMore())
+                .nextCursor(nextCursor)
+                .build();
     }
 
     /**
@@ -115,15 +323,28 @@ public class MessageService {
             throw new IllegalArgumentException("Only receiver can mark message as read");
         }
 
-        if (message.getStatus() != MessageStatus.READ) {
-            message.markAsRead();
-            Message saved = messageRepository.save(message);
-            conversationService.markConversationAsRead(message.getConversationId(), userId);
-            messageEventPublisher.publishMessageRead(saved);
-            return messageMapper.toDto(saved);
+        // Read state lives in the receiver's watermark; the message document is not rewritten
+        LocalDateTime readAt = LocalDateTime.now();
+        boolean advanced = message.getStatus() != MessageStatus.READ
+                && eventOutbox.atomically(() -> {
+                    if (!conversationService.markMessageAsRead(message, userId, readAt)) {
+                        return false;
+                    }
+                    message.markAsRead();
+                    messageEventPublisher.publishMessageRead(message);
+                    return true;
+                });
+
+        if (advanced) {
+            recentMessageCache.onRead(message.getConversationId(), userId, ReadWatermark.builder()
+                    .lastReadMessageId(message.getId())
+                    .lastReadAt(message.getCreatedAt())
+                    .readAt(readAt)
+                    .build());
+            return messageMapper.toDto(message);
         }
 
-        return messageMapper.toDto(message);
+        return messageMapper.toDto(message, conversationService.getReadWatermarks(message.getConversationId()));
     }
 
     /**
@@ -137,17 +358,38 @@ public class MessageService {
             throw new ParentAccessDeniedException("Parents cannot mark conversations as read");
         }
 
-        List<Message> unreadMessages = messageRepository
-                .findByConversationIdAndStatusAndReceiverIdAndIsDeletedFalse(
-                        conversationId, MessageStatus.SENT, userId);
-
-        unreadMessages.forEach(msg -> {
-            msg.markAsRead();
-            messageEventPublisher.publishMessageRead(msg);
+        // Watermark move and CONVERSATION_READ_UP_TO outbox entry as one unit
+        Conversation previous = eventOutbox.atomically(() -> {
+            Conversation before = conversationService.markConversationAsRead(conversationId, userId);
+            if (!isAlreadyRead(before, userId)) {
+                List<String> senderIds = before.getParticipantIds().stream()
+                        .filter(id -> !id.equals(userId))
+                        .toList();
+                messageEventPublisher.publishConversationReadUpTo(conversationId, userId, senderIds,
+                        before.getLastMessageAt(), before.getUnreadCount(userId));
+            }
+            return before;
         });
 
-        messageRepository.saveAll(unreadMessages);
-        conversationService.markConversationAsRead(conversationId, userId);
+        if (isAlreadyRead(previous, userId)) {
+            log.info("Conversation {} already read by {}", conversationId, userId);
+            return;
+        }
+
+        LocalDateTime readUpTo = previous.getLastMessageAt();
+        recentMessageCache.onRead(conversationId, userId, ReadWatermark.builder()
+                .lastReadMessageId(previous.getLastMessageId())
+                .lastReadAt(readUpTo)
+                .readAt(LocalDateTime.now())
+                .build());
+        log.info("✅ Read watermark of {} in conversation {} moved to {}", userId, conversationId, readUpTo);
+    }
+
+    // Nothing new since the user's watermark (or no messages at all)
+    private static boolean isAlreadyRead(Conversation previous, String userId) {
+        LocalDateTime readUpTo = previous.getLastMessageAt();
+        ReadWatermark before = previous.getReadWatermark(userId);
+        return readUpTo == null || (before != null && before.covers(readUpTo));
     }
 
     /**
@@ -175,17 +417,13 @@ public class MessageService {
         message.edit(newContent);
         Message saved = messageRepository.save(message);
 
-        conversationRepository.findById(message.getConversationId())
-                .ifPresent(conv -> {
-                    if (messageId.equals(conv.getLastMessageId())) {
-                        conversationService.updateLastMessage(
-                                conv.getId(), saved.getId(),
-                                saved.getContent(), saved.getSenderId());
-                    }
-                });
+        conversationService.recordMessageEdited(saved);
+
+        MessageDto dto = messageMapper.toDto(saved);
+        recentMessageCache.onUpdated(dto);
 
         log.info("✅ Message edited: {}", saved.getId());
-        return messageMapper.toDto(saved);
+        return dto;
     }
 
     /**
@@ -212,6 +450,7 @@ public class MessageService {
 
         message.softDelete();
         messageRepository.save(message);
+        recentMessageCache.onDeleted(message.getConversationId(), messageId);
         log.info("✅ Message soft-deleted: {}", messageId);
     }
 
@@ -222,8 +461,9 @@ public class MessageService {
         if ("PARENT".equals(userRole)) {
             return 0L;
         }
-        return messageRepository.countByConversationIdAndStatusAndReceiverIdAndIsDeletedFalse(
-                conversationId, MessageStatus.SENT, userId);
+        ReadWatermark watermark = conversationService.getReadWatermarks(conversationId).get(userId);
+        return messageRepository.countUnread(conversationId, userId,
+                watermark != null ? watermark.getLastReadAt() : null);
     }
 
     /**
@@ -234,6 +474,9 @@ public class MessageService {
         log.info("Deleting expired messages");
         List<Message> expiredMessages = messageRepository.findExpiredMessages(LocalDateTime.now());
         messageRepository.deleteAll(expiredMessages);
+        if (!expiredMessages.isEmpty()) {
+            recentMessageCache.invalidateAll();
+        }
         log.info("✅ Deleted {} expired messages", expiredMessages.size());
     }
 
@@ -250,6 +493,12 @@ public class MessageService {
     public void validateParentAccess(String parentId, String conversationId) {
         log.info("Validating parent {} access to conversation {}", parentId, conversationId);
 
+        // 0) Precomputed grant → allow without loading the conversation or the child list
+        if (parentConversationIndex.isAuthorized(parentId, conversationId)) {
+            log.debug("✅ Parent {} authorized for conv {} by access index", parentId, conversationId);
+            return;
+        }
+
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> {
                     log.warn("Conversation not found: {}", conversationId);
@@ -266,13 +515,14 @@ public class MessageService {
         }
 
         // 2) Parent authorized if any of their children is a participant
-        List<String> childIds = parentServiceClient.getChildStudentIds(parentId);
+        List<String> childIds = parentChildrenCache.getChildStudentIds(parentId);
         log.info("Parent {} has children {}", parentId, childIds);
 
-        boolean anyChild = childIds.stream().anyMatch(participants::contains);
+        List<String> childParticipants = childIds.stream().filter(participants::contains).toList();
 
-        if (anyChild) {
+        if (!childParticipants.isEmpty()) {
             log.info("✅ Parent {} authorized via child participant in conv {}", parentId, conversationId);
+            parentConversationIndex.recordVerified(parentId, conversationId, participants, childIds);
             return;
         }
 
@@ -280,6 +530,33 @@ public class MessageService {
         throw new ParentAccessDeniedException("Parent not linked to any participant in this conversation");
     }
 
+    /**
+     * Mark a batch of messages as delivered in one update (offline queue drain)
+     */
+    public void markAsDelivered(String receiverId, List<MessageDto> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime deliveredAt = LocalDateTime.now();
+        List<String> messageIds = messages.stream().map(MessageDto::getId).toList();
+        long updated = eventOutbox.atomically(() -> {
+            long changed = messageRepository.markDelivered(messageIds, deliveredAt);
+            messageEventPublisher.publishMessagesDelivered(receiverId, messageIds);
+            return changed;
+        });
+
+        for (MessageDto message : messages) {
+            if (message.getStatus() == MessageStatus.SENT) {
+                message.setStatus(MessageStatus.DELIVERED);
+                message.setDeliveredAt(deliveredAt);
+                recentMessageCache.onUpdated(message);
+            }
+        }
+
+        log.debug("✅ {} of {} messages marked as delivered to {}", updated, messageIds.size(), receiverId);
+    }
+
     /**
      * Mark message as delivered
      */
@@ -290,8 +567,14 @@ public class MessageService {
                     if (message.getStatus() == MessageStatus.SENT) {
                         message.setStatus(MessageStatus.DELIVERED);
                         message.setDeliveredAt(LocalDateTime.now());
-                        messageRepository.save(message);
-                        messageEventPublisher.publishMessageDelivered(message);
+                        Long version = message.getVersion();
+                        eventOutbox.atomically(() -> {
+                            message.setVersion(version);   // a retried attempt saves against the stored version
+                            messageRepository.save(message);
+                            messageEventPublisher.publishMessageDelivered(message);
+                            return null;
+                        });
+                        recentMessageCache.onUpdated(messageMapper.toDto(message));
                         log.debug("✅ Message {} marked as delivered", messageId);
                     }
                 });
@@ -0,0 +1,363 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.event.MessageEventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message Write-Behind Queue (message.write-behind.enabled=true)
+ * Lets MessageService broadcast a message before it is stored: the message (id and timestamps
+ * already assigned) is queued and a flusher thread writes it with insertMany a few ms later.
+ * Conversations are hashed onto partitions, each with one flusher, so a conversation's
+ * messages are stored, counted and published (MESSAGE_SENT) in send order.
+ * - Back-pressure: a full partition blocks the sender for up to offer-timeout, then the send
+ *   is rejected so the client retries (with its idempotency key).
+ * - Failures: a failed flush switches new sends to the synchronous path for the recovery
+ *   window while the flusher retries the batch; inserts are idempotent (fixed _id).
+ * - Shutdown drains the queues. A batch that cannot go out with insertMany (shutdown or
+ *   interrupt mid-retry, unexpected error) and any tail still queued after the flushers stop
+ *   are inserted one by one on the spot. Messages that still cannot be stored are dropped:
+ *   they are evicted from the recent-message and idempotency caches (so they are no longer
+ *   served or replayed), counted as message.write_behind.dropped and logged with their ids.
+ *   A hard crash loses at most the unflushed tail (~flush-interval).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "message.write-behind.enabled", havingValue = "true")
+public class MessageWriteBehindQueue {
+
+    private static final long MAX_RETRY_BACKOFF_MS = 5_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ConversationService conversationService;
+    private final MessageEventPublisher messageEventPublisher;
+    private final RecentMessageCache recentMessageCache;
+    private final SendIdempotencyCache idempotencyCache;
+    private final List<BlockingQueue<PendingWrite>> partitions = new ArrayList<>();
+    private final List<Thread> flushers = new ArrayList<>();
+    private final int maxBatch;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long recoveryMillis;
+    private final Timer flushTimer;
+    private final Counter written;
+    private final Counter failedFlushes;
+    private final Counter dropped;
+
+    private volatile boolean running = true;
+    private volatile long degradedUntil;
+
+    public MessageWriteBehindQueue(
+            MongoTemplate mongoTemplate,
+            ConversationService conversationService,
+            MessageEventPublisher messageEventPublisher,
+            RecentMessageCache recentMessageCache,
+            SendIdempotencyCache idempotencyCache,
+            MeterRegistry meterRegistry,
+            @Value("${message.write-behind.partitions:4}") int partitionCount,
+            @Value("${message.write-behind.capacity:10000}") int capacity,
+            @Value("${message.write-behind.max-batch:500}") int maxBatch,
+            @Value("${message.write-behind.flush-interval:5ms}") Duration flushInterval,
+            @Value("${message.write-behind.offer-timeout:200ms}") Duration offerTimeout,
+            @Value("${message.write-behind.recovery:30s}") Duration recovery) {
+
+        this.mongoTemplate = mongoTemplate;
+        this.conversationService = conversationService;
+        this.messageEventPublisher = messageEventPublisher;
+        this.recentMessageCache = recentMessageCache;
+        this.idempotencyCache = idempotencyCache;
+        this.maxBatch = maxBatch;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.offerTimeoutMillis = offerTimeout.toMillis();
+        this.recoveryMillis = recovery.toMillis();
+
+        for (int i = 0; i < partitionCount; i++) {
+            BlockingQueue<PendingWrite> queue = new ArrayBlockingQueue<>(Math.max(1, capacity / partitionCount));
+            partitions.add(queue);
+            Thread flusher = new Thread(() -> run(queue), "message-write-behind-" + i);
+            flusher.setDaemon(true);
+            flushers.add(flusher);
+        }
+
+        Gauge.builder("message.write_behind.queued", partitions,
+                        queues -> queues.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Messages broadcast but not yet stored")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("message.write_behind.flush")
+                .description("insertMany + conversation updates per flushed batch")
+                .register(meterRegistry);
+        this.written = Counter.builder("message.write_behind.written").register(meterRegistry);
+        this.failedFlushes = Counter.builder("message.write_behind.failures").register(meterRegistry);
+        this.dropped = Counter.builder("message.write_behind.dropped")
+                .description("Broadcast messages that could not be stored")
+                .register(meterRegistry);
+
+        flushers.forEach(Thread::start);
+        log.info("🔧 Message write-behind: partitions={}, capacity={}, maxBatch={}, interval={}",
+                partitionCount, capacity, maxBatch, flushInterval);
+    }
+
+    /**
+     * False while shutting down or recovering from a failed flush; callers then store synchronously.
+     */
+    public boolean isActive() {
+        return running && System.currentTimeMillis() >= degradedUntil;
+    }
+
+    /**
+     * Queue a message for storage. The message must carry its final id, createdAt and version.
+     *
+     * @throws IllegalStateException if the partition stays full for offer-timeout
+     */
+    public void enqueue(Conversation conversation, Message message) {
+        BlockingQueue<PendingWrite> queue =
+                partitions.get(Math.floorMod(conversation.getId().hashCode(), partitions.size()));
+        try {
+            if (queue.offer(new PendingWrite(conversation, message), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new IllegalStateException("Message queue is full, please retry");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        // Flushers that did not finish in time: store their tail from here
+        List<PendingWrite> tail = new ArrayList<>();
+        partitions.forEach(queue -> queue.drainTo(tail));
+        if (!tail.isEmpty()) {
+            log.warn("⚠️ Storing {} queued messages synchronously on shutdown", tail.size());
+            afterStore(storeEach(tail));
+        }
+        log.info("🛑 Message write-behind stopped");
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Flusher
+    // ─────────────────────────────────────────────────────────────
+
+    private void run(BlockingQueue<PendingWrite> queue) {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // Linger for the flush interval so bursts go out as one insertMany
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+
+                flushTimer.record(() -> flush(batch));
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Interrupted: the batch being collected and the rest of the queue are not lost
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                log.warn("⚠️ Write-behind flusher stopping, storing {} messages synchronously", batch.size());
+                afterStore(storeEach(batch));
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        boolean stored;
+        try {
+            stored = insertWithRetry(batch);
+        } catch (RuntimeException e) {
+            log.error("❌ Write-behind insertMany of {} messages failed: {}", batch.size(), e.getMessage(), e);
+            stored = false;
+        }
+        afterStore(stored ? batch : storeEach(batch));
+    }
+
+    /**
+     * One conversation update per conversation, then the MESSAGE_SENT events in send order.
+     */
+    private void afterStore(List<PendingWrite> stored) {
+        if (stored.isEmpty()) {
+            return;
+        }
+        written.increment(stored.size());
+
+        Map<String, List<PendingWrite>> byConversation = new LinkedHashMap<>();
+        for (PendingWrite write : stored) {
+            byConversation.computeIfAbsent(write.conversation().getId(), id -> new ArrayList<>()).add(write);
+        }
+        byConversation.values().forEach(writes -> {
+            try {
+                conversationService.recordMessagesSent(writes.get(0).conversation(),
+                        writes.stream().map(PendingWrite::message).toList());
+            } catch (IllegalArgumentException | DataAccessException e) {
+                log.warn("⚠️ Conversation update failed for {}: {}", writes.get(0).conversation().getId(), e.getMessage());
+            }
+        });
+        try {
+            messageEventPublisher.publishMessagesSent(stored.stream().map(PendingWrite::message).toList());
+        } catch (RuntimeException e) {
+            log.error("❌ MESSAGE_SENT publish failed for {} stored messages: {}", stored.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return false if the flusher is stopping (or interrupted) before the batch could be stored
+     */
+    private boolean insertWithRetry(List<PendingWrite> batch) {
+        List<Document> documents = batch.stream().map(write -> toDocument(write.message())).toList();
+
+        long backoff = 100;
+        while (true) {
+            try {
+                // Raw insertMany: no auditing callbacks, so stored timestamps match the broadcast ones
+                messagesCollection().insertMany(documents, new InsertManyOptions().ordered(false));
+                return true;
+            } catch (MongoBulkWriteException e) {
+                if (e.getWriteErrors().stream()
+                        .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY)) {
+                    // Already stored by an earlier attempt (or an idempotent replay that lost the race)
+                    return true;
+                }
+                onFailure(batch, e, backoff);
+            } catch (MongoException e) {
+                onFailure(batch, e, backoff);
+            }
+            if (!running || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+        }
+    }
+
+    /**
+     * Synchronous fallback: one insert per message, in send order.
+     *
+     * @return the messages that are stored; the others are reported as dropped
+     */
+    private List<PendingWrite> storeEach(List<PendingWrite> writes) {
+        // The driver fails fast on an interrupted thread; restore the flag once done
+        boolean interrupted = Thread.interrupted();
+        List<PendingWrite> stored = new ArrayList<>(writes.size());
+        List<PendingWrite> lost = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            try {
+                messagesCollection().insertOne(toDocument(write.message()));
+                stored.add(write);
+            } catch (MongoWriteException e) {
+                // A duplicate _id means an earlier attempt stored it; a duplicate idempotency key does not
+                if (ErrorCategory.fromErrorCode(e.getError().getCode()) == ErrorCategory.DUPLICATE_KEY
+                        && isStored(write.message())) {
+                    stored.add(write);
+                } else {
+                    lost.add(write);
+                }
+            } catch (RuntimeException e) {
+                lost.add(write);
+            }
+        }
+        if (!lost.isEmpty()) {
+            onDropped(lost);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return stored;
+    }
+
+    private boolean isStored(Message message) {
+        try {
+            return mongoTemplate.exists(Query.query(Criteria.where("_id").is(message.getId())), Message.class);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Clients already saw these messages: stop serving and replaying them.
+     */
+    private void onDropped(List<PendingWrite> lost) {
+        dropped.increment(lost.size());
+        for (PendingWrite write : lost) {
+            Message message = write.message();
+            recentMessageCache.onDeleted(message.getConversationId(), message.getId());
+            if (message.getIdempotencyKey() != null) {
+                idempotencyCache.invalidate(message.getIdempotencyKey());
+            }
+        }
+        log.error("❌ Dropped {} broadcast messages that could not be stored: {}", lost.size(),
+                lost.stream().map(write -> write.message().getId()).toList());
+    }
+
+    private Document toDocument(Message message) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(message, document);
+        return document;
+    }
+
+    private MongoCollection<Document> messagesCollection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Message.class));
+    }
+
+    private void onFailure(List<PendingWrite> batch, MongoException e, long backoff) {
+        failedFlushes.increment();
+        degradedUntil = System.currentTimeMillis() + recoveryMillis;
+        log.error("❌ insertMany of {} messages failed, sends are synchronous for {} ms: {}",
+                batch.size(), recoveryMillis, e.getMessage());
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingWrite(Conversation conversation, Message message) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.entity.PendingDelivery;
+import com.tcon.communication_service.messaging.repository.PendingDeliveryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Offline Delivery Service
+ * Holds message frames for receivers without a WebSocket session (pending_deliveries,
+ * TTL-indexed) and flushes them as one batched frame when the receiver subscribes to
+ * /user/queue/pending-messages after reconnecting. A drain claims its batch for claim-lease
+ * and deletes it and marks it DELIVERED (one update) only after the frame was handed to the
+ * broker; if the push fails the batch is released, and if the node dies it is claimed
+ * again once the lease runs out. Concurrent drains (a user subscribing from two tabs) claim
+ * disjoint batches, so nothing is pushed twice and every frame still reaches all sessions.
+ */
+@Slf4j
+@Service
+public class OfflineDeliveryService {
+
+    static final String PENDING_DESTINATION = "/queue/pending-messages";
+
+    private final PendingDeliveryRepository pendingDeliveryRepository;
+    private final MessageService messageService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Duration ttl;
+    private final int maxBatch;
+    private final Duration claimLease;
+
+    public OfflineDeliveryService(
+            PendingDeliveryRepository pendingDeliveryRepository,
+            MessageService messageService,
+            SimpMessagingTemplate messagingTemplate,
+            @Value("${message.offline-queue.ttl:7d}") Duration ttl,
+            @Value("${message.offline-queue.max-batch:500}") int maxBatch,
+            @Value("${message.offline-queue.claim-lease:30s}") Duration claimLease) {
+
+        this.pendingDeliveryRepository = pendingDeliveryRepository;
+        this.messageService = messageService;
+        this.messagingTemplate = messagingTemplate;
+        this.ttl = ttl;
+        this.maxBatch = maxBatch;
+        this.claimLease = claimLease;
+    }
+
+    /**
+     * Queue the frame for the message's receiver.
+     */
+    public void enqueue(MessageDto message) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            pendingDeliveryRepository.enqueue(PendingDelivery.builder()
+                    .userId(message.getReceiverId())
+                    .messageId(message.getId())
+                    .message(message)
+                    .createdAt(now)
+                    .expiresAt(now.plus(ttl))
+                    .build());
+            log.debug("📥 Queued {} for offline user {}", message.getId(), message.getReceiverId());
+        } catch (Exception e) {
+            // The message itself is persisted; the receiver still gets it with the conversation
+            log.error("❌ Failed to queue {} for {}: {}", message.getId(), message.getReceiverId(), e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        Principal user = event.getUser();
+        String destination = SimpMessageHeaderAccessor.getDestination(event.getMessage().getHeaders());
+        if (user != null && destination != null && destination.endsWith(PENDING_DESTINATION)) {
+            drain(user.getName());
+        }
+    }
+
+    /**
+     * Push up to max-batch queued messages in one frame: { messages, count, hasMore }.
+     * With hasMore the client should re-pull its conversations instead of waiting for more frames.
+     */
+    public void drain(String userId) {
+        String claimId = UUID.randomUUID().toString();
+        List<PendingDelivery> claimed = pendingDeliveryRepository.claim(userId, claimId, maxBatch,
+                LocalDateTime.now().plus(claimLease));
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        List<MessageDto> messages = claimed.stream().map(PendingDelivery::getMessage).toList();
+        boolean hasMore = claimed.size() == maxBatch
+                && pendingDeliveryRepository.countByUserId(userId) > claimed.size();
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("messages", messages);
+        payload.put("count", messages.size());
+        payload.put("hasMore", hasMore);
+        try {
+            messagingTemplate.convertAndSendToUser(userId, PENDING_DESTINATION, payload);
+        } catch (MessagingException e) {
+            pendingDeliveryRepository.release(claimId);
+            log.warn("⚠️ Pending messages push to {} failed, kept {} queued: {}", userId, messages.size(),
+                    e.getMessage());
+            return;
+        }
+
+        pendingDeliveryRepository.complete(claimId);
+        messageService.markAsDelivered(userId, messages);
+        log.info("📤 Flushed {} pending messages to {} (hasMore={})", messages.size(), userId, hasMore);
+    }
+}
@@ -0,0 +1,156 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.tcon.communication_service.client.ParentServiceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parent Children Cache
+ * parentId -> child student ids, in front of ParentServiceClient.getChildStudentIds.
+ * - Concurrent misses for the same parent share one load (Caffeine loads once per key).
+ * - message.parent-children.store=redis adds a shared tier (chat:parent-children:{parentId});
+ *   Redis errors fall through to the remote call.
+ * - Empty lists (no children, or the Feign fallback) are cached for negative-ttl only.
+ * - UserRelationshipEventListener invalidates a parent when its links change.
+ * Lookups are counted as parent.children.lookups{source=local|redis|remote}; local and
+ * redis are remote calls avoided.
+ */
+@Slf4j
+@Component
+public class ParentChildrenCache {
+
+    private static final String CACHE_NAME = "parent.children";
+    private static final String KEY_PREFIX = "chat:parent-children:";
+
+    private final LoadingCache<String, List<String>> local;
+    private final ParentServiceClient parentServiceClient;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean redisEnabled;
+    private final Duration ttl;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter remoteCalls;
+
+    public ParentChildrenCache(
+            ParentServiceClient parentServiceClient,
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${message.parent-children.store:local}") String store,
+            @Value("${message.parent-children.max-size:50000}") long maxSize,
+            @Value("${message.parent-children.ttl:10m}") Duration ttl,
+            @Value("${message.parent-children.negative-ttl:30s}") Duration negativeTtl) {
+
+        this.parentServiceClient = parentServiceClient;
+        this.redisTemplate = redisTemplate;
+        this.redisEnabled = "redis".equalsIgnoreCase(store);
+        this.ttl = ttl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, List<String>>() {
+                    @Override
+                    public long expireAfterCreate(String parentId, List<String> childIds, long currentTime) {
+                        return (childIds.isEmpty() ? negativeTtl : ttl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String parentId, List<String> childIds, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(parentId, childIds, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String parentId, List<String> childIds, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build(this::load);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+        this.localHits = lookups(meterRegistry, "local");
+        this.redisHits = lookups(meterRegistry, "redis");
+        this.remoteCalls = lookups(meterRegistry, "remote");
+        log.info("🔧 Parent children cache: store={}, ttl={}, negativeTtl={}",
+                redisEnabled ? "redis" : "local", ttl, negativeTtl);
+    }
+
+    /**
+     * @return child student ids, never null
+     */
+    public List<String> getChildStudentIds(String parentId) {
+        List<String> childIds = local.getIfPresent(parentId);
+        if (childIds != null) {
+            localHits.increment();
+            return childIds;
+        }
+        return local.get(parentId);
+    }
+
+    public void invalidate(String parentId) {
+        local.invalidate(parentId);
+        if (!redisEnabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.delete(KEY_PREFIX + parentId);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Parent children invalidation failed in Redis for {}: {}", parentId, e.getMessage());
+        }
+    }
+
+    /**
+     * Local tier only: used when an event can't be tied to a parent.
+     */
+    public void invalidateAll() {
+        local.invalidateAll();
+    }
+
+    private List<String> load(String parentId) {
+        if (redisEnabled) {
+            try {
+                String cached = redisTemplate.opsForValue().get(KEY_PREFIX + parentId);
+                if (cached != null) {
+                    redisHits.increment();
+                    return cached.isEmpty() ? List.of() : List.of(cached.split(","));
+                }
+            } catch (DataAccessException e) {
+                log.warn("⚠️ Parent children lookup failed in Redis, calling service: {}", e.getMessage());
+            }
+        }
+
+        remoteCalls.increment();
+        List<String> childIds = parentServiceClient.getChildStudentIds(parentId);
+        childIds = childIds != null ? List.copyOf(childIds) : List.of();
+
+        if (redisEnabled && !childIds.isEmpty()) {
+            try {
+                redisTemplate.opsForValue().set(KEY_PREFIX + parentId, String.join(",", childIds), ttl);
+            } catch (DataAccessException e) {
+                log.warn("⚠️ Parent children write failed in Redis: {}", e.getMessage());
+            }
+        }
+        return childIds;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("parent.children.lookups")
+                .description("Child id lookups by the tier that answered")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
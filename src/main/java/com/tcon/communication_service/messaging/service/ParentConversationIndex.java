@@ -0,0 +1,243 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.client.ParentServiceClient;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.ParentConversationAccess;
+import com.tcon.communication_service.messaging.entity.ParentStudentLink;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.ParentConversationAccessRepository;
+import com.tcon.communication_service.messaging.repository.ParentStudentLinkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parent Conversation Index
+ * Materialized (parentId, conversationId) grants in parent_conversation_access, so parent
+ * observer checks are a single _id lookup instead of conversation fetch + remote child list.
+ * Grants are derived from the parent/student links in parent_student_links and kept up to
+ * date from:
+ * - parent/student link and unlink events (UserRelationshipEventListener)
+ * - conversation creation (grants for the participants' known parents, no remote call)
+ * - conversation deletion
+ * - lazily: a check that misses the index and passes the child-based fallback records the
+ *   links and grants from the child list the fallback fetched
+ * - reconciliation (message.parent-access.reconcile-*): every known parent's children are
+ *   fetched again, missing grants are added and links that no longer hold (a lost unlink
+ *   event, or a lazy backfill from a stale cached child list) are removed
+ * A missing grant only costs the fallback, so the index never denies access on its own.
+ */
+@Slf4j
+@Service
+public class ParentConversationIndex {
+
+    private static final int RECONCILE_PAGE_SIZE = 500;
+
+    private final ParentConversationAccessRepository accessRepository;
+    private final ParentStudentLinkRepository linkRepository;
+    private final ConversationRepository conversationRepository;
+    private final ParentServiceClient parentServiceClient;
+    private final boolean reconcileEnabled;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ParentConversationIndex(
+            ParentConversationAccessRepository accessRepository,
+            ParentStudentLinkRepository linkRepository,
+            ConversationRepository conversationRepository,
+            ParentServiceClient parentServiceClient,
+            MeterRegistry meterRegistry,
+            @Value("${message.parent-access.reconcile-enabled:true}") boolean reconcileEnabled) {
+
+        this.accessRepository = accessRepository;
+        this.linkRepository = linkRepository;
+        this.conversationRepository = conversationRepository;
+        this.parentServiceClient = parentServiceClient;
+        this.reconcileEnabled = reconcileEnabled;
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+    }
+
+    /**
+     * @return true if a grant is recorded; false means "check the slow way", not "denied"
+     */
+    public boolean isAuthorized(String parentId, String conversationId) {
+        try {
+            boolean granted = accessRepository.existsById(ParentConversationAccess.key(parentId, conversationId));
+            (granted ? hits : misses).increment();
+            return granted;
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Parent access index lookup failed, using fallback: {}", e.getMessage());
+            misses.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Lazy backfill after the fallback check passed, from the child list it used: records the
+     * parent's links and the grants for the children taking part in the conversation.
+     */
+    @Async
+    public void recordVerified(String parentId, String conversationId, Collection<String> participantIds,
+                               Collection<String> childIds) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            linkRepository.saveAll(childIds.stream().map(studentId -> link(parentId, studentId, now)).toList());
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Could not record links of parent {}: {}", parentId, e.getMessage());
+        }
+        save(childIds.stream()
+                .filter(participantIds::contains)
+                .map(studentId -> grant(parentId, studentId, conversationId, now))
+                .toList());
+    }
+
+    @Async
+    public void onConversationCreated(Conversation conversation) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ParentConversationAccess> grants = new ArrayList<>();
+        try {
+            for (ParentStudentLink link : linkRepository.findByStudentIdIn(conversation.getParticipantIds())) {
+                if (!conversation.getParticipantIds().contains(link.getParentId())) {
+                    grants.add(grant(link.getParentId(), link.getStudentId(), conversation.getId(), now));
+                }
+            }
+        } catch (DataAccessException e) {
+            // Lazy backfill covers it on the parent's first access
+            log.warn("⚠️ Parent lookup for conversation {} failed: {}", conversation.getId(), e.getMessage());
+            return;
+        }
+        save(grants);
+        log.debug("🔐 Indexed {} parent grants for conversation {}", grants.size(), conversation.getId());
+    }
+
+    public void onLinked(String parentId, String studentId) {
+        index(parentId, studentId, LocalDateTime.now());
+        log.info("🔐 Parent {} linked to {}: grants indexed", parentId, studentId);
+    }
+
+    public void onUnlinked(String parentId, String studentId) {
+        linkRepository.deleteById(ParentStudentLink.key(parentId, studentId));
+        accessRepository.deleteByParentIdAndStudentId(parentId, studentId);
+        log.info("🔐 Parent {} unlinked from {}: grants removed", parentId, studentId);
+    }
+
+    public void onConversationDeleted(String conversationId) {
+        accessRepository.deleteByConversationId(conversationId);
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Reconciliation
+    // ─────────────────────────────────────────────────────────────
+
+    /**
+     * Re-check every known parent against auth-user-service: repairs grants missed while a
+     * node was down or an indexing write failed, and removes links whose unlink event was
+     * lost. An empty child list is skipped, since the Feign fallback returns one on failure.
+     */
+    @Scheduled(fixedDelayString = "${message.parent-access.reconcile-interval-ms:21600000}",
+            initialDelayString = "${message.parent-access.reconcile-initial-delay-ms:600000}")
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+
+        int parents = 0;
+        String after = "";
+        List<ParentStudentLink> page;
+        do {
+            page = linkRepository.findParentIdsAfter(after, PageRequest.of(0, RECONCILE_PAGE_SIZE));
+            Set<String> parentIds = new HashSet<>();
+            for (ParentStudentLink link : page) {
+                parentIds.add(link.getParentId());
+                after = link.getParentId();
+            }
+            for (String parentId : parentIds) {
+                try {
+                    reconcile(parentId);
+                    parents++;
+                } catch (Exception e) {
+                    log.warn("⚠️ Reconciliation of parent {} failed: {}", parentId, e.getMessage());
+                }
+            }
+        } while (page.size() == RECONCILE_PAGE_SIZE);
+
+        log.info("🔐 Reconciled parent access grants for {} parents", parents);
+    }
+
+    void reconcile(String parentId) {
+        List<String> childIds = parentServiceClient.getChildStudentIds(parentId);
+        if (childIds == null || childIds.isEmpty()) {
+            return;
+        }
+
+        for (ParentStudentLink link : linkRepository.findByParentId(parentId)) {
+            if (!childIds.contains(link.getStudentId())) {
+                onUnlinked(parentId, link.getStudentId());
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (String studentId : childIds) {
+            index(parentId, studentId, now);
+        }
+    }
+
+    private void index(String parentId, String studentId, LocalDateTime now) {
+        linkRepository.save(link(parentId, studentId, now));
+        save(conversationRepository.findByParticipantIdsIn(List.of(studentId)).stream()
+                .filter(conversation -> !conversation.getParticipantIds().contains(parentId))
+                .map(conversation -> grant(parentId, studentId, conversation.getId(), now))
+                .toList());
+    }
+
+    private void save(List<ParentConversationAccess> grants) {
+        if (grants.isEmpty()) {
+            return;
+        }
+        try {
+            accessRepository.saveAll(grants);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Could not index {} parent grants: {}", grants.size(), e.getMessage());
+        }
+    }
+
+    private static ParentStudentLink link(String parentId, String studentId, LocalDateTime now) {
+        return ParentStudentLink.builder()
+                .id(ParentStudentLink.key(parentId, studentId))
+                .parentId(parentId)
+                .studentId(studentId)
+                .linkedAt(now)
+                .build();
+    }
+
+    private static ParentConversationAccess grant(String parentId, String studentId, String conversationId,
+                                                  LocalDateTime now) {
+        return ParentConversationAccess.builder()
+                .id(ParentConversationAccess.key(parentId, conversationId))
+                .parentId(parentId)
+                .studentId(studentId)
+                .conversationId(conversationId)
+                .createdAt(now)
+                .build();
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("parent.access.lookups")
+                .description("Parent observer checks answered by the precomputed index")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,6 +1,5 @@
 package com.tcon.communication_service.messaging.service;
 
-import com.tcon.communication_service.client.ParentServiceClient;
 import com.tcon.communication_service.client.UserServiceClient;
 import com.tcon.communication_service.messaging.dto.ContactDto;
 import com.tcon.communication_service.messaging.entity.Conversation;
@@ -17,7 +16,7 @@ import java.util.*;
 public class ParentTeacherDirectoryService {
 
     private final ConversationRepository conversationRepository;
-    private final ParentServiceClient parentServiceClient;
+    private final ParentChildrenCache parentChildrenCache;
     private final UserServiceClient userServiceClient;
 
     /**
@@ -27,7 +26,7 @@ public class ParentTeacherDirectoryService {
         log.info("🔍 Fetching teachers for parent {}", parentId);
 
         // 1) child userIds for this parent (studentIds)
-        List<String> childIds = parentServiceClient.getChildStudentIds(parentId);
+        List<String> childIds = parentChildrenCache.getChildStudentIds(parentId);
         if (childIds == null || childIds.isEmpty()) {
             log.info("No children found for parent {}", parentId);
             return List.of();
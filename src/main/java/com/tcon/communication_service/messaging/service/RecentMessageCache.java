@@ -0,0 +1,66 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recent Message Cache
+ * Newest messages of each active conversation, kept write-through by MessageService so
+ * first-page reads skip Mongo. Backed by a per-node buffer (local) or by Redis shared
+ * across replicas (redis), selected with message.recent-cache.store.
+ */
+public interface RecentMessageCache {
+
+    String CACHE_NAME = "message.recent";
+
+    /**
+     * Maximum number of messages buffered per conversation.
+     */
+    int capacity();
+
+    /**
+     * Newest {@code size} messages of the conversation, or null if they are not all buffered.
+     * Returned DTOs are copies, safe to decorate with read state.
+     */
+    RecentPage getNewest(String conversationId, int size);
+
+    /**
+     * Token to pass to {@link #load}, taken before reading Mongo. Edits, deletes and read
+     * watermarks reported after it make that load stale.
+     */
+    long loadToken(String conversationId);
+
+    /**
+     * Seed a conversation's buffer from Mongo after a miss. Messages sent while the Mongo read
+     * was in flight (or still queued by write-behind) are merged in; the load is dropped if the
+     * token is stale, and the next read retries.
+     */
+    void load(String conversationId, long token, List<MessageDto> newestFirst, long total,
+              Map<String, ReadWatermark> readWatermarks);
+
+    // Write-through: sends to a conversation that is not buffered yet are kept for the next
+    // load, everything else only updates conversations already buffered
+
+    void onSent(MessageDto message);
+
+    void onUpdated(MessageDto message);
+
+    void onDeleted(String conversationId, String messageId);
+
+    void onRead(String conversationId, String userId, ReadWatermark watermark);
+
+    void invalidate(String conversationId);
+
+    void invalidateAll();
+
+    /**
+     * Buffered first page: newest-first content, whether older messages exist and the
+     * conversation's read watermarks to derive read state from.
+     */
+    record RecentPage(List<MessageDto> content, long total, boolean hasMore,
+                      Map<String, ReadWatermark> readWatermarks) {
+    }
+}
@@ -0,0 +1,453 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis Recent Message Cache (message.recent-cache.store=redis)
+ * Shared across replicas, so a send handled by one node is visible to first-page reads on all.
+ * Per conversation (the hash tag keeps all four keys in one cluster slot):
+ *   chat:recent:{id}       sorted set, member = message id, score = seq (createdAt epoch millis without one)
+ *   chat:recent:{id}:msgs  hash, message id -> compact JSON MessageDto
+ *   chat:recent:{id}:meta  hash, "total" -> non-deleted message count, "rw:<userId>" -> watermark JSON
+ *   chat:recent:{id}:gen   counter bumped by edits, deletes, reads and invalidation
+ * The meta hash marks the conversation as loaded and is only written by the load script.
+ * Sends to a conversation that is not loaded are still added to the sorted set and hash, and the
+ * load script merges those a replica's Mongo read could not see. A load whose token (the gen
+ * counter read before Mongo) no longer matches is dropped.
+ * Redis failures are logged and treated as misses, so reads fall back to Mongo.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "message.recent-cache.store", havingValue = "redis")
+public class RedisRecentMessageCache implements RecentMessageCache {
+
+    private static final String KEY_PREFIX = "chat:recent:";
+    private static final String TOTAL_FIELD = "total";
+    private static final String WATERMARK_FIELD_PREFIX = "rw:";
+
+    // KEYS: zset, msgs, meta  ARGV: id, score, json, capacity, ttl millis
+    private static final RedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>("""
+            local ttl = redis.call('PTTL', KEYS[3])
+            local loaded = ttl >= 0
+            if not loaded then ttl = ARGV[5] end
+            local added = redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[3])
+            if loaded and added == 1 then
+              redis.call('HINCRBY', KEYS[3], 'total', 1)
+            end
+            local overflow = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[4])
+            if overflow > 0 then
+              local evicted = redis.call('ZRANGE', KEYS[1], 0, overflow - 1)
+              redis.call('ZREMRANGEBYRANK', KEYS[1], 0, overflow - 1)
+              redis.call('HDEL', KEYS[2], unpack(evicted))
+            end
+            redis.call('PEXPIRE', KEYS[1], ttl)
+            redis.call('PEXPIRE', KEYS[2], ttl)
+            return 1
+            """, Long.class);
+
+    // KEYS: msgs, gen  ARGV: id, json, ttl millis
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[3])
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: zset, msgs, meta, gen  ARGV: id, ttl millis
+    private static final RedisScript<Long> DELETE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[4])
+            redis.call('PEXPIRE', KEYS[4], ARGV[2])
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            if redis.call('EXISTS', KEYS[3]) == 0 then return 0 end
+            if tonumber(redis.call('HGET', KEYS[3], 'total') or '0') > 0 then
+              redis.call('HINCRBY', KEYS[3], 'total', -1)
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS: meta, gen  ARGV: field, json, ttl millis
+    private static final RedisScript<Long> READ_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[3])
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: zset, msgs, meta, gen  ARGV: ttl millis
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+            redis.call('INCR', KEYS[4])
+            redis.call('PEXPIRE', KEYS[4], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: zset, msgs, meta, gen
+    // ARGV: token, ttl millis, capacity, total, complete (1 if the Mongo page holds every message),
+    //       oldest loaded score, n, then n x (id, score, json), then (watermark field, json) pairs.
+    // Members already in the sorted set that the Mongo read could not see (sent by any replica
+    // after it started, or not inserted yet) are kept, unless older than a full page.
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[4]) or '0') ~= ARGV[1] then return 0 end
+            local n = tonumber(ARGV[7])
+            local fromMongo = {}
+            for i = 0, n - 1 do fromMongo[ARGV[8 + i * 3]] = true end
+            local complete = ARGV[5] == '1'
+            local oldest = tonumber(ARGV[6])
+            local missing = {}
+            local existing = redis.call('ZRANGE', KEYS[1], 0, -1, 'WITHSCORES')
+            for i = 1, #existing, 2 do
+              local id = existing[i]
+              local score = existing[i + 1]
+              if not fromMongo[id] and (complete or tonumber(score) > oldest) then
+                local json = redis.call('HGET', KEYS[2], id)
+                if json then table.insert(missing, {id, score, json}) end
+              end
+            end
+            redis.call('DEL', KEYS[1], KEYS[2], KEYS[3])
+            for i = 0, n - 1 do
+              redis.call('ZADD', KEYS[1], ARGV[9 + i * 3], ARGV[8 + i * 3])
+              redis.call('HSET', KEYS[2], ARGV[8 + i * 3], ARGV[10 + i * 3])
+            end
+            for _, m in ipairs(missing) do
+              redis.call('ZADD', KEYS[1], m[2], m[1])
+              redis.call('HSET', KEYS[2], m[1], m[3])
+            end
+            local overflow = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[3])
+            if overflow > 0 then
+              local evicted = redis.call('ZRANGE', KEYS[1], 0, overflow - 1)
+              redis.call('ZREMRANGEBYRANK', KEYS[1], 0, overflow - 1)
+              redis.call('HDEL', KEYS[2], unpack(evicted))
+            end
+            redis.call('HSET', KEYS[3], 'total', tonumber(ARGV[4]) + #missing)
+            for i = 8 + n * 3, #ARGV, 2 do
+              redis.call('HSET', KEYS[3], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            redis.call('PEXPIRE', KEYS[3], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final Duration ttl;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RedisRecentMessageCache(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${message.recent-cache.messages-per-conversation:50}") int capacity,
+            @Value("${message.recent-cache.ttl:10m}") Duration ttl) {
+
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = compactObjectMapper();
+        this.capacity = capacity;
+        this.ttl = ttl;
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .register(meterRegistry);
+
+        log.info("🔧 Redis recent message cache: {} messages per conversation, ttl={}", capacity, ttl);
+    }
+
+    /**
+     * Non-null fields only, and full-precision ISO timestamps: the DTO's second-precision
+     * @JsonFormat patterns would break keyset cursors built from cached messages.
+     */
+    private static ObjectMapper compactObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public JsonFormat.Value findFormat(Annotated annotated) {
+                return JsonFormat.Value.empty();
+            }
+        });
+        return mapper;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public RecentPage getNewest(String conversationId, int size) {
+        try {
+            // Pipelined: newest ids, buffered count and meta; the documents follow in one HMGET
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    operations.opsForZSet().reverseRange(zsetKey(conversationId), 0, size - 1);
+                    operations.opsForZSet().zCard(zsetKey(conversationId));
+                    operations.opsForHash().entries(metaKey(conversationId));
+                    return null;
+                }
+            });
+
+            @SuppressWarnings("unchecked")
+            Set<String> ids = (Set<String>) results.get(0);
+            Long buffered = (Long) results.get(1);
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> meta = (Map<Object, Object>) results.get(2);
+
+            RecentPage page = toPage(conversationId, size, ids, buffered, meta);
+            (page != null ? hits : misses).increment();
+            return page;
+        } catch (DataAccessException | IllegalStateException e) {
+            log.warn("⚠️ Recent message cache read failed for {}: {}", conversationId, e.getMessage());
+            misses.increment();
+            return null;
+        }
+    }
+
+    private RecentPage toPage(String conversationId, int size, Set<String> ids, Long buffered,
+                              Map<Object, Object> meta) {
+        if (meta == null || !meta.containsKey(TOTAL_FIELD) || ids == null || buffered == null) {
+            return null;
+        }
+
+        long total = Long.parseLong((String) meta.get(TOTAL_FIELD));
+        boolean holdsAll = buffered >= total;
+        if (size > buffered && !holdsAll) {
+            return null;
+        }
+
+        List<String> idList = new ArrayList<>(ids);
+        List<Object> documents = idList.isEmpty() ? List.of()
+                : redisTemplate.opsForHash().multiGet(msgsKey(conversationId), new ArrayList<>(idList));
+
+        List<MessageDto> content = new ArrayList<>(documents.size());
+        for (Object document : documents) {
+            if (document == null) {
+                // Trimmed or deleted between the two reads
+                return null;
+            }
+            content.add(read((String) document, MessageDto.class));
+        }
+
+        Map<String, ReadWatermark> readWatermarks = new HashMap<>();
+        meta.forEach((field, value) -> {
+            String name = (String) field;
+            if (name.startsWith(WATERMARK_FIELD_PREFIX)) {
+                readWatermarks.put(name.substring(WATERMARK_FIELD_PREFIX.length()),
+                        read((String) value, ReadWatermark.class));
+            }
+        });
+
+        return new RecentPage(content, total, total > content.size(), readWatermarks);
+    }
+
+    @Override
+    public long loadToken(String conversationId) {
+        try {
+            String generation = redisTemplate.opsForValue().get(genKey(conversationId));
+            return generation != null ? Long.parseLong(generation) : 0;
+        } catch (DataAccessException e) {
+            // Never matches, so the load is skipped
+            return -1;
+        }
+    }
+
+    @Override
+    public void load(String conversationId, long token, List<MessageDto> newestFirst, long total,
+                     Map<String, ReadWatermark> readWatermarks) {
+        if (token < 0) {
+            return;
+        }
+        List<MessageDto> buffered = newestFirst.subList(0, Math.min(capacity, newestFirst.size()));
+        boolean complete = newestFirst.size() < capacity;
+        double oldestScore = buffered.isEmpty() ? 0 : score(buffered.get(buffered.size() - 1));
+
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(token));
+        args.add(String.valueOf(ttl.toMillis()));
+        args.add(String.valueOf(capacity));
+        args.add(String.valueOf(total));
+        args.add(complete ? "1" : "0");
+        args.add(String.valueOf(oldestScore));
+        args.add(String.valueOf(buffered.size()));
+        for (MessageDto dto : buffered) {
+            args.add(dto.getId());
+            args.add(String.valueOf(score(dto)));
+            args.add(write(dto));
+        }
+        if (readWatermarks != null) {
+            readWatermarks.forEach((userId, watermark) -> {
+                args.add(WATERMARK_FIELD_PREFIX + userId);
+                args.add(write(watermark));
+            });
+        }
+
+        try {
+            Long stored = redisTemplate.execute(LOAD_SCRIPT, keys(conversationId), args.toArray());
+            if (stored == null || stored == 0) {
+                log.debug("Dropped stale recent-message load for {}", conversationId);
+            }
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Recent message cache load failed for {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Write-through (scripts are atomic and skip conversations that are not loaded)
+    // ─────────────────────────────────────────────────────────────
+
+    @Override
+    public void onSent(MessageDto message) {
+        String conversationId = message.getConversationId();
+        run(conversationId, ADD_SCRIPT, List.of(zsetKey(conversationId), msgsKey(conversationId),
+                        metaKey(conversationId)),
+                message.getId(), String.valueOf(score(message)), write(message), String.valueOf(capacity),
+                String.valueOf(ttl.toMillis()));
+    }
+
+    @Override
+    public void onUpdated(MessageDto message) {
+        String conversationId = message.getConversationId();
+        run(conversationId, UPDATE_SCRIPT, List.of(msgsKey(conversationId), genKey(conversationId)),
+                message.getId(), write(message), String.valueOf(ttl.toMillis()));
+    }
+
+    @Override
+    public void onDeleted(String conversationId, String messageId) {
+        run(conversationId, DELETE_SCRIPT, keys(conversationId), messageId, String.valueOf(ttl.toMillis()));
+    }
+
+    /**
+     * Callers only report watermarks that already advanced in Mongo, so a plain overwrite is safe.
+     */
+    @Override
+    public void onRead(String conversationId, String userId, ReadWatermark watermark) {
+        run(conversationId, READ_SCRIPT, List.of(metaKey(conversationId), genKey(conversationId)),
+                WATERMARK_FIELD_PREFIX + userId, write(watermark), String.valueOf(ttl.toMillis()));
+    }
+
+    @Override
+    public void invalidate(String conversationId) {
+        try {
+            redisTemplate.execute(INVALIDATE_SCRIPT, keys(conversationId), String.valueOf(ttl.toMillis()));
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Recent message cache invalidation failed for {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(500).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>();
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == 500) {
+                    redisTemplate.delete(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                redisTemplate.delete(batch);
+            }
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Recent message cache flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void run(String conversationId, RedisScript<Long> script, List<String> keys, String... args) {
+        try {
+            redisTemplate.execute(script, keys, (Object[]) args);
+        } catch (DataAccessException e) {
+            // A missed write-through must not leave a stale buffer behind
+            log.warn("⚠️ Recent message cache update failed for {}: {}", conversationId, e.getMessage());
+            invalidate(conversationId);
+        }
+    }
+
+    private static List<String> keys(String conversationId) {
+        return List.of(zsetKey(conversationId), msgsKey(conversationId), metaKey(conversationId),
+                genKey(conversationId));
+    }
+
+    private static String zsetKey(String conversationId) {
+        return KEY_PREFIX + "{" + conversationId + "}";
+    }
+
+    private static String msgsKey(String conversationId) {
+        return zsetKey(conversationId) + ":msgs";
+    }
+
+    private static String metaKey(String conversationId) {
+        return zsetKey(conversationId) + ":meta";
+    }
+
+    private static String genKey(String conversationId) {
+        return zsetKey(conversationId) + ":gen";
+    }
+
+    private static double score(MessageDto message) {
+        if (message.getSeq() != null) {
+            return message.getSeq();
+        }
+        LocalDateTime createdAt = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+        return createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize " + type.getSimpleName(), e);
+        }
+    }
+}
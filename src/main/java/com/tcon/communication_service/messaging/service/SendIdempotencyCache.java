@@ -0,0 +1,104 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Send Idempotency Cache
+ * Short-lived map of (senderId:idempotencyKey) -> message id, so retried sends are answered
+ * without touching Mongo. With message.idempotency.store=redis the entries are shared across
+ * replicas (chat:idem:{key}); the in-memory tier is always consulted first and takes over when
+ * Redis is unavailable. Anything missed here is still caught by the unique index on
+ * Message.idempotencyKey.
+ */
+@Slf4j
+@Component
+public class SendIdempotencyCache {
+
+    private static final String CACHE_NAME = "message.idempotency";
+    private static final String KEY_PREFIX = "chat:idem:";
+
+    private final Cache<String, String> local;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean redisEnabled;
+    private final Duration ttl;
+
+    public SendIdempotencyCache(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${message.idempotency.store:local}") String store,
+            @Value("${message.idempotency.max-size:100000}") long maxSize,
+            @Value("${message.idempotency.ttl:10m}") Duration ttl) {
+
+        this.redisTemplate = redisTemplate;
+        this.redisEnabled = "redis".equalsIgnoreCase(store);
+        this.ttl = ttl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+        log.info("🔧 Send idempotency cache: store={}, ttl={}", redisEnabled ? "redis" : "local", ttl);
+    }
+
+    /**
+     * @return id of the message already created for this key, or null
+     */
+    public String get(String scopedKey) {
+        String messageId = local.getIfPresent(scopedKey);
+        if (messageId != null || !redisEnabled) {
+            return messageId;
+        }
+
+        try {
+            messageId = redisTemplate.opsForValue().get(KEY_PREFIX + scopedKey);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Idempotency lookup failed, using local tier: {}", e.getMessage());
+            return null;
+        }
+        if (messageId != null) {
+            local.put(scopedKey, messageId);
+        }
+        return messageId;
+    }
+
+    public void put(String scopedKey, String messageId) {
+        local.put(scopedKey, messageId);
+        if (!redisEnabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + scopedKey, messageId, ttl);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Idempotency write failed, kept locally: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forget a key whose message was never stored, so a retry sends again instead of replaying.
+     */
+    public void invalidate(String scopedKey) {
+        local.invalidate(scopedKey);
+        if (!redisEnabled) {
+            return;
+        }
+
+        try {
+            redisTemplate.delete(KEY_PREFIX + scopedKey);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Idempotency invalidation failed for {}: {}", scopedKey, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.dto.SyncResponseDto;
+import com.tcon.communication_service.messaging.dto.SyncToken;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sync Service
+ * "What changed since T" across all of a user's conversations, driven by the updatedAt
+ * fields of Message and Conversation (conversation_sync_idx / participant_sync_idx).
+ * Changes newer than now - safety-lag are held back to the next call, so writes that commit
+ * slightly out of timestamp order (or on a node with a lagging clock) are not skipped.
+ */
+@Slf4j
+@Service
+public class SyncService {
+
+    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final MessageMapper messageMapper;
+    private final ConversationMapper conversationMapper;
+    private final int maxBatch;
+    private final Duration safetyLag;
+
+    public SyncService(
+            MessageRepository messageRepository,
+            ConversationRepository conversationRepository,
+            MessageMapper messageMapper,
+            ConversationMapper conversationMapper,
+            @Value("${message.sync.max-batch:200}") int maxBatch,
+            @Value("${message.sync.safety-lag:5s}") Duration safetyLag) {
+
+        this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
+        this.messageMapper = messageMapper;
+        this.conversationMapper = conversationMapper;
+        this.maxBatch = maxBatch;
+        this.safetyLag = safetyLag;
+    }
+
+    /**
+     * @param since token from a previous call, or null to obtain a starting token
+     *              (to be taken right after a full load)
+     */
+    public SyncResponseDto sync(String userId, String since) {
+        // Tokens carry millisecond precision, like the stored timestamps
+        LocalDateTime horizon = LocalDateTime.now().minus(safetyLag).truncatedTo(ChronoUnit.MILLIS);
+
+        if (since == null || since.isBlank()) {
+            return SyncResponseDto.builder()
+                    .messages(List.of())
+                    .conversations(List.of())
+                    .nextToken(SyncToken.at(horizon).encode())
+                    .hasMore(false)
+                    .build();
+        }
+
+        SyncToken token = SyncToken.decode(since);
+        SyncToken next = new SyncToken(token.getMessagesAt(), token.getMessageId(),
+                token.getConversationsAt(), token.getConversationId());
+
+        // Conversation feed
+        List<Conversation> conversations = List.of();
+        boolean moreConversations = false;
+        if (horizon.isAfter(token.getConversationsAt())) {
+            conversations = conversationRepository.findChangedSince(userId, token.getConversationsAt(),
+                    token.getConversationId(), horizon, maxBatch + 1);
+            moreConversations = conversations.size() > maxBatch;
+            if (moreConversations) {
+                conversations = conversations.subList(0, maxBatch);
+                Conversation last = conversations.get(conversations.size() - 1);
+                next.setConversationsAt(last.getUpdatedAt());
+                next.setConversationId(last.getId());
+            } else {
+                next.setConversationsAt(horizon);
+                next.setConversationId(null);
+            }
+        }
+
+        // Message feed
+        List<Message> messages = List.of();
+        boolean moreMessages = false;
+        if (horizon.isAfter(token.getMessagesAt())) {
+            List<String> conversationIds = conversationRepository.findIdsByParticipantId(userId).stream()
+                    .map(Conversation::getId)
+                    .toList();
+            if (!conversationIds.isEmpty()) {
+                messages = messageRepository.findChangedSince(conversationIds, token.getMessagesAt(),
+                        token.getMessageId(), horizon, maxBatch + 1);
+            }
+            moreMessages = messages.size() > maxBatch;
+            if (moreMessages) {
+                messages = messages.subList(0, maxBatch);
+                Message last = messages.get(messages.size() - 1);
+                next.setMessagesAt(last.getUpdatedAt());
+                next.setMessageId(last.getId());
+            } else {
+                next.setMessagesAt(horizon);
+                next.setMessageId(null);
+            }
+        }
+
+        log.debug("🔄 Sync for {}: {} messages, {} conversations", userId, messages.size(), conversations.size());
+        return SyncResponseDto.builder()
+                .messages(toMessageDtos(messages))
+                .conversations(conversations.stream().map(conv -> conversationMapper.toDto(conv, userId)).toList())
+                .nextToken(next.encode())
+                .hasMore(moreMessages || moreConversations)
+                .build();
+    }
+
+    private List<MessageDto> toMessageDtos(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> conversationIds = messages.stream().map(Message::getConversationId).distinct().toList();
+        Map<String, Map<String, ReadWatermark>> watermarks = new HashMap<>();
+        for (Conversation conversation : conversationRepository.findReadWatermarksByIdIn(conversationIds)) {
+            watermarks.put(conversation.getId(), conversation.getReadWatermarks());
+        }
+
+        return messages.stream()
+                .map(message -> messageMapper.toDto(message, watermarks.get(message.getConversationId())))
+                .toList();
+    }
+}
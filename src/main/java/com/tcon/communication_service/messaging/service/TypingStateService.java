@@ -0,0 +1,132 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.TypingIndicatorDto;
+import com.tcon.communication_service.messaging.entity.TypingIndicator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typing State Service
+ * Per-conversation typing state: repeated "typing" indicators from a user only refresh
+ * lastActiveAt, and /topic/typing/{id} receives a frame only on a start or stop transition.
+ * A user who stops sending indicators is stopped after message.typing-indicator-timeout-seconds.
+ * Every frame carries the current typingUserIds / typingCount for "N people are typing".
+ * State is per node; in redis broker mode the transitions reach every node, but the
+ * aggregate only lists typists whose indicators arrived on the emitting node.
+ */
+@Slf4j
+@Service
+public class TypingStateService {
+
+    private final Map<String, Map<String, TypingIndicator>> conversations = new ConcurrentHashMap<>();
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Duration timeout;
+    private final Counter received;
+    private final Counter emitted;
+
+    public TypingStateService(
+            SimpMessagingTemplate messagingTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${message.typing-indicator-timeout-seconds:5}") long timeoutSeconds) {
+
+        this.messagingTemplate = messagingTemplate;
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.received = Counter.builder("message.typing.indicators")
+                .description("Typing indicators received from clients")
+                .register(meterRegistry);
+        this.emitted = Counter.builder("message.typing.frames")
+                .description("Typing transitions broadcast to subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Apply a client indicator; broadcasts only if it changes the user's state.
+     */
+    public void onIndicator(String conversationId, String userId, boolean typing) {
+        received.increment();
+        if (typing) {
+            start(conversationId, userId);
+        } else {
+            stop(conversationId, userId);
+        }
+    }
+
+    /**
+     * Stop the user's indicator, e.g. because their message was just sent.
+     */
+    public void stop(String conversationId, String userId) {
+        Map<String, TypingIndicator> typists = conversations.get(conversationId);
+        if (typists != null && typists.remove(userId) != null) {
+            conversations.computeIfPresent(conversationId, (id, current) -> current.isEmpty() ? null : current);
+            broadcast(conversationId, userId, false, typists);
+        }
+    }
+
+    private void start(String conversationId, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean[] started = {false};
+        Map<String, TypingIndicator> typists = conversations.compute(conversationId, (id, current) -> {
+            Map<String, TypingIndicator> map = current != null ? current : new ConcurrentHashMap<>();
+            map.compute(userId, (user, indicator) -> {
+                if (indicator == null) {
+                    started[0] = true;
+                    return TypingIndicator.builder().userId(user).startedAt(now).lastActiveAt(now).build();
+                }
+                indicator.setLastActiveAt(now);
+                return indicator;
+            });
+            return map;
+        });
+
+        if (started[0]) {
+            broadcast(conversationId, userId, true, typists);
+        }
+    }
+
+    /**
+     * Expire typists whose last indicator is older than the timeout.
+     */
+    @Scheduled(fixedDelayString = "${message.typing-sweep-interval-ms:1000}")
+    public void expireIdle() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(timeout);
+        conversations.forEach((conversationId, typists) -> typists.values().stream()
+                .filter(indicator -> indicator.getLastActiveAt().isBefore(cutoff))
+                .map(TypingIndicator::getUserId)
+                .toList()
+                .forEach(userId -> {
+                    log.debug("⌛ Typing expired for {} in {}", userId, conversationId);
+                    stop(conversationId, userId);
+                }));
+    }
+
+    private void broadcast(String conversationId, String userId, boolean typing,
+                           Map<String, TypingIndicator> typists) {
+        List<String> typingUserIds = typists.values().stream()
+                .sorted(Comparator.comparing(TypingIndicator::getStartedAt))
+                .map(TypingIndicator::getUserId)
+                .toList();
+
+        TypingIndicatorDto frame = TypingIndicatorDto.builder()
+                .conversationId(conversationId)
+                .userId(userId)
+                .isTyping(typing)
+                .typingUserIds(typingUserIds)
+                .typingCount(typingUserIds.size())
+                .build();
+
+        messagingTemplate.convertAndSend("/topic/typing/" + conversationId, frame);
+        emitted.increment();
+    }
+}
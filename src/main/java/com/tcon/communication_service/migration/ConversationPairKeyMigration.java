@@ -0,0 +1,165 @@
+package com.tcon.communication_service.migration;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AccumulatorOperators;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Conversation pairKey backfill
+ * Sets Conversation.pairKey on every two-party conversation and merges duplicates
+ * (same participants + type) created before pair_key_uidx existed: messages are
+ * re-pointed to the surviving conversation, unread counters are summed and the
+ * most recent last-message preview is kept. Pairs are found with an aggregation, so only
+ * the conversations of duplicated pairs are loaded; the rest get their key in bulk writes.
+ */
+@Slf4j
+@ChangeUnit(id = "conversation-pair-key-backfill", order = "001", author = "communication-service")
+public class ConversationPairKeyMigration {
+
+    private static final String PAIR_KEY_INDEX = "pair_key_uidx";
+    private static final int BULK_SIZE = 1000;
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate) {
+        // Two-party conversations grouped by (type, participant pair) in Mongo; $min/$max of the
+        // two ids make the pair order-independent. Ids are pushed oldest first.
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("type").ne(null)
+                        .and("participantIds.1").exists(true)
+                        .and("participantIds.2").exists(false)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "createdAt")),
+                Aggregation.project("type")
+                        .and(AccumulatorOperators.Min.minOf("participantIds")).as("low")
+                        .and(AccumulatorOperators.Max.maxOf("participantIds")).as("high"),
+                Aggregation.group("type", "low", "high")
+                        .push("_id").as("ids")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        int pairs = 0;
+        int merged = 0;
+        BulkOperations keys = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Conversation.class);
+        int pendingKeys = 0;
+
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(aggregation,
+                mongoTemplate.getCollectionName(Conversation.class), Document.class)) {
+            for (Document row : (Iterable<Document>) rows::iterator) {
+                Document key = row.get("_id", Document.class);
+                String pairKey = Conversation.pairKey(key.getString("type"),
+                        List.of(key.getString("low"), key.getString("high")));
+                List<?> ids = row.getList("ids", Object.class);
+                pairs++;
+
+                if (ids.size() == 1) {
+                    keys.updateOne(Query.query(Criteria.where("_id").is(ids.get(0))),
+                            new Update().set("pairKey", pairKey));
+                    if (++pendingKeys == BULK_SIZE) {
+                        keys.execute();
+                        keys = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Conversation.class);
+                        pendingKeys = 0;
+                    }
+                    continue;
+                }
+
+                // Only duplicated pairs are loaded
+                List<Conversation> group = mongoTemplate.find(Query.query(Criteria.where("_id").in(ids))
+                        .with(Sort.by(Sort.Direction.ASC, "createdAt")), Conversation.class);
+                merged += backfill(mongoTemplate, pairKey, group);
+            }
+        }
+        if (pendingKeys > 0) {
+            keys.execute();
+        }
+
+        log.info("✅ pairKey backfilled on {} conversations, {} duplicates merged", pairs, merged);
+
+        // Duplicates are gone now, so the unique index can always be built, whether or not
+        // annotated indexes are created at startup
+        mongoTemplate.indexOps(Conversation.class).ensureIndex(new Index()
+                .on("pairKey", Sort.Direction.ASC)
+                .named(PAIR_KEY_INDEX)
+                .unique()
+                .sparse());
+    }
+
+    private int backfill(MongoTemplate mongoTemplate, String pairKey, List<Conversation> group) {
+        // Prefer a document that already carries the key, otherwise the oldest one
+        Conversation survivor = group.stream()
+                .filter(conv -> pairKey.equals(conv.getPairKey()))
+                .findFirst()
+                .orElse(group.get(0));
+
+        Update update = new Update().set("pairKey", pairKey);
+
+        if (group.size() > 1) {
+            Map<String, Integer> unreadCounts = new HashMap<>();
+            Conversation latest = survivor;
+
+            for (Conversation conv : group) {
+                if (conv.getUnreadCounts() != null) {
+                    conv.getUnreadCounts().forEach((userId, count) -> unreadCounts.merge(userId, count, Integer::sum));
+                }
+                if (isMoreRecent(conv, latest)) {
+                    latest = conv;
+                }
+                if (!conv.getId().equals(survivor.getId())) {
+                    mongoTemplate.updateMulti(
+                            Query.query(Criteria.where("conversationId").is(conv.getId())),
+                            new Update().set("conversationId", survivor.getId()),
+                            Message.class);
+                    mongoTemplate.remove(Query.query(Criteria.where("_id").is(conv.getId())), Conversation.class);
+                }
+            }
+
+            update.set("unreadCounts", unreadCounts)
+                    .set("lastMessageId", latest.getLastMessageId())
+                    .set("lastMessageContent", latest.getLastMessageContent())
+                    .set("lastMessageSenderId", latest.getLastMessageSenderId())
+                    .set("lastMessageAt", latest.getLastMessageAt())
+                    .set("updatedAt", LocalDateTime.now());
+
+            log.info("🔀 Merged {} duplicate conversations into {} ({})", group.size() - 1, survivor.getId(), pairKey);
+        }
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(survivor.getId())), update, Conversation.class);
+        return group.size() - 1;
+    }
+
+    private boolean isMoreRecent(Conversation candidate, Conversation current) {
+        Comparator<LocalDateTime> nullsFirst = Comparator.nullsFirst(Comparator.naturalOrder());
+        return nullsFirst.compare(candidate.getLastMessageAt(), current.getLastMessageAt()) > 0;
+    }
+
+    /**
+     * Only the derived key and its index can be removed; merged duplicates are not restored.
+     */
+    @RollbackExecution
+    public void rollback(MongoTemplate mongoTemplate) {
+        IndexOperations indexOps = mongoTemplate.indexOps(Conversation.class);
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> PAIR_KEY_INDEX.equals(index.getName()))) {
+            indexOps.dropIndex(PAIR_KEY_INDEX);
+        }
+        mongoTemplate.updateMulti(new Query(), new Update().unset("pairKey"), Conversation.class);
+    }
+}
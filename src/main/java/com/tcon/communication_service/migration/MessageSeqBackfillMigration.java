@@ -0,0 +1,79 @@
+package com.tcon.communication_service.migration;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+/**
+ * Message seq backfill
+ * Numbers the messages written before Message.seq existed, per conversation in
+ * (createdAt, _id) order, below the live counter: the newest gets 0, older ones count down.
+ * Sends reserve seq from Conversation.messageSeq starting at 1, so the two ranges never
+ * collide and history stays ordered before anything sent by this version, whichever
+ * runs first. Messages still written without a seq by older nodes while the rollout is in
+ * progress are numbered by the send path (ConversationService.nextMessageSeq).
+ * Also drops conversation_keyset_idx, replaced by conversation_seq_uidx.
+ */
+@Slf4j
+@ChangeUnit(id = "message-seq-backfill", order = "003", author = "communication-service")
+public class MessageSeqBackfillMigration {
+
+    private static final String LEGACY_KEYSET_INDEX = "conversation_keyset_idx";
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate) {
+        Query unnumbered = Query.query(Criteria.where("seq").exists(false));
+        List<String> conversationIds = mongoTemplate.findDistinct(unnumbered, "conversationId",
+                Message.class, String.class);
+
+        long numbered = 0;
+        for (String conversationId : conversationIds) {
+            numbered += backfill(mongoTemplate, conversationId);
+        }
+
+        if (mongoTemplate.indexOps(Message.class).getIndexInfo().stream()
+                .anyMatch(index -> LEGACY_KEYSET_INDEX.equals(index.getName()))) {
+            mongoTemplate.indexOps(Message.class).dropIndex(LEGACY_KEYSET_INDEX);
+        }
+
+        log.info("✅ seq backfilled on {} messages in {} conversations", numbered, conversationIds.size());
+    }
+
+    private long backfill(MongoTemplate mongoTemplate, String conversationId) {
+        Query query = Query.query(Criteria.where("conversationId").is(conversationId).and("seq").exists(false))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt").and(Sort.by(Sort.Direction.ASC, "_id")));
+        query.fields().include("_id");
+        List<Document> messages = mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(Message.class));
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        long next = 1 - messages.size();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class);
+        for (Document message : messages) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(message.get("_id")).and("seq").exists(false)),
+                    new Update().set("seq", next++));
+        }
+        bulk.execute();
+        return messages.size();
+    }
+
+    @RollbackExecution
+    public void rollback(MongoTemplate mongoTemplate) {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("seq"), Message.class);
+        mongoTemplate.updateMulti(new Query(), new Update().unset("messageSeq"), Conversation.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.tcon.communication_service.migration;
+
+import com.tcon.communication_service.messaging.entity.ParentConversationAccess;
+import com.tcon.communication_service.messaging.entity.ParentStudentLink;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parent/student link backfill
+ * Seeds parent_student_links from the (parentId, studentId) pairs of the grants already in
+ * parent_conversation_access, so new conversations get their parents' grants without a
+ * reverse lookup. Also makes the existing grants permanent: drops grant_ttl_idx and the
+ * expiresAt field it expired them on.
+ */
+@Slf4j
+@ChangeUnit(id = "parent-student-link-backfill", order = "004", author = "communication-service")
+public class ParentStudentLinkBackfillMigration {
+
+    private static final String GRANT_TTL_INDEX = "grant_ttl_idx";
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate) {
+        if (mongoTemplate.indexOps(ParentConversationAccess.class).getIndexInfo().stream()
+                .anyMatch(index -> GRANT_TTL_INDEX.equals(index.getName()))) {
+            mongoTemplate.indexOps(ParentConversationAccess.class).dropIndex(GRANT_TTL_INDEX);
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("expiresAt").exists(true)),
+                new Update().unset("expiresAt"), ParentConversationAccess.class);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("parentId", "studentId")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        LocalDateTime now = LocalDateTime.now();
+        int seeded = 0;
+        for (Document row : mongoTemplate.aggregate(aggregation, ParentConversationAccess.class, Document.class)) {
+            Document key = row.get("_id", Document.class);
+            String parentId = key.getString("parentId");
+            String studentId = key.getString("studentId");
+            if (parentId == null || studentId == null) {
+                continue;
+            }
+
+            seeded += mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(ParentStudentLink.key(parentId, studentId))),
+                    new Update().setOnInsert("parentId", parentId)
+                            .setOnInsert("studentId", studentId)
+                            .setOnInsert("linkedAt", now),
+                    ParentStudentLink.class).getUpsertedId() != null ? 1 : 0;
+        }
+
+        log.info("✅ Seeded {} parent/student links from parent access grants", seeded);
+    }
+
+    @RollbackExecution
+    public void rollback(MongoTemplate mongoTemplate) {
+        mongoTemplate.dropCollection(ParentStudentLink.class);
+    }
+}
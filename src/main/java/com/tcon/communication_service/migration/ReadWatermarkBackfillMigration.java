@@ -0,0 +1,78 @@
+package com.tcon.communication_service.migration;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.MessageStatus;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Read watermark backfill
+ * Seeds Conversation.readWatermarks from the per-message READ status written before
+ * watermarks existed: for every (conversation, receiver) the newest READ message becomes
+ * the watermark. Existing watermarks are never overwritten.
+ */
+@Slf4j
+@ChangeUnit(id = "read-watermark-backfill", order = "002", author = "communication-service")
+public class ReadWatermarkBackfillMigration {
+
+    @Execution
+    public void execute(MongoTemplate mongoTemplate) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").is(MessageStatus.READ.name())),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "createdAt")),
+                Aggregation.group("conversationId", "receiverId")
+                        .first("_id").as("lastReadMessageId")
+                        .first("createdAt").as("lastReadAt")
+                        .max("readAt").as("readAt")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        int seeded = 0;
+        for (Document row : mongoTemplate.aggregate(aggregation, Message.class, Document.class)) {
+            Document key = row.get("_id", Document.class);
+            String conversationId = key.getString("conversationId");
+            String receiverId = key.getString("receiverId");
+            if (conversationId == null || receiverId == null) {
+                continue;
+            }
+
+            String field = "readWatermarks." + receiverId;
+            ReadWatermark watermark = ReadWatermark.builder()
+                    .lastReadMessageId(String.valueOf(row.get("lastReadMessageId")))
+                    .lastReadAt(toLocalDateTime(row.getDate("lastReadAt")))
+                    .readAt(toLocalDateTime(row.getDate("readAt")))
+                    .build();
+
+            seeded += (int) mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(conversationId).and(field).exists(false)),
+                    new Update().set(field, watermark),
+                    Conversation.class).getModifiedCount();
+        }
+
+        log.info("✅ Seeded {} read watermarks from per-message READ status", seeded);
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+
+    @RollbackExecution
+    public void rollback(MongoTemplate mongoTemplate) {
+        mongoTemplate.updateMulti(new Query(), new Update().unset("readWatermarks"), Conversation.class);
+    }
+}
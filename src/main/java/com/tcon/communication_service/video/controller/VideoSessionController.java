@@ -7,6 +7,7 @@ import com.tcon.communication_service.video.dto.RoomJoinResponse;
 import com.tcon.communication_service.video.dto.VideoSessionDto;
 import com.tcon.communication_service.video.entity.ParticipantRole;
 import com.tcon.communication_service.video.service.VideoSessionService;
+import com.tcon.communication_service.websocket.PresenceRegistry;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +29,7 @@ public class VideoSessionController {
     private final VideoSessionService videoSessionService;
     private final ObjectMapper objectMapper;
     private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceRegistry presenceRegistry;
 
     // ==================== CREATE ROOM ====================
 
@@ -199,6 +201,11 @@ public class VideoSessionController {
 
         validateTeacherForSession(msg.getSessionId());
 
+        if (!presenceRegistry.isOnline(msg.getTargetUserId())) {
+            log.info("💤 Host control target {} is offline, skipped", msg.getTargetUserId());
+            return;
+        }
+
         messagingTemplate.convertAndSendToUser(
                 msg.getTargetUserId(),
                 "/queue/host-control",
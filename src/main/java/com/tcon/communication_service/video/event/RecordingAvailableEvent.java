@@ -0,0 +1,24 @@
+package com.tcon.communication_service.video.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * RECORDING_AVAILABLE v1
+ */
+@Builder
+public record RecordingAvailableEvent(
+        String sessionId,
+        String classSessionId,
+        String teacherId,
+        String studentId,
+        String recordingUrl,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return sessionId;
+    }
+}
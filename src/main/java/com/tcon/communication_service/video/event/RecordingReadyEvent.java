@@ -0,0 +1,24 @@
+package com.tcon.communication_service.video.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+/**
+ * RECORDING_READY v1, published on session-events for the booking / course services
+ */
+@Builder
+public record RecordingReadyEvent(
+        String sessionId,
+        String bookingId,
+        String classSessionId,
+        String teacherId,
+        String studentId,
+        String channelName,
+        String recordingUrl,
+        Integer durationMinutes) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return sessionId;
+    }
+}
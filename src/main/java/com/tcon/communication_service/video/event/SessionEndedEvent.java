@@ -0,0 +1,24 @@
+package com.tcon.communication_service.video.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * SESSION_ENDED v1
+ */
+@Builder
+public record SessionEndedEvent(
+        String sessionId,
+        String classSessionId,
+        String teacherId,
+        String studentId,
+        Integer actualDurationMinutes,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return sessionId;
+    }
+}
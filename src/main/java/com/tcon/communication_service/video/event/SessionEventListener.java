@@ -26,7 +26,13 @@ public class SessionEventListener {
 
     @KafkaListener(topics = "session-events", groupId = "communication-service")
     @Transactional
-    public void handleSessionEvent(Map<String, Object> event) {
+    @SuppressWarnings("unchecked")
+    public void handleSessionEvent(Object payload) {
+        if (!(payload instanceof Map)) {
+            // Our own typed events on this topic (RECORDING_READY) are for other services
+            return;
+        }
+        Map<String, Object> event = (Map<String, Object>) payload;
         String eventType = (String) event.get("eventType");
         log.info("📨 Received session event: {}", eventType);
 
@@ -0,0 +1,23 @@
+package com.tcon.communication_service.video.event;
+
+import com.tcon.communication_service.event.DomainEvent;
+import lombok.Builder;
+
+import java.time.Instant;
+
+/**
+ * SESSION_STARTED v1
+ */
+@Builder
+public record SessionStartedEvent(
+        String sessionId,
+        String classSessionId,
+        String teacherId,
+        String studentId,
+        Instant timestamp) implements DomainEvent {
+
+    @Override
+    public String partitionKey() {
+        return sessionId;
+    }
+}
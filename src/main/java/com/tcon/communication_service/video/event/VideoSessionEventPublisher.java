@@ -1,5 +1,7 @@
 package com.tcon.communication_service.video.event;
 
+import com.tcon.communication_service.event.DomainEvent;
+import com.tcon.communication_service.event.service.EventOutbox;
 import com.tcon.communication_service.video.entity.VideoSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,12 +9,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Instant;
 
 /**
  * Video Session Event Publisher
- * Publishes video session events to Kafka
+ * Publishes typed video session events to Kafka, keyed by session id
+ * (through EventOutbox when message.outbox.enabled)
  *
  * @author Senior Developer
  * @version 1.0.0
@@ -23,42 +25,52 @@ import java.util.Map;
 public class VideoSessionEventPublisher {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventOutbox eventOutbox;
 
     @Value("${spring.kafka.topics.video-session-events}")
     private String topicName;
 
     public void publishSessionStarted(VideoSession session) {
-        Map<String, Object> event = createBaseEvent("SESSION_STARTED", session);
-        publish(event);
+        publish(SessionStartedEvent.builder()
+                .sessionId(session.getId())
+                .classSessionId(session.getClassSessionId())
+                .teacherId(session.getTeacherId())
+                .studentId(session.getStudentId())
+                .timestamp(Instant.now())
+                .build());
     }
 
     public void publishSessionEnded(VideoSession session) {
-        Map<String, Object> event = createBaseEvent("SESSION_ENDED", session);
-        event.put("actualDurationMinutes", session.getActualDurationMinutes());
-        publish(event);
+        publish(SessionEndedEvent.builder()
+                .sessionId(session.getId())
+                .classSessionId(session.getClassSessionId())
+                .teacherId(session.getTeacherId())
+                .studentId(session.getStudentId())
+                .actualDurationMinutes(session.getActualDurationMinutes())
+                .timestamp(Instant.now())
+                .build());
     }
 
     public void publishRecordingAvailable(VideoSession session) {
-        Map<String, Object> event = createBaseEvent("RECORDING_AVAILABLE", session);
-        event.put("recordingUrl", session.getRecordingUrl());
-        publish(event);
+        publish(RecordingAvailableEvent.builder()
+                .sessionId(session.getId())
+                .classSessionId(session.getClassSessionId())
+                .teacherId(session.getTeacherId())
+                .studentId(session.getStudentId())
+                .recordingUrl(session.getRecordingUrl())
+                .timestamp(Instant.now())
+                .build());
     }
 
-    private Map<String, Object> createBaseEvent(String eventType, VideoSession session) {
-        Map<String, Object> event = new HashMap<>();
-        event.put("eventType", eventType);
-        event.put("sessionId", session.getId());
-        event.put("classSessionId", session.getClassSessionId());
-        event.put("teacherId", session.getTeacherId());
-        event.put("studentId", session.getStudentId());
-        event.put("timestamp", java.time.Instant.now());
-        return event;
-    }
+    private void publish(DomainEvent event) {
+        if (eventOutbox.isEnabled()) {
+            eventOutbox.append(topicName, event);
+            return;
+        }
 
-    private void publish(Map<String, Object> event) {
         try {
-            kafkaTemplate.send(topicName, event);
-            log.info("Published video session event: {}", event.get("eventType"));
+            kafkaTemplate.send(topicName, event.partitionKey(), event);
+            log.info("Published video session event: {}", event.getClass().getSimpleName());
         } catch (Exception e) {
             log.error("Error publishing video session event: {}", e.getMessage(), e);
         }
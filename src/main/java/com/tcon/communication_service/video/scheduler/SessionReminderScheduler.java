@@ -3,6 +3,7 @@ package com.tcon.communication_service.video.scheduler;
 import com.tcon.communication_service.video.entity.SessionStatus;
 import com.tcon.communication_service.video.entity.VideoSession;
 import com.tcon.communication_service.video.repository.VideoSessionRepository;
+import com.tcon.communication_service.websocket.PresenceRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -27,6 +28,7 @@ public class SessionReminderScheduler {
 
     private final VideoSessionRepository videoSessionRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceRegistry presenceRegistry;
 
     /**
      * Check every minute for upcoming sessions
@@ -96,9 +98,13 @@ public class SessionReminderScheduler {
     }
 
     /**
-     * Send reminder to a specific user via WebSocket
+     * Send reminder to a specific user via WebSocket (skipped when the user has no session)
      */
     private void sendReminderToUser(String userId, Map<String, Object> data) {
+        if (!presenceRegistry.isOnline(userId)) {
+            log.debug("💤 User {} offline, {} skipped", userId, data.get("type"));
+            return;
+        }
         try {
             messagingTemplate.convertAndSendToUser(
                     userId,
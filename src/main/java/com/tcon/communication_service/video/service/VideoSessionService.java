@@ -1,5 +1,6 @@
 package com.tcon.communication_service.video.service;
 
+import com.tcon.communication_service.event.service.EventOutbox;
 import com.tcon.communication_service.video.dto.AgoraTokenResponse;
 import com.tcon.communication_service.video.dto.RoomCreateRequest;
 import com.tcon.communication_service.video.dto.RoomJoinResponse;
@@ -9,6 +10,7 @@ import com.tcon.communication_service.video.entity.SessionMetadata;
 import com.tcon.communication_service.video.entity.SessionParticipant;
 import com.tcon.communication_service.video.entity.SessionStatus;
 import com.tcon.communication_service.video.entity.VideoSession;
+import com.tcon.communication_service.video.event.RecordingReadyEvent;
 import com.tcon.communication_service.video.integration.AgoraClient;
 import com.tcon.communication_service.video.repository.VideoSessionRepository;
 import lombok.RequiredArgsConstructor;
@@ -21,9 +23,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -35,6 +35,7 @@ public class VideoSessionService {
     private final AgoraClient agoraClient;
     private final VideoSessionMapper videoSessionMapper;
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventOutbox eventOutbox;
 
     // ==================== CREATE ROOM ====================
 
@@ -285,15 +286,20 @@ public class VideoSessionService {
             }
         }
 
-        VideoSession saved = videoSessionRepository.save(session);
+        // ✅ Session update and RECORDING_READY (to content-service) as one outbox unit
+        String recordingUrl = realVideoUrl;
+        Long version = session.getVersion();
+        VideoSession saved = eventOutbox.atomically(() -> {
+            session.setVersion(version);   // a retried attempt saves against the stored version
+            VideoSession stored = videoSessionRepository.save(session);
+            if (recordingUrl != null) {
+                publishRecordingReady(stored, recordingUrl);
+            }
+            return stored;
+        });
         log.info("✅ Session ended: {}, duration: {} min",
                 saved.getId(), saved.getActualDurationMinutes());
 
-        // ✅ Publish RECORDING_READY Kafka event to content-service
-        if (realVideoUrl != null) {
-            publishRecordingReady(saved, realVideoUrl);
-        }
-
         return videoSessionMapper.toDto(saved);
     }
 
@@ -423,18 +429,22 @@ public class VideoSessionService {
 
     private void publishRecordingReady(VideoSession session, String videoUrl) {
         try {
-            Map<String, Object> event = new HashMap<>();
-            event.put("eventType", "RECORDING_READY");
-            event.put("sessionId", session.getId());
-            event.put("bookingId", session.getBookingId());
-            event.put("classSessionId", session.getClassSessionId());
-            event.put("teacherId", session.getTeacherId());
-            event.put("studentId", session.getStudentId());
-            event.put("channelName", session.getHundredMsRoomId());
-            event.put("recordingUrl", videoUrl);
-            event.put("durationMinutes", session.getActualDurationMinutes());
-
-            kafkaTemplate.send("session-events", session.getId(), event);
+            RecordingReadyEvent event = RecordingReadyEvent.builder()
+                    .sessionId(session.getId())
+                    .bookingId(session.getBookingId())
+                    .classSessionId(session.getClassSessionId())
+                    .teacherId(session.getTeacherId())
+                    .studentId(session.getStudentId())
+                    .channelName(session.getHundredMsRoomId())
+                    .recordingUrl(videoUrl)
+                    .durationMinutes(session.getActualDurationMinutes())
+                    .build();
+
+            if (eventOutbox.isEnabled()) {
+                eventOutbox.append("session-events", event);
+            } else {
+                kafkaTemplate.send("session-events", session.getId(), event);
+            }
 
             log.info("📨 RECORDING_READY event published for session: {}",
                     session.getId());
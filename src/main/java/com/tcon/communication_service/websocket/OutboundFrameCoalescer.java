@@ -0,0 +1,244 @@
+package com.tcon.communication_service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound Frame Coalescer (websocket.coalescing.enabled=true)
+ * Sessions that send "x-frame-batching: true" on STOMP CONNECT get their JSON MESSAGE frames
+ * held per subscription for up to websocket.coalescing.window and pushed as one frame whose
+ * body is a JSON array of the original payloads, with an "x-batch-size" header. A window that
+ * only caught one frame sends it unchanged (no header). Other sessions are not touched.
+ * Frames for different subscriptions stay separate - a STOMP frame has one destination.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "websocket.coalescing.enabled", havingValue = "true")
+public class OutboundFrameCoalescer implements ChannelInterceptor {
+
+    public static final String BATCHING_HEADER = "x-frame-batching";
+    public static final String BATCH_SIZE_HEADER = "x-batch-size";
+    private static final String COALESCED_HEADER = "coalesced";
+
+    private final Set<String> batchingSessions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+    private final MessageChannel clientOutboundChannel;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final int maxBatch;
+    private final Counter coalesced;
+    private final Counter batchFrames;
+
+    public OutboundFrameCoalescer(
+            @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            MeterRegistry meterRegistry,
+            @Value("${websocket.coalescing.window:20ms}") Duration window,
+            @Value("${websocket.coalescing.max-batch:50}") int maxBatch) {
+
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.windowMillis = window.toMillis();
+        this.maxBatch = maxBatch;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stomp-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.coalesced = Counter.builder("websocket.outbound.coalesced")
+                .description("Outbound events merged into batch frames")
+                .register(meterRegistry);
+        this.batchFrames = Counter.builder("websocket.outbound.batches")
+                .description("Batch frames sent in place of coalesced events")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pending.forEach(this::flush);
+        scheduler.shutdown();
+    }
+
+    /**
+     * True for frames built by the coalescer itself.
+     */
+    public static boolean isBatch(Message<?> message) {
+        return message.getHeaders().containsKey(COALESCED_HEADER);
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Inbound (CONNECT opt-in / DISCONNECT) and outbound (MESSAGE)
+    // ─────────────────────────────────────────────────────────────
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        SimpMessageType type = accessor.getMessageType();
+        if (sessionId == null || type == null) {
+            return message;
+        }
+
+        switch (type) {
+            case CONNECT -> {
+                if ("true".equalsIgnoreCase(accessor.getFirstNativeHeader(BATCHING_HEADER))) {
+                    batchingSessions.add(sessionId);
+                    log.debug("📦 [WebSocket] Frame batching on for session {}", sessionId);
+                }
+                return message;
+            }
+            case DISCONNECT -> {
+                if (batchingSessions.remove(sessionId)) {
+                    // Closed, so the scheduled flush of the window has nothing left to send
+                    pending.forEach((key, batch) -> {
+                        if (key.startsWith(sessionId + ":") && pending.remove(key, batch)) {
+                            batch.close();
+                        }
+                    });
+                }
+                return message;
+            }
+            case MESSAGE -> {
+                return isCoalescable(message, accessor, sessionId) ? buffer(message, accessor, sessionId) : message;
+            }
+            default -> {
+                return message;
+            }
+        }
+    }
+
+    private boolean isCoalescable(Message<?> message, SimpMessageHeaderAccessor accessor, String sessionId) {
+        if (isBatch(message) || !batchingSessions.contains(sessionId)
+                || accessor.getSubscriptionId() == null || !(message.getPayload() instanceof byte[])) {
+            return false;
+        }
+        MimeType contentType = accessor.getContentType();
+        return contentType != null && MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType);
+    }
+
+    private Message<?> buffer(Message<?> message, SimpMessageHeaderAccessor accessor, String sessionId) {
+        String key = sessionId + ":" + accessor.getSubscriptionId();
+        while (true) {
+            Batch batch = pending.get(key);
+            if (batch == null) {
+                Batch fresh = new Batch();
+                batch = pending.putIfAbsent(key, fresh);
+                if (batch == null) {
+                    batch = fresh;
+                    scheduler.schedule(() -> flush(key, fresh), windowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            int size = batch.add(message);
+            if (size < 0) {
+                // Flushed between lookup and add - start a new window
+                pending.remove(key, batch);
+                continue;
+            }
+            if (size >= maxBatch) {
+                flush(key, batch);
+            }
+            // Swallowed here; delivered by flush()
+            return null;
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Flush
+    // ─────────────────────────────────────────────────────────────
+
+    private void flush(String key, Batch batch) {
+        pending.remove(key, batch);
+        List<Message<?>> frames = batch.close();
+        if (frames.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (frames.size() == 1) {
+                clientOutboundChannel.send(frames.get(0));
+                return;
+            }
+            clientOutboundChannel.send(toBatchFrame(frames));
+            coalesced.increment(frames.size());
+            batchFrames.increment();
+        } catch (Exception e) {
+            log.warn("⚠️ [WebSocket] Failed to flush {} frames for {}: {}", frames.size(), key, e.getMessage());
+        }
+    }
+
+    private Message<byte[]> toBatchFrame(List<Message<?>> frames) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('[');
+        for (int i = 0; i < frames.size(); i++) {
+            if (i > 0) {
+                body.write(',');
+            }
+            body.writeBytes((byte[]) frames.get(i).getPayload());
+        }
+        body.write(']');
+
+        // Headers of the first frame (session, subscription, destination), with per-frame ones dropped
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(frames.get(0));
+        accessor.removeNativeHeader(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER);
+        accessor.removeNativeHeader(StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER);
+        accessor.setNativeHeader(BATCH_SIZE_HEADER, String.valueOf(frames.size()));
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setHeader(COALESCED_HEADER, Boolean.TRUE);
+        return MessageBuilder.createMessage(body.toByteArray(), accessor.getMessageHeaders());
+    }
+
+    /**
+     * Frames held for one session subscription during one window.
+     */
+    private static class Batch {
+
+        private final List<Message<?>> frames = new ArrayList<>();
+        private boolean closed;
+
+        /**
+         * @return the new batch size, or -1 if the batch was already flushed
+         */
+        synchronized int add(Message<?> frame) {
+            if (closed) {
+                return -1;
+            }
+            frames.add(frame);
+            return frames.size();
+        }
+
+        synchronized List<Message<?>> close() {
+            if (closed) {
+                return List.of();
+            }
+            closed = true;
+            return frames;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.tcon.communication_service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outbound Frame Metrics
+ * Counts MESSAGE frames handed to client sessions and their payload bytes (before STOMP
+ * headers and permessage-deflate): websocket.outbound.frames / websocket.outbound.bytes,
+ * tagged batched=true for frames built by OutboundFrameCoalescer. Rate them for frames/sec
+ * and bytes/sec.
+ */
+@Component
+public class OutboundFrameMetrics implements ChannelInterceptor {
+
+    private final Counter frames;
+    private final Counter batchedFrames;
+    private final Counter bytes;
+    private final Counter batchedBytes;
+
+    public OutboundFrameMetrics(MeterRegistry meterRegistry) {
+        this.frames = Counter.builder("websocket.outbound.frames").tag("batched", "false").register(meterRegistry);
+        this.batchedFrames = Counter.builder("websocket.outbound.frames").tag("batched", "true").register(meterRegistry);
+        this.bytes = Counter.builder("websocket.outbound.bytes").baseUnit("bytes")
+                .tag("batched", "false").register(meterRegistry);
+        this.batchedBytes = Counter.builder("websocket.outbound.bytes").baseUnit("bytes")
+                .tag("batched", "true").register(meterRegistry);
+    }
+
+    @Override
+    public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
+        if (!sent || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+
+        long size = message.getPayload() instanceof byte[] payload ? payload.length : 0;
+        if (OutboundFrameCoalescer.isBatch(message)) {
+            batchedFrames.increment();
+            batchedBytes.increment(size);
+        } else {
+            frames.increment();
+            bytes.increment(size);
+        }
+    }
+}
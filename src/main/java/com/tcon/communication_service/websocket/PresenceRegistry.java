@@ -0,0 +1,222 @@
+package com.tcon.communication_service.websocket;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tcon.communication_service.messaging.dto.UserPresenceDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Presence Registry
+ * Who is connected: user -> STOMP sessions on this node (fed by connect/disconnect events)
+ * and last activity (any inbound frame, heartbeats included). With websocket.broker.mode=redis
+ * the other nodes are consulted through StompUserNodeRegistry, so answers are cluster-wide.
+ * Only connected users are held in full; offline users keep just a last-seen timestamp in a
+ * bounded cache. Publishes websocket.presence.users / websocket.presence.sessions per node.
+ */
+@Slf4j
+@Component
+public class PresenceRegistry implements ChannelInterceptor {
+
+    private final Map<String, LocalPresence> connected = new ConcurrentHashMap<>();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final Cache<String, Long> lastSeen;
+    private final ObjectProvider<StompUserNodeRegistry> userNodeRegistry;
+    private final String nodeId;
+
+    public PresenceRegistry(
+            ObjectProvider<StompUserNodeRegistry> userNodeRegistry,
+            MeterRegistry meterRegistry,
+            @Value("${websocket.broker.node-id:}") String nodeId,
+            @Value("${websocket.presence.last-seen-max-size:100000}") long lastSeenMaxSize,
+            @Value("${websocket.presence.last-seen-ttl:24h}") Duration lastSeenTtl) {
+
+        this.userNodeRegistry = userNodeRegistry;
+        StompUserNodeRegistry registry = userNodeRegistry.getIfAvailable();
+        this.nodeId = registry != null ? registry.nodeId()
+                : StringUtils.hasText(nodeId) ? nodeId : "local";
+        this.lastSeen = Caffeine.newBuilder()
+                .maximumSize(lastSeenMaxSize)
+                .expireAfterWrite(lastSeenTtl)
+                .build();
+
+        Gauge.builder("websocket.presence.users", connected, Map::size)
+                .description("Users with at least one STOMP session on this node")
+                .tag("node", this.nodeId)
+                .register(meterRegistry);
+        Gauge.builder("websocket.presence.sessions", sessions, AtomicInteger::get)
+                .description("STOMP sessions on this node")
+                .tag("node", this.nodeId)
+                .register(meterRegistry);
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Queries
+    // ─────────────────────────────────────────────────────────────
+
+    /**
+     * True if the user holds a STOMP session on this node or, in redis broker mode, on any node.
+     */
+    public boolean isOnline(String userId) {
+        if (connected.containsKey(userId)) {
+            return true;
+        }
+        StompUserNodeRegistry registry = userNodeRegistry.getIfAvailable();
+        if (registry == null) {
+            return false;
+        }
+        try {
+            return !registry.nodesFor(userId).isEmpty();
+        } catch (DataAccessException e) {
+            // Fail open: an unknown state must not stop delivery
+            log.warn("⚠️ [Presence] Node lookup failed for {}: {}", userId, e.getMessage());
+            return true;
+        }
+    }
+
+    public UserPresenceDto getPresence(String userId) {
+        LocalPresence local = connected.get(userId);
+        List<String> nodes = new ArrayList<>();
+        Long seen = local != null ? Long.valueOf(local.lastSeen) : lastSeen.getIfPresent(userId);
+
+        if (local != null) {
+            nodes.add(nodeId);
+        }
+
+        StompUserNodeRegistry registry = userNodeRegistry.getIfAvailable();
+        if (registry != null) {
+            try {
+                for (Map.Entry<String, Long> node : registry.nodesFor(userId).entrySet()) {
+                    if (!node.getKey().equals(nodeId)) {
+                        nodes.add(node.getKey());
+                        seen = seen == null ? node.getValue() : Math.max(seen, node.getValue());
+                    }
+                }
+            } catch (DataAccessException e) {
+                log.warn("⚠️ [Presence] Node lookup failed for {}: {}", userId, e.getMessage());
+            }
+        }
+
+        return UserPresenceDto.builder()
+                .userId(userId)
+                .online(!nodes.isEmpty())
+                .sessionCount(local != null ? local.sessionIds.size() : 0)
+                .nodes(nodes)
+                .lastSeenAt(seen != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(seen), ZoneId.systemDefault()) : null)
+                .build();
+    }
+
+    public Map<String, UserPresenceDto> getPresence(Collection<String> userIds) {
+        Map<String, UserPresenceDto> presence = new LinkedHashMap<>();
+        for (String userId : userIds) {
+            presence.put(userId, getPresence(userId));
+        }
+        return presence;
+    }
+
+    public int connectedUsers() {
+        return connected.size();
+    }
+
+    public int connectedSessions() {
+        return sessions.get();
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Session lifecycle
+    // ─────────────────────────────────────────────────────────────
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) {
+            return;
+        }
+
+        connected.compute(user.getName(), (userId, presence) -> {
+            LocalPresence updated = presence != null ? presence : new LocalPresence();
+            if (updated.sessionIds.add(sessionId)) {
+                sessions.incrementAndGet();
+            }
+            updated.touch();
+            return updated;
+        });
+        log.debug("🟢 [Presence] {} connected (session {})", user.getName(), sessionId);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+
+        connected.computeIfPresent(user.getName(), (userId, presence) -> {
+            if (presence.sessionIds.remove(event.getSessionId())) {
+                sessions.decrementAndGet();
+            }
+            if (presence.sessionIds.isEmpty()) {
+                lastSeen.put(userId, System.currentTimeMillis());
+                return null;
+            }
+            return presence;
+        });
+        log.debug("⚪ [Presence] {} disconnected (session {})", user.getName(), event.getSessionId());
+    }
+
+    /**
+     * Inbound frames (heartbeats included) refresh the sender's last activity.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        if (user != null) {
+            LocalPresence presence = connected.get(user.getName());
+            if (presence != null) {
+                presence.touch();
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Per-user local state: a handful of session ids and one timestamp.
+     */
+    private static final class LocalPresence {
+
+        private final Set<String> sessionIds = ConcurrentHashMap.newKeySet(2);
+        private volatile long lastSeen;
+
+        void touch() {
+            lastSeen = System.currentTimeMillis();
+        }
+    }
+}
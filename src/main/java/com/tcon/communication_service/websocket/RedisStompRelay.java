@@ -0,0 +1,208 @@
+package com.tcon.communication_service.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis STOMP Relay (websocket.broker.mode=redis)
+ * Sits on the broker channel in front of the in-JVM simple broker and mirrors frames to the
+ * other replicas over Redis pub/sub, so SimpMessagingTemplate sends reach users on any node:
+ *   /topic/...          published once on stomp:broadcast, delivered by every node
+ *   /user/{userId}/...  published on stomp:node:{nodeId} only for nodes holding a session
+ *                       of that user (see StompUserNodeRegistry)
+ * Received frames are re-injected into the local broker channel, marked so they are not
+ * relayed again. Cross-node latency is recorded as websocket.relay.latency.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "redis")
+public class RedisStompRelay implements ChannelInterceptor, MessageListener {
+
+    static final String BROADCAST_CHANNEL = "stomp:broadcast";
+    static final String NODE_CHANNEL_PREFIX = "stomp:node:";
+    private static final String RELAYED_HEADER = "relayedFrom";
+    private static final String USER_PREFIX = "/user/";
+
+    private final MessageChannel brokerChannel;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final StompUserNodeRegistry userNodeRegistry;
+    private final ObjectMapper objectMapper;
+    private final Counter published;
+    private final Counter received;
+    private final Timer latency;
+
+    public RedisStompRelay(
+            @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+            StringRedisTemplate redisTemplate,
+            RedisConnectionFactory connectionFactory,
+            StompUserNodeRegistry userNodeRegistry,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+
+        this.brokerChannel = brokerChannel;
+        this.redisTemplate = redisTemplate;
+        this.userNodeRegistry = userNodeRegistry;
+        this.objectMapper = objectMapper;
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(connectionFactory);
+
+        this.published = Counter.builder("websocket.relay.frames").tag("direction", "out").register(meterRegistry);
+        this.received = Counter.builder("websocket.relay.frames").tag("direction", "in").register(meterRegistry);
+        this.latency = Timer.builder("websocket.relay.latency")
+                .description("Publish-to-redelivery time of frames relayed between nodes")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer.addMessageListener(this, List.of(
+                new ChannelTopic(BROADCAST_CHANNEL),
+                new ChannelTopic(NODE_CHANNEL_PREFIX + userNodeRegistry.nodeId())));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        log.info("✅ [WebSocket] Redis STOMP relay started on node {}", userNodeRegistry.nodeId());
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        listenerContainer.stop();
+        listenerContainer.destroy();
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Outbound: local broker channel -> Redis
+    // ─────────────────────────────────────────────────────────────
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || destination == null
+                || message.getHeaders().containsKey(RELAYED_HEADER)) {
+            return message;
+        }
+
+        try {
+            if (destination.startsWith("/topic/")) {
+                publish(BROADCAST_CHANNEL, message, accessor);
+            } else if (destination.startsWith(USER_PREFIX)) {
+                String userId = userOf(destination);
+                for (String node : userNodeRegistry.remoteNodesFor(userId)) {
+                    publish(NODE_CHANNEL_PREFIX + node, message, accessor);
+                }
+            }
+        } catch (DataAccessException e) {
+            // Local delivery still happens; remote sessions miss this frame
+            log.warn("⚠️ [WebSocket] Relay publish failed for {}: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    private void publish(String channel, Message<?> message, SimpMessageHeaderAccessor accessor) {
+        MimeType contentType = accessor.getContentType();
+        RelayFrame frame = new RelayFrame(
+                userNodeRegistry.nodeId(),
+                accessor.getDestination(),
+                contentType != null ? contentType.toString() : null,
+                accessor.toNativeHeaderMap(),
+                payloadBytes(message.getPayload()),
+                System.currentTimeMillis());
+
+        redisTemplate.convertAndSend(channel, write(frame));
+        published.increment();
+    }
+
+    // ─────────────────────────────────────────────────────────────
+    // Inbound: Redis -> local broker channel
+    // ─────────────────────────────────────────────────────────────
+
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message message, byte[] pattern) {
+        RelayFrame frame;
+        try {
+            frame = objectMapper.readValue(message.getBody(), RelayFrame.class);
+        } catch (Exception e) {
+            log.error("❌ [WebSocket] Unreadable relay frame: {}", e.getMessage());
+            return;
+        }
+
+        if (userNodeRegistry.nodeId().equals(frame.origin())) {
+            return;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(frame.destination());
+        if (frame.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(frame.contentType()));
+        }
+        if (frame.nativeHeaders() != null) {
+            frame.nativeHeaders().forEach((name, values) -> values.forEach(value -> accessor.addNativeHeader(name, value)));
+        }
+        accessor.setHeader(RELAYED_HEADER, frame.origin());
+
+        MessageHeaders headers = accessor.getMessageHeaders();
+        brokerChannel.send(MessageBuilder.createMessage(frame.payload(), headers));
+
+        received.increment();
+        latency.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - frame.sentAt())));
+    }
+
+    private static String userOf(String destination) {
+        int end = destination.indexOf('/', USER_PREFIX.length());
+        String user = end > 0 ? destination.substring(USER_PREFIX.length(), end) : destination.substring(USER_PREFIX.length());
+        return user.replace("%2F", "/");
+    }
+
+    private static byte[] payloadBytes(Object payload) {
+        if (payload instanceof byte[] bytes) {
+            return bytes;
+        }
+        return String.valueOf(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String write(RelayFrame frame) {
+        try {
+            return objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize relay frame", e);
+        }
+    }
+
+    /**
+     * Wire format of a relayed frame; the payload is the already-converted STOMP body.
+     */
+    record RelayFrame(String origin, String destination, String contentType,
+                      Map<String, List<String>> nativeHeaders, byte[] payload, long sentAt) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.tcon.communication_service.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * STOMP User Node Registry (websocket.broker.mode=redis)
+ * Tracks which nodes hold a STOMP session for each user, so per-user frames are only
+ * published to those nodes. Per user a Redis sorted set stomp:user-nodes:{userId}
+ * holds node id -> last refresh (epoch millis); entries of crashed nodes age out after
+ * the configured ttl because live nodes re-register their users on every refresh.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "redis")
+public class StompUserNodeRegistry {
+
+    private static final String KEY_PREFIX = "stomp:user-nodes:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final String nodeId;
+    private final Duration ttl;
+
+    public StompUserNodeRegistry(
+            StringRedisTemplate redisTemplate,
+            @Lazy SimpUserRegistry simpUserRegistry,
+            @Value("${websocket.broker.node-id:}") String nodeId,
+            @Value("${websocket.broker.user-node-ttl:90s}") Duration ttl) {
+
+        this.redisTemplate = redisTemplate;
+        this.simpUserRegistry = simpUserRegistry;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString();
+        this.ttl = ttl;
+        log.info("🔧 [WebSocket] STOMP node id: {}", this.nodeId);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Nodes (other than this one) currently holding a session for the user.
+     */
+    public Set<String> remoteNodesFor(String userId) {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        Set<String> nodes = redisTemplate.opsForZSet()
+                .rangeByScore(key(userId), cutoff, Double.POSITIVE_INFINITY);
+        if (nodes == null || nodes.isEmpty()) {
+            return Set.of();
+        }
+        nodes.remove(nodeId);
+        return nodes;
+    }
+
+    /**
+     * All live nodes (this one included) holding a session for the user, with the time
+     * each last registered the user (epoch millis).
+     */
+    public Map<String, Long> nodesFor(String userId) {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        Set<ZSetOperations.TypedTuple<String>> entries = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(key(userId), cutoff, Double.POSITIVE_INFINITY);
+        if (entries == null || entries.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Long> nodes = new HashMap<>();
+        for (ZSetOperations.TypedTuple<String> entry : entries) {
+            if (entry.getValue() != null && entry.getScore() != null) {
+                nodes.put(entry.getValue(), entry.getScore().longValue());
+            }
+        }
+        return nodes;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (user != null) {
+            register(List.of(user.getName()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+
+        // The registry still counts the closing session, so only drop the node for the last one
+        SimpUser simpUser = simpUserRegistry.getUser(user.getName());
+        boolean otherSessions = simpUser != null && simpUser.getSessions().stream()
+                .anyMatch(session -> !session.getId().equals(event.getSessionId()));
+        if (otherSessions) {
+            return;
+        }
+
+        try {
+            redisTemplate.opsForZSet().remove(key(user.getName()), nodeId);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ [WebSocket] Failed to unregister {} from node {}: {}", user.getName(), nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Re-register every locally connected user well within the ttl.
+     */
+    @Scheduled(fixedDelayString = "${websocket.broker.user-node-refresh-ms:30000}")
+    public void refresh() {
+        List<String> userIds = simpUserRegistry.getUsers().stream().map(SimpUser::getName).toList();
+        if (!userIds.isEmpty()) {
+            register(userIds);
+        }
+    }
+
+    private void register(List<String> userIds) {
+        long now = System.currentTimeMillis();
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    for (String userId : userIds) {
+                        operations.opsForZSet().add(key(userId), nodeId, now);
+                        operations.opsForZSet().removeRangeByScore(key(userId), 0, now - ttl.toMillis());
+                        operations.expire(key(userId), ttl);
+                    }
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("⚠️ [WebSocket] Failed to register {} users on node {}: {}", userIds.size(), nodeId, e.getMessage());
+        }
+    }
+
+    private static String key(String userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -3,15 +3,29 @@ package com.tcon.communication_service.websocket;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.lang.Nullable;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 import java.security.Principal;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
 public class UserIdHandshakeHandler extends DefaultHandshakeHandler {
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean compressionEnabled;
+
+    /**
+     * @param compressionEnabled accept permessage-deflate when the client offers it
+     *                           (native WebSocket transport only; SockJS fallbacks are plain HTTP)
+     */
+    public UserIdHandshakeHandler(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
     @Override
     protected Principal determineUser(
             ServerHttpRequest request,
@@ -27,4 +41,17 @@ public class UserIdHandshakeHandler extends DefaultHandshakeHandler {
         log.info("👤 [WebSocket] Using userId {} as Principal name", userId);
         return () -> userId;   // Principal#getName() returns userId
     }
-}
\ No newline at end of file
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(
+            ServerHttpRequest request,
+            List<WebSocketExtension> requestedExtensions,
+            List<WebSocketExtension> supportedExtensions) {
+
+        List<WebSocketExtension> requested = compressionEnabled ? requestedExtensions
+                : requestedExtensions.stream()
+                        .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                        .toList();
+        return super.filterRequestedExtensions(request, requested, supportedExtensions);
+    }
+}
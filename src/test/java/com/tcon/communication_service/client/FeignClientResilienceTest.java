@@ -0,0 +1,265 @@
+package com.tcon.communication_service.client;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tcon.communication_service.config.FeignClientConfig;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigurationProperties;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4jBulkheadProvider;
+import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * PooledFeignClient timeouts and budgeted retries, and the resilience4j circuit breaker /
+ * bulkhead as configured by FeignClientConfig, against a stub server with injected latency
+ * and failures
+ */
+class FeignClientResilienceTest {
+
+    private static final String PATH = "/api/parents/p1/students";
+    private static final Request.Options OPTIONS =
+            new Request.Options(1, TimeUnit.SECONDS, 200, TimeUnit.MILLISECONDS, true);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong latencyMillis = new AtomicLong();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger failFirst = new AtomicInteger();
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private PooledFeignClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext(PATH, exchange -> {
+            hits.incrementAndGet();
+            try {
+                Thread.sleep(latencyMillis.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failFirst.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "[\"s1\"]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            try {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (IOException e) {
+                // Client gave up (read timeout)
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create().build())
+                .disableAutomaticRetries()
+                .build();
+        client = client(1, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        callers.shutdownNow();
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void fastCallReturnsTheBufferedBody() throws IOException {
+        try (Response response = client.execute(get(), OPTIONS)) {
+            assertThat(response.status()).isEqualTo(200);
+            assertThat(new String(response.body().asInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo("[\"s1\"]");
+        }
+        assertThat(meterRegistry.get("feign.client.requests").tag("status", "200").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void slowCallFailsAtTheReadTimeout() {
+        latencyMillis.set(1_000);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.execute(get(), OPTIONS)).isInstanceOf(IOException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(800));
+        assertThat(meterRegistry.get("feign.client.requests").tag("status", "IO_ERROR").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void unavailableGetIsRetried() throws IOException {
+        client = client(3, 10);
+        failFirst.set(2);
+
+        try (Response response = client.execute(get(), OPTIONS)) {
+            assertThat(response.status()).isEqualTo(200);
+        }
+        assertThat(hits.get()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesStopWhenTheBudgetIsSpent() throws IOException {
+        client = client(3, 1);
+        failFirst.set(Integer.MAX_VALUE);
+
+        // One retry left in this second: the first call uses it, the second gets none
+        try (Response response = client.execute(get(), OPTIONS)) {
+            assertThat(response.status()).isEqualTo(503);
+        }
+        try (Response response = client.execute(get(), OPTIONS)) {
+            assertThat(response.status()).isEqualTo(503);
+        }
+        assertThat(hits.get()).isEqualTo(3);
+    }
+
+    @Test
+    void postIsNeverRetried() throws IOException {
+        client = client(3, 10);
+        failFirst.set(1);
+
+        try (Response response = client.execute(request(Request.HttpMethod.POST), OPTIONS)) {
+            assertThat(response.status()).isEqualTo(503);
+        }
+        assertThat(hits.get()).isEqualTo(1);
+    }
+
+    @Test
+    void breakerOpensOnSlowCallsThenProbesAndCloses() throws Exception {
+        CircuitBreaker breaker = breakers(4, Duration.ofMillis(50)).create("parentServiceClient");
+        latencyMillis.set(1_000);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(call(breaker)).isEqualTo("fallback");
+        }
+        assertThat(hits.get()).isEqualTo(4);
+
+        // Open: answered by the fallback without reaching the server
+        long start = System.nanoTime();
+        assertThat(call(breaker)).isEqualTo("fallback");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+        assertThat(hits.get()).isEqualTo(4);
+
+        // After open-duration one probe goes through; its success closes the circuit
+        latencyMillis.set(0);
+        Thread.sleep(600);
+        assertThat(call(breaker)).isEqualTo("200");
+        assertThat(call(breaker)).isEqualTo("200");
+        assertThat(hits.get()).isEqualTo(6);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondMaxConcurrent() throws Exception {
+        CircuitBreaker breaker = breakers(2, Duration.ofMillis(20)).create("parentServiceClient");
+        latencyMillis.set(150);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return call(breaker);
+            }));
+        }
+        start.countDown();
+
+        List<String> outcomes = new ArrayList<>();
+        for (Future<String> result : results) {
+            outcomes.add(result.get(5, TimeUnit.SECONDS));
+        }
+        assertThat(outcomes).containsExactlyInAnyOrder("200", "200", "fallback");
+        assertThat(hits.get()).isEqualTo(2);
+    }
+
+    private PooledFeignClient client(int maxAttempts, int budgetPerSecond) {
+        RateLimiter budget = RateLimiter.of("budget", RateLimiterConfig.custom()
+                .limitForPeriod(budgetPerSecond)
+                .limitRefreshPeriod(Duration.ofMinutes(1))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+        return new PooledFeignClient(httpClient, meterRegistry, Duration.ofMillis(500),
+                RetryRegistry.of(PooledFeignClient.retryConfig(maxAttempts, Duration.ofMillis(10), budget)));
+    }
+
+    /**
+     * Factory wired the way the auto-configuration does, with the application's customizers
+     */
+    private Resilience4JCircuitBreakerFactory breakers(int maxConcurrent, Duration maxWait) {
+        Resilience4JConfigurationProperties properties = new Resilience4JConfigurationProperties();
+        properties.setDisableThreadPool(true);
+        properties.setDisableTimeLimiter(true);
+        FeignClientConfig config = new FeignClientConfig();
+
+        Resilience4jBulkheadProvider bulkheads = new Resilience4jBulkheadProvider(
+                ThreadPoolBulkheadRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), properties);
+        config.feignBulkheadCustomizer(maxConcurrent, maxWait).customize(bulkheads);
+
+        Resilience4JCircuitBreakerFactory factory = new Resilience4JCircuitBreakerFactory(
+                CircuitBreakerRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults(), bulkheads, properties);
+        config.feignCircuitBreakerCustomizer(4, 50, Duration.ofMillis(500), 200, 1).customize(factory);
+        return factory;
+    }
+
+    private String call(CircuitBreaker breaker) {
+        return breaker.run(() -> {
+            try (Response response = client.execute(get(), OPTIONS)) {
+                return Integer.toString(response.status());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, error -> "fallback");
+    }
+
+    private Request get() {
+        return request(Request.HttpMethod.GET);
+    }
+
+    private Request request(Request.HttpMethod method) {
+        return Request.create(method, "http://127.0.0.1:" + server.getAddress().getPort() + PATH,
+                Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+}
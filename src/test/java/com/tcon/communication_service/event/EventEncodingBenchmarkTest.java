@@ -0,0 +1,96 @@
+package com.tcon.communication_service.event;
+
+import com.tcon.communication_service.messaging.entity.MessageType;
+import com.tcon.communication_service.messaging.event.MessageSentEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Record size (body + headers) and encode cost of a typed MESSAGE_SENT through EventSerializer
+ * vs the HashMap it replaced, written by the JsonSerializer the chat producer used before
+ */
+@Slf4j
+class EventEncodingBenchmarkTest {
+
+    private static final String TOPIC = "message-events";
+    private static final int WARM_UP = 100_000;
+    private static final int ITERATIONS = 500_000;
+    private static final Instant NOW = Instant.parse("2026-03-01T10:15:30.123Z");
+
+    @Test
+    void typedEventVsMapEncoding() {
+        EventSerializer typed = new EventSerializer(new EventTypeRegistry(), EventSerializer.eventObjectMapper());
+        JsonSerializer<Object> maps = new JsonSerializer<>();
+
+        Supplier<Object> event = () -> MessageSentEvent.builder()
+                .messageId("67c2e1f4a9b3d52e8c0f1a2b")
+                .conversationId("67c2e1f4a9b3d52e8c0f1a2c")
+                .seq(1042L)
+                .senderId("student-7f3a")
+                .receiverId("teacher-91c2")
+                .messageType(MessageType.TEXT)
+                .timestamp(NOW)
+                .build();
+        Supplier<Object> map = () -> {
+            Map<String, Object> legacy = new HashMap<>();
+            legacy.put("eventType", "MESSAGE_SENT");
+            legacy.put("messageId", "67c2e1f4a9b3d52e8c0f1a2b");
+            legacy.put("conversationId", "67c2e1f4a9b3d52e8c0f1a2c");
+            legacy.put("senderId", "student-7f3a");
+            legacy.put("receiverId", "teacher-91c2");
+            legacy.put("messageType", MessageType.TEXT);
+            legacy.put("timestamp", NOW);
+            return legacy;
+        };
+
+        int typedSize = recordSize(typed, event.get());
+        int mapSize = recordSize(maps, map.get());
+        double typedNanos = encodeNanos(typed, event);
+        double mapNanos = encodeNanos(maps, map);
+
+        log.info("MESSAGE_SENT record: typed {} bytes, {} ns/encode; map {} bytes, {} ns/encode",
+                typedSize, Math.round(typedNanos), mapSize, Math.round(mapNanos));
+
+        // The typed record also carries seq and its version, and no Java class name header
+        Headers headers = new RecordHeaders();
+        typed.serialize(TOPIC, headers, event.get());
+        assertThat(headers.lastHeader(EventTypeRegistry.VERSION_HEADER)).isNotNull();
+        assertThat(headers.lastHeader("__TypeId__")).isNull();
+        maps.close();
+    }
+
+    private static int recordSize(Serializer<Object> serializer, Object value) {
+        Headers headers = new RecordHeaders();
+        int size = serializer.serialize(TOPIC, headers, value).length;
+        for (Header header : headers) {
+            size += header.key().length() + header.value().length;
+        }
+        return size;
+    }
+
+    private static double encodeNanos(Serializer<Object> serializer, Supplier<Object> values) {
+        long sink = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            sink += serializer.serialize(TOPIC, new RecordHeaders(), values.get()).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += serializer.serialize(TOPIC, new RecordHeaders(), values.get()).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return (double) elapsed / ITERATIONS;
+    }
+}
@@ -0,0 +1,131 @@
+package com.tcon.communication_service.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcon.communication_service.messaging.entity.MessageType;
+import com.tcon.communication_service.messaging.event.MessageReadEvent;
+import com.tcon.communication_service.messaging.event.MessageSentEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * EventSerializer / EventDeserializer round trips and EventTypeRegistry version lookup
+ */
+class EventSerializationTest {
+
+    private static final String TOPIC = "message-events";
+
+    private final EventTypeRegistry registry = new EventTypeRegistry();
+    private final ObjectMapper objectMapper = EventSerializer.eventObjectMapper();
+    private final EventSerializer serializer = new EventSerializer(registry, objectMapper);
+    private final EventDeserializer deserializer = new EventDeserializer(registry, objectMapper);
+
+    private final MessageSentEvent sent = MessageSentEvent.builder()
+            .messageId("m1")
+            .conversationId("c1")
+            .seq(42L)
+            .senderId("alice")
+            .receiverId("bob")
+            .messageType(MessageType.TEXT)
+            .timestamp(Instant.parse("2026-03-01T10:15:30.123Z"))
+            .build();
+
+    @Test
+    void typedEventRoundTripsThroughHeaders() {
+        Headers headers = new RecordHeaders();
+        byte[] data = serializer.serialize(TOPIC, headers, sent);
+
+        assertThat(header(headers, EventTypeRegistry.TYPE_HEADER)).isEqualTo("MESSAGE_SENT");
+        assertThat(header(headers, EventTypeRegistry.VERSION_HEADER)).isEqualTo("1");
+        assertThat(deserializer.deserialize(TOPIC, headers, data)).isEqualTo(sent);
+    }
+
+    @Test
+    void headerlessRecordIsResolvedFromTheBody() throws Exception {
+        MessageReadEvent read = MessageReadEvent.builder()
+                .messageId("m1")
+                .conversationId("c1")
+                .senderId("alice")
+                .readAt(LocalDateTime.of(2026, 3, 1, 10, 16))
+                .timestamp(Instant.parse("2026-03-01T10:16:00Z"))
+                .build();
+
+        byte[] data = serializer.serialize(TOPIC, read);
+
+        JsonNode body = objectMapper.readTree(data);
+        assertThat(body.get("eventType").asText()).isEqualTo("MESSAGE_READ");
+        assertThat(body.get("readAt").asText()).isEqualTo("2026-03-01T10:16:00");
+        assertThat(body.has("partitionKey")).isFalse();
+        assertThat(deserializer.deserialize(TOPIC, data)).isEqualTo(read);
+    }
+
+    @Test
+    void nullFieldsAreOmittedAndUnknownFieldsIgnored() throws Exception {
+        MessageSentEvent sparse = MessageSentEvent.builder().messageId("m2").conversationId("c1").build();
+        byte[] data = serializer.serialize(TOPIC, sparse);
+        assertThat(objectMapper.readTree(data).has("seq")).isFalse();
+
+        // Written by a newer producer with an extra field
+        byte[] newer = "{\"eventType\":\"MESSAGE_SENT\",\"messageId\":\"m2\",\"conversationId\":\"c1\",\"priority\":\"HIGH\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        assertThat(deserializer.deserialize(TOPIC, newer)).isEqualTo(sparse);
+    }
+
+    @Test
+    void versionIsPartOfTheLookup() {
+        assertThat(registry.classFor("MESSAGE_SENT", 1)).isEqualTo(MessageSentEvent.class);
+        assertThat(registry.classFor("MESSAGE_SENT", 2)).isNull();
+        assertThat(registry.classFor("ENROLLMENT_CREATED", 1)).isNull();
+        assertThat(registry.typeOf(sent)).isEqualTo(new EventTypeRegistry.EventType("MESSAGE_SENT", 1));
+
+        // A version this service does not know yet is handed over as a plain map
+        Headers headers = new RecordHeaders();
+        byte[] data = serializer.serialize(TOPIC, headers, sent);
+        headers.add(EventTypeRegistry.VERSION_HEADER, "2".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(deserializer.deserialize(TOPIC, headers, data))
+                .isInstanceOf(Map.class)
+                .asInstanceOf(InstanceOfAssertFactories.MAP)
+                .containsEntry("messageId", "m1")
+                .containsEntry("seq", 42);
+    }
+
+    @Test
+    void eventsOwnedByOtherServicesStayMaps() {
+        byte[] data = serializer.serialize(TOPIC, Map.of("eventType", "STUDENT_PARENT_LINKED", "studentId", "s1"));
+
+        assertThat(deserializer.deserialize(TOPIC, data))
+                .isEqualTo(Map.of("eventType", "STUDENT_PARENT_LINKED", "studentId", "s1"));
+    }
+
+    @Test
+    void unregisteredOrMalformedEventsFail() {
+        DomainEvent unregistered = () -> "key";
+        assertThatThrownBy(() -> serializer.serialize(TOPIC, new RecordHeaders(), unregistered))
+                .isInstanceOf(SerializationException.class);
+
+        Headers badVersion = new RecordHeaders();
+        badVersion.add(EventTypeRegistry.TYPE_HEADER, "MESSAGE_SENT".getBytes(StandardCharsets.UTF_8));
+        badVersion.add(EventTypeRegistry.VERSION_HEADER, "v1".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> deserializer.deserialize(TOPIC, badVersion, "{}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(SerializationException.class);
+
+        assertThat(serializer.serialize(TOPIC, null)).isNull();
+        assertThat(deserializer.deserialize(TOPIC, null)).isNull();
+    }
+
+    private static String header(Headers headers, String key) {
+        return new String(headers.lastHeader(key).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,213 @@
+package com.tcon.communication_service.event.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.tcon.communication_service.event.EventSerializer;
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.entity.OutboxEvent;
+import com.tcon.communication_service.event.repository.OutboxEventRepository;
+import com.tcon.communication_service.messaging.event.MessageSentEvent;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Outbox relay ordering, per-key retry, dead-lettering and lifecycle
+ */
+class OutboxRelayTest extends EmbeddedMongoSupport {
+
+    private static final Instant START = Instant.parse("2026-03-01T10:00:00Z");
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+    private final List<OutboxRelay> relays = new ArrayList<>();
+    private int created;
+
+    @AfterEach
+    void stopRelays() {
+        for (OutboxRelay relay : relays) {
+            relay.stop();
+        }
+    }
+
+    @Test
+    void eventsArePublishedInOrderPerKeyAndDeleted() throws Exception {
+        OutboxRelay relay = relay(500, 20);
+        append("k1", "a1");
+        append("k2", "b1");
+        append("k1", "a2");
+        append("k2", "b2");
+
+        assertThat(relay.relayBatch()).isEqualTo(4);
+
+        assertThat(sent).containsExactly("a1", "b1", "a2", "b2");
+        assertThat(mongoTemplate.count(new Query(), OutboxEvent.class)).isZero();
+        assertThat(relay.relayBatch()).isZero();
+    }
+
+    @Test
+    void failedEventHoldsBackOnlyItsOwnKey() throws Exception {
+        OutboxRelay relay = relay(500, 20);
+        failing.add("a1");
+        append("k1", "a1");
+        append("k1", "a2");
+        append("k2", "b1");
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+        // a2 is never sent while a1 is unacked
+        assertThat(sent).containsExactly("a1", "b1");
+        OutboxEvent head = find("a1");
+        OutboxEvent behind = find("a2");
+        assertThat(head.getAttempts()).isEqualTo(1);
+        assertThat(head.getLastError()).contains("broker down");
+        assertThat(head.getNextAttemptAt()).isAfter(Instant.now());
+        assertThat(behind.getAttempts()).isZero();
+        assertThat(behind.getNextAttemptAt()).isEqualTo(head.getNextAttemptAt());
+        assertThat(find("b1")).isNull();
+
+        // While k1 is held, its new events wait and other keys go on
+        sent.clear();
+        append("k1", "a3");
+        append("k2", "b2");
+        assertThat(relay.relayBatch()).isEqualTo(1);
+        assertThat(sent).containsExactly("b2");
+
+        // Due again: k1 goes out in order
+        sent.clear();
+        failing.clear();
+        makeDue("k1");
+        assertThat(relay.relayBatch()).isEqualTo(3);
+        assertThat(sent).containsExactly("a1", "a2", "a3");
+        assertThat(mongoTemplate.count(new Query(), OutboxEvent.class)).isZero();
+    }
+
+    @Test
+    void heldKeyDoesNotFillTheBatch() throws Exception {
+        OutboxRelay relay = relay(2, 20);
+        failing.add("a1");
+        append("k1", "a1");
+        append("k1", "a2");
+        append("k1", "a3");
+        append("k2", "b1");
+
+        assertThat(relay.relayBatch()).isEqualTo(2);
+
+        sent.clear();
+        assertThat(relay.relayBatch()).isEqualTo(1);
+        assertThat(sent).containsExactly("b1");
+        assertThat(relay.relayBatch()).isZero();
+    }
+
+    @Test
+    void eventIsDeadLetteredAfterMaxAttemptsAndItsKeyGoesOn() throws Exception {
+        OutboxRelay relay = relay(500, 2);
+        failing.add("a1");
+        append("k1", "a1");
+        append("k1", "a2");
+
+        relay.relayBatch();
+        makeDue("k1");
+        sent.clear();
+        assertThat(relay.relayBatch()).isEqualTo(2);
+
+        assertThat(sent).containsExactly("a1", "a2");
+        assertThat(mongoTemplate.count(new Query(), OutboxEvent.class)).isZero();
+        List<OutboxEvent> deadLetters = mongoTemplate.findAll(OutboxEvent.class, "outbox_dead_letters");
+        assertThat(deadLetters).singleElement().satisfies(event -> {
+            assertThat(event.getId()).isEqualTo("a1");
+            assertThat(event.getAttempts()).isEqualTo(2);
+            assertThat(event.getLastError()).contains("broker down");
+        });
+        assertThat(meterRegistry.get("message.outbox.dead_lettered").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void startedRelayPublishesOnWakeUpAndReleasesItsLeaseOnStop() throws Exception {
+        OutboxRelay relay = relay(500, 20);
+        assertThat(relay.isRunning()).isFalse();
+
+        relay.start();
+        append("k1", "a1");
+        relay.wakeUp();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (find("a1") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(sent).containsExactly("a1");
+        assertThat(find("a1")).isNull();
+        assertThat(mongoTemplate.getCollection("outbox_relay_lease").countDocuments()).isEqualTo(1);
+
+        relay.stop();
+        assertThat(relay.isRunning()).isFalse();
+        assertThat(mongoTemplate.getCollection("outbox_relay_lease").countDocuments()).isZero();
+    }
+
+    private OutboxRelay relay(int batchSize, int maxAttempts) {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            String messageId = ((MessageSentEvent) invocation.getArgument(2)).messageId();
+            sent.add(messageId);
+            return failing.contains(messageId)
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture(null);
+        });
+
+        OutboxEventRepository repository =
+                new MongoRepositoryFactory(mongoTemplate).getRepository(OutboxEventRepository.class);
+        // Not started unless a test does: the others drive relayBatch() themselves
+        OutboxRelay relay = new OutboxRelay(repository, mongoTemplate, kafkaTemplate, new EventTypeRegistry(),
+                meterRegistry, batchSize, Duration.ofHours(1), Duration.ofSeconds(30), Duration.ofSeconds(5),
+                Duration.ofMinutes(1), maxAttempts);
+        relays.add(relay);
+        return relay;
+    }
+
+    private void append(String key, String messageId) throws JsonProcessingException {
+        MessageSentEvent event = MessageSentEvent.builder()
+                .messageId(messageId)
+                .conversationId(key)
+                .timestamp(START)
+                .build();
+        mongoTemplate.insert(OutboxEvent.builder()
+                .id(messageId)
+                .topic("message-events")
+                .partitionKey(key)
+                .eventType("MESSAGE_SENT")
+                .eventVersion(1)
+                .payload(EventSerializer.eventObjectMapper().writeValueAsString(event))
+                .createdAt(START.plusMillis(created++))
+                .build());
+    }
+
+    private OutboxEvent find(String id) {
+        return mongoTemplate.findById(id, OutboxEvent.class);
+    }
+
+    private void makeDue(String key) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("partitionKey").is(key).and("nextAttemptAt").ne(null)),
+                new Update().set("nextAttemptAt", Instant.now().minusSeconds(1)), OutboxEvent.class);
+    }
+}
@@ -0,0 +1,26 @@
+package com.tcon.communication_service.messaging.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageCursorTest {
+
+    @Test
+    void tokenRoundTrips() {
+        String token = new MessageCursor(9_007_199_254_740_993L).encode();
+
+        assertThat(token).doesNotContain("=", "+", "/");
+        assertThat(MessageCursor.decode(token).getSeq()).isEqualTo(9_007_199_254_740_993L);
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        assertThatThrownBy(() -> MessageCursor.decode("not a cursor!"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid message cursor");
+        assertThatThrownBy(() -> MessageCursor.decode("YWJj"))  // "abc"
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.config.KafkaConfig;
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.service.EventOutbox;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.support.EmbeddedKafkaSupport;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Chat event publish throughput on an embedded broker: the default producer vs the tuned,
+ * keyed chat producer (KafkaConfig.chatEventProducerFactory), both through MessageEventPublisher
+ */
+@Slf4j
+class ChatEventPublishThroughputTest extends EmbeddedKafkaSupport {
+
+    private static final int WARM_UP = 2_000;
+    private static final int EVENTS = 20_000;
+    private static final int CONVERSATIONS = 200;
+
+    private final EventTypeRegistry eventTypeRegistry = new EventTypeRegistry();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void chatProducerThroughput() throws Exception {
+        KafkaConfig kafkaConfig = new KafkaConfig(eventTypeRegistry);
+        ReflectionTestUtils.setField(kafkaConfig, "chatLingerMs", 5);
+        ReflectionTestUtils.setField(kafkaConfig, "chatBatchSize", 65536);
+        ReflectionTestUtils.setField(kafkaConfig, "chatCompressionType", "lz4");
+
+        double defaultRate = eventsPerSecond("default producer",
+                kafkaConfig.producerFactory(kafkaProperties(), mock(ObjectProvider.class)));
+        double chatRate = eventsPerSecond("chat producer",
+                kafkaConfig.chatEventProducerFactory(kafkaProperties(), mock(ObjectProvider.class)));
+
+        log.info("Chat event publish: default producer {} events/s, chat producer {} events/s ({}x)",
+                Math.round(defaultRate), Math.round(chatRate), String.format("%.2f", chatRate / defaultRate));
+    }
+
+    private double eventsPerSecond(String name, ProducerFactory<String, Object> producerFactory) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        MessageEventPublisher publisher = new MessageEventPublisher(kafkaTemplate, eventTypeRegistry,
+                mock(EventOutbox.class), meterRegistry, MESSAGE_EVENTS);
+        try {
+            publish(publisher, 0, WARM_UP);
+            awaitAcks(meterRegistry, WARM_UP);
+
+            long start = System.nanoTime();
+            publish(publisher, WARM_UP, EVENTS);
+            awaitAcks(meterRegistry, WARM_UP + EVENTS);
+            long elapsed = System.nanoTime() - start;
+
+            assertThat(meterRegistry.find("message.events.publish").tag("outcome", "failure").timer())
+                    .as("%s failures", name).isNull();
+            double rate = EVENTS * 1e9 / elapsed;
+            log.info("{}: {} events in {} ms", name, EVENTS, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return rate;
+        } finally {
+            ((DefaultKafkaProducerFactory<String, Object>) producerFactory).destroy();
+        }
+    }
+
+    // In write-behind sized batches; publishMessageSent would log every event at info
+    private static void publish(MessageEventPublisher publisher, int from, int count) {
+        List<Message> batch = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            batch.add(Message.builder()
+                    .id("m" + i)
+                    .conversationId("c" + (i % CONVERSATIONS))
+                    .seq((long) i / CONVERSATIONS + 1)
+                    .senderId("alice")
+                    .receiverId("bob")
+                    .content("message " + i)
+                    .build());
+            if (batch.size() == 100) {
+                publisher.publishMessagesSent(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            publisher.publishMessagesSent(batch);
+        }
+    }
+
+    private static void awaitAcks(SimpleMeterRegistry meterRegistry, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (acked(meterRegistry) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(acked(meterRegistry)).isEqualTo(expected);
+    }
+
+    private static long acked(SimpleMeterRegistry meterRegistry) {
+        Timer timer = meterRegistry.find("message.events.publish").tag("outcome", "success").timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
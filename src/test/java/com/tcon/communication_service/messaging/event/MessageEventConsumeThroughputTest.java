@@ -0,0 +1,168 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.config.KafkaConfig;
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import com.tcon.communication_service.support.EmbeddedKafkaSupport;
+import com.tcon.communication_service.websocket.PresenceRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Consumer throughput on an embedded broker: messageEventListenerContainerFactory (batch polls,
+ * read receipts coalesced) vs the record listener it replaced, over the same MESSAGE_READ backlog
+ */
+@Slf4j
+class MessageEventConsumeThroughputTest extends EmbeddedKafkaSupport {
+
+    private static final int EVENTS = 30_000;
+    private static final int CONVERSATIONS = 300;
+
+    private static final EventTypeRegistry EVENT_TYPES = new EventTypeRegistry();
+
+    @BeforeAll
+    @SuppressWarnings("unchecked")
+    static void produceBacklog() {
+        KafkaConfig kafkaConfig = kafkaConfig();
+        ProducerFactory<String, Object> producerFactory =
+                kafkaConfig.chatEventProducerFactory(kafkaProperties(), mock(ObjectProvider.class));
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        LocalDateTime readAt = LocalDateTime.now();
+
+        // A reader scrolling through conversations: runs of reads per conversation, keyed as in production
+        for (int i = 0; i < EVENTS; i++) {
+            String conversationId = "c" + (i / 10 % CONVERSATIONS);
+            kafkaTemplate.send(MESSAGE_EVENTS, conversationId, MessageReadEvent.builder()
+                    .messageId("m" + i)
+                    .conversationId(conversationId)
+                    .senderId("sender-" + conversationId)
+                    .readAt(readAt.plusNanos(i * 1000L))
+                    .timestamp(Instant.now())
+                    .build());
+        }
+        kafkaTemplate.flush();
+        ((DefaultKafkaProducerFactory<String, Object>) producerFactory).destroy();
+    }
+
+    @Test
+    void batchVsRecordListener() throws Exception {
+        KafkaConfig kafkaConfig = kafkaConfig();
+
+        Run record = consume("record listener", "bench-record", kafkaConfig, false);
+        Run batch = consume("batch listener", "bench-batch", kafkaConfig, true);
+
+        log.info("MESSAGE_READ consume: record listener {} records/s, {} frames; batch listener {} records/s, "
+                        + "{} frames ({}x records/s, {}% of the frames)",
+                Math.round(record.recordsPerSecond()), record.frames(),
+                Math.round(batch.recordsPerSecond()), batch.frames(),
+                String.format("%.2f", batch.recordsPerSecond() / record.recordsPerSecond()),
+                Math.round(100.0 * batch.frames() / record.frames()));
+
+        // One frame per read without batching; runs of one conversation fold into one frame with it
+        assertThat(record.frames()).isEqualTo(EVENTS);
+        assertThat(batch.frames()).isLessThan(record.frames());
+    }
+
+    private Run consume(String name, String groupId, KafkaConfig kafkaConfig, boolean batch) throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PresenceRegistry presenceRegistry = mock(PresenceRegistry.class, withSettings().stubOnly());
+        when(presenceRegistry.isOnline(anyString())).thenReturn(true);
+        MessageEventListener listener = new MessageEventListener(
+                mock(SimpMessagingTemplate.class, withSettings().stubOnly()),
+                mock(MessageRepository.class), presenceRegistry, EVENT_TYPES, meterRegistry);
+
+        ConsumerFactory<String, Object> consumerFactory = kafkaConfig.consumerFactory(meterRegistry);
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory;
+        if (batch) {
+            factory = kafkaConfig.messageEventListenerContainerFactory(consumerFactory);
+        } else {
+            factory = kafkaConfig.kafkaListenerContainerFactory(consumerFactory);
+            factory.setConcurrency(3);
+            factory.getContainerProperties().setKafkaConsumerProperties(new Properties());
+        }
+
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong firstRecord = new AtomicLong();
+        AtomicLong lastRecord = new AtomicLong();
+        ConcurrentMessageListenerContainer<String, Object> container = factory.createContainer(MESSAGE_EVENTS);
+        container.getContainerProperties().setGroupId(groupId);
+        container.getContainerProperties().getKafkaConsumerProperties()
+                .put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        if (batch) {
+            container.setupMessageListener((BatchMessageListener<String, Object>) records -> {
+                firstRecord.compareAndSet(0, System.nanoTime());
+                listener.handleMessageEvents(records);
+                if (consumed.addAndGet(records.size()) == EVENTS) {
+                    lastRecord.set(System.nanoTime());
+                }
+            });
+        } else {
+            container.setupMessageListener((MessageListener<String, Object>) record -> {
+                firstRecord.compareAndSet(0, System.nanoTime());
+                listener.handleMessageEvents(List.of(record));
+                if (consumed.incrementAndGet() == EVENTS) {
+                    lastRecord.set(System.nanoTime());
+                }
+            });
+        }
+
+        container.start();
+        try {
+            long deadline = System.currentTimeMillis() + 120_000;
+            while (lastRecord.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            container.stop();
+        }
+        assertThat(consumed.get()).as("%s consumed", name).isEqualTo(EVENTS);
+
+        // Group join is excluded: first delivered record to last
+        long elapsed = lastRecord.get() - firstRecord.get();
+        long frames = Math.round(meterRegistry.get("message.events.read_frames").counter().count());
+        log.info("{}: {} records in {} ms, {} frames", name, EVENTS, TimeUnit.NANOSECONDS.toMillis(elapsed), frames);
+        return new Run(EVENTS * 1e9 / elapsed, frames);
+    }
+
+    private static KafkaConfig kafkaConfig() {
+        KafkaConfig kafkaConfig = new KafkaConfig(EVENT_TYPES);
+        ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", bootstrapServers());
+        ReflectionTestUtils.setField(kafkaConfig, "groupId", "communication-service");
+        ReflectionTestUtils.setField(kafkaConfig, "chatLingerMs", 5);
+        ReflectionTestUtils.setField(kafkaConfig, "chatBatchSize", 65536);
+        ReflectionTestUtils.setField(kafkaConfig, "chatCompressionType", "lz4");
+        ReflectionTestUtils.setField(kafkaConfig, "messageConsumerConcurrency", 3);
+        ReflectionTestUtils.setField(kafkaConfig, "messageConsumerMaxPollRecords", 500);
+        return kafkaConfig;
+    }
+
+    private record Run(double recordsPerSecond, long frames) {
+    }
+}
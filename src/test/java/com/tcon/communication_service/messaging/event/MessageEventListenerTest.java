@@ -0,0 +1,158 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import com.tcon.communication_service.websocket.PresenceRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * READ receipt coalescing per Kafka batch
+ */
+class MessageEventListenerTest {
+
+    private static final LocalDateTime READ_AT = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MessageEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        when(presenceRegistry.isOnline(anyString())).thenReturn(true);
+        listener = new MessageEventListener(messagingTemplate, messageRepository, presenceRegistry,
+                new EventTypeRegistry(), meterRegistry);
+    }
+
+    @Test
+    void readsOfOneSenderInAConversationBecomeOneFrame() {
+        listener.handleMessageEvents(records(
+                read("c1", "m1", "alice", 0),
+                read("c1", "m2", "alice", 1),
+                read("c2", "m9", "alice", 2),
+                read("c1", "m3", "alice", 3)));
+
+        List<Map<String, Object>> frames = framesTo("alice", 2);
+        assertThat(frames.get(0))
+                .containsEntry("conversationId", "c1")
+                .containsEntry("id", "m3")
+                .containsEntry("messageIds", List.of("m1", "m2", "m3"))
+                .containsEntry("readAt", READ_AT.plusSeconds(3).toString());
+        assertThat(frames.get(1))
+                .containsEntry("conversationId", "c2")
+                .containsEntry("messageIds", List.of("m9"));
+        assertThat(meterRegistry.get("message.events.read_frames").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("message.events.read_coalesced").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void missingSendersAreResolvedWithOneLookupAndOfflineSendersSkipped() {
+        Message m1 = Message.builder().id("m1").senderId("alice").build();
+        Message m2 = Message.builder().id("m2").senderId("bob").build();
+        when(messageRepository.findAllById(any())).thenReturn(List.of(m1, m2));
+        when(presenceRegistry.isOnline("bob")).thenReturn(false);
+
+        listener.handleMessageEvents(records(
+                read("c1", "m1", null, 0),
+                read("c1", "m2", null, 1),
+                read("c1", "m-gone", null, 2)));
+
+        verify(messageRepository, times(1)).findAllById(any());
+        assertThat(framesTo("alice", 1).get(0)).containsEntry("messageIds", List.of("m1"));
+        verify(messagingTemplate, never()).convertAndSendToUser(eq("bob"), anyString(), any());
+    }
+
+    @Test
+    void readUpTosOfOneReaderAreMergedToTheLatestWatermark() {
+        listener.handleMessageEvents(records(
+                readUpTo("c1", "bob", List.of("alice"), READ_AT.plusSeconds(5), 2),
+                readUpTo("c1", "bob", List.of("alice", "carol"), READ_AT, 1),
+                readUpTo("c1", "dave", List.of("alice"), READ_AT, 4)));
+
+        List<Map<String, Object>> toAlice = framesTo("alice", 2);
+        assertThat(toAlice.get(0))
+                .containsEntry("readerId", "bob")
+                .containsEntry("readUpTo", READ_AT.plusSeconds(5).toString())
+                .containsEntry("count", 3L);
+        assertThat(toAlice.get(1)).containsEntry("readerId", "dave").containsEntry("count", 4L);
+        assertThat(framesTo("carol", 1).get(0)).containsEntry("readerId", "bob");
+        assertThat(meterRegistry.get("message.events.read_coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sentAndDeliveredEventsAreCountedButNotForwarded() {
+        listener.handleMessageEvents(records(
+                MessageSentEvent.builder().messageId("m1").conversationId("c1").build(),
+                Map.of("eventType", "SOMETHING_ELSE")));
+
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+        assertThat(meterRegistry.get("message.events.consumed").tag("eventType", "MESSAGE_SENT").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("message.events.consumed").tag("eventType", "UNKNOWN").counter().count())
+                .isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> framesTo(String userId, int expected) {
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(expected))
+                .convertAndSendToUser(eq(userId), eq("/queue/message-read"), payloads.capture());
+        List<Map<String, Object>> frames = new ArrayList<>();
+        payloads.getAllValues().forEach(payload -> frames.add((Map<String, Object>) payload));
+        return frames;
+    }
+
+    private static List<ConsumerRecord<String, Object>> records(Object... events) {
+        List<ConsumerRecord<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < events.length; i++) {
+            records.add(new ConsumerRecord<>("message-events", 0, i, "key", events[i]));
+        }
+        return records;
+    }
+
+    private static MessageReadEvent read(String conversationId, String messageId, String senderId, int second) {
+        return MessageReadEvent.builder()
+                .conversationId(conversationId)
+                .messageId(messageId)
+                .senderId(senderId)
+                .readAt(READ_AT.plusSeconds(second))
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    private static ConversationReadUpToEvent readUpTo(String conversationId, String readerId, List<String> senderIds,
+                                                      LocalDateTime readUpTo, long count) {
+        return ConversationReadUpToEvent.builder()
+                .conversationId(conversationId)
+                .readerId(readerId)
+                .senderIds(senderIds)
+                .readUpTo(readUpTo)
+                .count(count)
+                .timestamp(Instant.now())
+                .build();
+    }
+}
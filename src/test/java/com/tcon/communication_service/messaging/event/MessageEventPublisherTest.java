@@ -0,0 +1,143 @@
+package com.tcon.communication_service.messaging.event;
+
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.service.EventOutbox;
+import com.tcon.communication_service.messaging.entity.Message;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keyed partitioning and message.events.publish metrics of the direct (non-outbox) publish path
+ */
+class MessageEventPublisherTest {
+
+    private static final String TOPIC = "message-events";
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final EventOutbox eventOutbox = mock(EventOutbox.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessageEventPublisher publisher =
+            new MessageEventPublisher(kafkaTemplate, new EventTypeRegistry(), eventOutbox, meterRegistry, TOPIC);
+
+    @Test
+    void conversationEventsAreKeyedByConversationIdInSendOrder() {
+        List<String> keys = recordKeys();
+
+        publisher.publishMessagesSent(List.of(message("m1", "c1"), message("m2", "c2"), message("m3", "c1")));
+        publisher.publishMessageRead(message("m1", "c1"));
+        publisher.publishMessageDelivered(message("m2", "c2"));
+
+        assertThat(keys).containsExactly("c1", "c2", "c1", "c1", "c2");
+        verify(kafkaTemplate).send(eq(TOPIC), eq("c1"), any(MessageReadEvent.class));
+    }
+
+    @Test
+    void receiverScopedEventsAreKeyedByReceiverId() {
+        List<String> keys = recordKeys();
+
+        publisher.publishMessagesDelivered("bob", List.of("m1", "m2"));
+
+        assertThat(keys).containsExactly("bob");
+    }
+
+    @Test
+    void brokerAckIsRecordedAsSuccess() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.publishMessageSent(message("m1", "c1"));
+        publisher.publishMessageSent(message("m2", "c1"));
+
+        assertThat(timer("MESSAGE_SENT", "success").count()).isEqualTo(2);
+        assertThat(meterRegistry.find("message.events.publish").tag("outcome", "failure").timer()).isNull();
+    }
+
+    @Test
+    void failedAckIsRecordedAsFailure() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        publisher.publishMessageRead(message("m1", "c1"));
+
+        assertThat(timer("MESSAGE_READ", "failure").count()).isEqualTo(1);
+    }
+
+    @Test
+    void synchronousSendErrorIsRecordedAsFailure() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenThrow(new IllegalStateException("serialization"));
+
+        publisher.publishMessageDelivered(message("m1", "c1"));
+
+        assertThat(timer("MESSAGE_DELIVERED", "failure").count()).isEqualTo(1);
+    }
+
+    @Test
+    void pendingAckIsRecordedOnlyOnceItCompletes() {
+        CompletableFuture<SendResult<String, Object>> ack = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(ack);
+
+        publisher.publishMessageSent(message("m1", "c1"));
+        assertThat(meterRegistry.find("message.events.publish").timer()).isNull();
+
+        ack.complete(null);
+        assertThat(timer("MESSAGE_SENT", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void outboxModeSkipsTheDirectSend() {
+        when(eventOutbox.isEnabled()).thenReturn(true);
+
+        publisher.publishMessagesSent(List.of(message("m1", "c1"), message("m2", "c1")));
+
+        verify(eventOutbox).appendAll(eq(TOPIC), any());
+        assertThat(meterRegistry.find("message.events.publish").timer()).isNull();
+    }
+
+    // ─────────────────────────────────────────────────────────────
+
+    private List<String> recordKeys() {
+        List<String> keys = Collections.synchronizedList(new ArrayList<>());
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            keys.add(invocation.getArgument(1));
+            return CompletableFuture.completedFuture(null);
+        });
+        return keys;
+    }
+
+    private Timer timer(String eventType, String outcome) {
+        Timer timer = meterRegistry.find("message.events.publish")
+                .tag("eventType", eventType)
+                .tag("outcome", outcome)
+                .timer();
+        assertThat(timer).as("%s/%s timer", eventType, outcome).isNotNull();
+        return timer;
+    }
+
+    private static Message message(String id, String conversationId) {
+        return Message.builder()
+                .id(id)
+                .conversationId(conversationId)
+                .seq(1L)
+                .senderId("alice")
+                .receiverId("bob")
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers one conversation from many threads: the atomic $inc / pipeline updates must
+ * not lose a single unread increment.
+ */
+class ConversationRepositoryConcurrencyTest extends EmbeddedMongoSupport {
+
+    private static final String ALICE = "alice";
+    private static final String BOB = "bob";
+    private static final int THREADS = 16;
+    private static final int SENDS_PER_THREAD = 50;
+
+    private ConversationRepositoryCustomImpl repository;
+    private String conversationId;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ConversationRepositoryCustomImpl(mongoTemplate);
+        conversationId = repository.upsertByPairKey(List.of(ALICE, BOB), "DIRECT").getId();
+    }
+
+    @Test
+    void concurrentSendsInBothDirectionsKeepExactUnreadCounts() throws Exception {
+        runConcurrently(THREADS, thread -> () -> {
+            String sender = thread % 2 == 0 ? ALICE : BOB;
+            String recipient = sender.equals(ALICE) ? BOB : ALICE;
+            for (int i = 0; i < SENDS_PER_THREAD; i++) {
+                repository.applyLastMessage(conversationId, message(sender), Map.of(recipient, 1));
+            }
+            return null;
+        });
+
+        Conversation conversation = reload();
+        int perSide = THREADS / 2 * SENDS_PER_THREAD;
+        assertThat(conversation.getUnreadCount(ALICE)).isEqualTo(perSide);
+        assertThat(conversation.getUnreadCount(BOB)).isEqualTo(perSide);
+    }
+
+    @Test
+    void readsRacingSendsNeverLoseOrDoubleCountIncrements() throws Exception {
+        AtomicLong resetByReads = new AtomicLong();
+        int readers = THREADS / 4;
+
+        runConcurrently(THREADS, thread -> () -> {
+            if (thread < readers) {
+                for (int i = 0; i < SENDS_PER_THREAD; i++) {
+                    Conversation before = repository.markReadUpToLastMessage(conversationId, BOB);
+                    resetByReads.addAndGet(before.getUnreadCount(BOB));
+                }
+            } else {
+                for (int i = 0; i < SENDS_PER_THREAD; i++) {
+                    repository.applyLastMessage(conversationId, message(ALICE), Map.of(BOB, 1));
+                }
+            }
+            return null;
+        });
+
+        // Every increment was either cleared by exactly one read or is still pending
+        long sent = (long) (THREADS - readers) * SENDS_PER_THREAD;
+        assertThat(resetByReads.get() + reload().getUnreadCount(BOB)).isEqualTo(sent);
+    }
+
+    @Test
+    void markReadResetsCounterAndMovesWatermarkToLastMessage() throws Exception {
+        runConcurrently(THREADS, thread -> () -> {
+            for (int i = 0; i < SENDS_PER_THREAD; i++) {
+                repository.applyLastMessage(conversationId, message(ALICE), Map.of(BOB, 1));
+            }
+            return null;
+        });
+        runConcurrently(THREADS, thread -> () -> repository.markReadUpToLastMessage(conversationId, BOB));
+
+        Conversation conversation = reload();
+        assertThat(conversation.getUnreadCount(BOB)).isZero();
+        assertThat(conversation.getReadWatermark(BOB)).isNotNull();
+        assertThat(conversation.getReadWatermark(BOB).getLastReadMessageId())
+                .isEqualTo(conversation.getLastMessageId());
+    }
+
+    @Test
+    void markReadByNonParticipantIsRejected() {
+        assertThat(repository.markReadUpToLastMessage(conversationId, "mallory")).isNull();
+    }
+
+    private Conversation reload() {
+        return mongoTemplate.findById(conversationId, Conversation.class);
+    }
+
+    private Message message(String senderId) {
+        return Message.builder()
+                .id(new ObjectId().toHexString())
+                .conversationId(conversationId)
+                .senderId(senderId)
+                .content("hello")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void runConcurrently(int threads, TaskFactory factory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                Callable<?> task = factory.create(thread);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TaskFactory {
+        Callable<?> create(int thread);
+    }
+}
@@ -0,0 +1,98 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.dto.MessageCursor;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * History page latency on a deep conversation: offset paging (skip + count) vs the seq keyset,
+ * at page 50 and page 500 of 50 messages, with the indexes declared on Message
+ */
+@Slf4j
+class MessageHistoryPageLatencyTest extends EmbeddedMongoSupport {
+
+    private static final String CONVERSATION = "conv-deep";
+    private static final int HISTORY = 50_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int RUNS = 200;
+
+    private MessageRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Message.class)
+                .forEach(mongoTemplate.indexOps(Message.class)::ensureIndex);
+        repository = new MongoRepositoryFactory(mongoTemplate).getRepository(MessageRepository.class,
+                RepositoryFragments.just(new MessageRepositoryCustomImpl(mongoTemplate)));
+
+        LocalDateTime base = LocalDateTime.now().minusDays(365);
+        List<Message> batch = new ArrayList<>();
+        for (long seq = 1; seq <= HISTORY; seq++) {
+            batch.add(Message.builder()
+                    .conversationId(CONVERSATION)
+                    .seq(seq)
+                    .senderId(seq % 2 == 0 ? "alice" : "bob")
+                    .receiverId(seq % 2 == 0 ? "bob" : "alice")
+                    .content("message " + seq)
+                    .isDeleted(false)
+                    .createdAt(base.plusSeconds(seq))
+                    .build());
+            if (batch.size() == 5_000) {
+                mongoTemplate.insertAll(batch);
+                batch = new ArrayList<>();
+            }
+        }
+    }
+
+    @Test
+    void keysetVsOffsetOnADeepHistory() {
+        for (int page : new int[]{50, 500}) {
+            // The cursor a client holds after walking to this page: the oldest seq of the page before
+            MessageCursor cursor = new MessageCursor(HISTORY - (long) (page - 1) * PAGE_SIZE + 1);
+            Supplier<List<Message>> offset = () -> repository.findByConversationIdAndIsDeletedFalseOrderByCreatedAtDesc(
+                    CONVERSATION, PageRequest.of(page - 1, PAGE_SIZE)).getContent();
+            Supplier<List<Message>> keyset = () -> repository.findKeysetPage(CONVERSATION, cursor, true, PAGE_SIZE);
+
+            assertThat(keyset.get()).extracting(Message::getSeq)
+                    .isEqualTo(offset.get().stream().map(Message::getSeq).toList())
+                    .hasSize(PAGE_SIZE);
+
+            long[] offsetNanos = measure(offset);
+            long[] keysetNanos = measure(keyset);
+            log.info("Page {} of a {}-message history: offset p50 {} µs p99 {} µs, keyset p50 {} µs p99 {} µs",
+                    page, HISTORY, offsetNanos[RUNS / 2] / 1000, offsetNanos[RUNS * 99 / 100] / 1000,
+                    keysetNanos[RUNS / 2] / 1000, keysetNanos[RUNS * 99 / 100] / 1000);
+        }
+    }
+
+    private static long[] measure(Supplier<List<Message>> page) {
+        for (int i = 0; i < 20; i++) {
+            page.get();
+        }
+        long[] latencies = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            page.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+}
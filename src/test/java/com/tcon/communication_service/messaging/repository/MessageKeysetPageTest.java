@@ -0,0 +1,91 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.dto.MessageCursor;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset (seq cursor) pagination over a conversation's history
+ */
+class MessageKeysetPageTest extends EmbeddedMongoSupport {
+
+    private static final String CONVERSATION = "conv-1";
+
+    private MessageRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new MessageRepositoryCustomImpl(mongoTemplate);
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        for (long seq = 1; seq <= 25; seq++) {
+            // Same createdAt for several messages: ordering must come from seq alone
+            insert(CONVERSATION, seq, base.plusSeconds(seq / 5), seq == 13);
+        }
+        insert("conv-2", 26, base, false);
+    }
+
+    @Test
+    void firstPageIsNewestFirst() {
+        List<Message> page = repository.findKeysetPage(CONVERSATION, null, true, 5);
+
+        assertThat(page).extracting(Message::getSeq).containsExactly(25L, 24L, 23L, 22L, 21L);
+    }
+
+    @Test
+    void olderPagesWalkTheWholeHistoryWithoutGapsOrDuplicates() {
+        List<Long> seen = new ArrayList<>();
+        MessageCursor cursor = null;
+
+        while (true) {
+            List<Message> page = repository.findKeysetPage(CONVERSATION, cursor, true, 7);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(message -> seen.add(message.getSeq()));
+            // Round-trip through the opaque token, as a client would
+            cursor = MessageCursor.decode(new MessageCursor(page.get(page.size() - 1).getSeq()).encode());
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (long seq = 25; seq >= 1; seq--) {
+            if (seq != 13) {
+                expected.add(seq);
+            }
+        }
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void newerPageReturnsTheMessagesJustAfterTheCursorNewestFirst() {
+        // 13 is soft-deleted
+        List<Message> page = repository.findKeysetPage(CONVERSATION, new MessageCursor(10), false, 3);
+
+        assertThat(page).extracting(Message::getSeq).containsExactly(14L, 12L, 11L);
+    }
+
+    @Test
+    void cursorPastTheEndReturnsEmptyPage() {
+        assertThat(repository.findKeysetPage(CONVERSATION, new MessageCursor(1), true, 10)).isEmpty();
+        assertThat(repository.findKeysetPage(CONVERSATION, new MessageCursor(25), false, 10)).isEmpty();
+    }
+
+    private void insert(String conversationId, long seq, LocalDateTime createdAt, boolean deleted) {
+        mongoTemplate.insert(Message.builder()
+                .conversationId(conversationId)
+                .seq(seq)
+                .senderId("alice")
+                .receiverId("bob")
+                .content("message " + seq)
+                .isDeleted(deleted)
+                .createdAt(createdAt)
+                .build());
+    }
+}
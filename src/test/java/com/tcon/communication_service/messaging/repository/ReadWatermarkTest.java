@@ -0,0 +1,129 @@
+package com.tcon.communication_service.messaging.repository;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.entity.MessageStatus;
+import com.tcon.communication_service.messaging.entity.ReadWatermark;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single-message reads against the per-user read watermark and the unread counter
+ */
+class ReadWatermarkTest extends EmbeddedMongoSupport {
+
+    private static final String ALICE = "alice";
+    private static final String BOB = "bob";
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    private ConversationRepositoryCustomImpl conversations;
+    private MessageRepositoryCustomImpl messages;
+    private String conversationId;
+
+    @BeforeEach
+    void setUp() {
+        conversations = new ConversationRepositoryCustomImpl(mongoTemplate);
+        messages = new MessageRepositoryCustomImpl(mongoTemplate);
+        conversationId = conversations.upsertByPairKey(List.of(ALICE, BOB), "DIRECT").getId();
+    }
+
+    @Test
+    void readingAnOlderMessageKeepsNewerOnesUnread() {
+        Message first = send(0);
+        send(1);
+        send(2);
+
+        assertThat(conversations.advanceReadWatermark(conversationId, BOB, watermark(first))).isTrue();
+
+        Conversation conversation = reload();
+        assertThat(conversation.getUnreadCount(BOB)).isEqualTo(2);
+        assertThat(conversation.getReadWatermark(BOB).getLastReadMessageId()).isEqualTo(first.getId());
+        assertThat(messages.countUnread(conversationId, BOB, first.getCreatedAt())).isEqualTo(2);
+    }
+
+    @Test
+    void readingTheLastMessageResetsTheCounter() {
+        send(0);
+        send(1);
+        Message last = send(2);
+
+        assertThat(conversations.advanceReadWatermark(conversationId, BOB, watermark(last))).isTrue();
+
+        assertThat(reload().getUnreadCount(BOB)).isZero();
+        assertThat(messages.countUnread(conversationId, BOB, last.getCreatedAt())).isZero();
+    }
+
+    @Test
+    void watermarkNeverMovesBackwards() {
+        Message first = send(0);
+        Message second = send(1);
+        Message third = send(2);
+
+        conversations.advanceReadWatermark(conversationId, BOB, watermark(second));
+
+        assertThat(conversations.advanceReadWatermark(conversationId, BOB, watermark(first))).isFalse();
+        Conversation conversation = reload();
+        assertThat(conversation.getReadWatermark(BOB).getLastReadMessageId()).isEqualTo(second.getId());
+        assertThat(conversation.getUnreadCount(BOB)).isEqualTo(1);
+
+        conversations.advanceReadWatermark(conversationId, BOB, watermark(third));
+        assertThat(reload().getUnreadCount(BOB)).isZero();
+    }
+
+    @Test
+    void unreadCountIgnoresPerMessageStatus() {
+        Message first = send(0);
+        Message legacyRead = send(1);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(legacyRead.getId())),
+                new Update().set("status", MessageStatus.READ), Message.class);
+
+        // Only the watermark decides: a message past it counts even if stored as READ
+        assertThat(messages.countUnread(conversationId, BOB, first.getCreatedAt())).isEqualTo(1);
+        assertThat(messages.countUnread(conversationId, BOB, null)).isEqualTo(2);
+    }
+
+    @Test
+    void readByNonParticipantIsRejected() {
+        Message first = send(0);
+
+        assertThat(conversations.advanceReadWatermark(conversationId, "mallory", watermark(first))).isFalse();
+        assertThat(reload().getUnreadCount(BOB)).isEqualTo(1);
+    }
+
+    private Message send(int minute) {
+        Message message = Message.builder()
+                .id(new ObjectId().toHexString())
+                .conversationId(conversationId)
+                .senderId(ALICE)
+                .receiverId(BOB)
+                .content("hello " + minute)
+                .createdAt(START.plusMinutes(minute))
+                .build();
+        mongoTemplate.insert(message);
+        conversations.applyLastMessage(conversationId, message, Map.of(BOB, 1));
+        return message;
+    }
+
+    private static ReadWatermark watermark(Message message) {
+        return ReadWatermark.builder()
+                .lastReadMessageId(message.getId())
+                .lastReadAt(message.getCreatedAt())
+                .readAt(START.plusHours(1))
+                .build();
+    }
+
+    private Conversation reload() {
+        return mongoTemplate.findById(conversationId, Conversation.class);
+    }
+}
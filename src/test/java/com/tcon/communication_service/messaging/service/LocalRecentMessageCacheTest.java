@@ -0,0 +1,114 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fill races between a first-page load and concurrent write-through
+ */
+class LocalRecentMessageCacheTest {
+
+    private static final String CONVERSATION = "conv-1";
+
+    private final LocalRecentMessageCache cache =
+            new LocalRecentMessageCache(new SimpleMeterRegistry(), 5, 100, Duration.ofMinutes(10));
+
+    @Test
+    void sendRacingTheMongoReadIsKept() {
+        long token = cache.loadToken(CONVERSATION);
+        List<MessageDto> fromMongo = newestFirst(3, 1);
+
+        cache.onSent(message(4));   // lands between the Mongo read and the load
+        cache.load(CONVERSATION, token, fromMongo, 3, Map.of());
+
+        RecentMessageCache.RecentPage page = cache.getNewest(CONVERSATION, 5);
+        assertThat(page.content()).extracting(MessageDto::getSeq).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(page.total()).isEqualTo(4);
+    }
+
+    @Test
+    void writeBehindMessageNotInsertedYetIsKept() {
+        cache.onSent(message(8));   // queued, not in Mongo yet
+
+        long token = cache.loadToken(CONVERSATION);
+        cache.load(CONVERSATION, token, newestFirst(7, 3), 20, Map.of());
+
+        RecentMessageCache.RecentPage page = cache.getNewest(CONVERSATION, 5);
+        assertThat(page.content()).extracting(MessageDto::getSeq).containsExactly(8L, 7L, 6L, 5L, 4L);
+        assertThat(page.total()).isEqualTo(21);
+        assertThat(page.hasMore()).isTrue();
+    }
+
+    @Test
+    void sendAlreadyVisibleToMongoIsNotCountedTwice() {
+        cache.onSent(message(3));
+
+        long token = cache.loadToken(CONVERSATION);
+        cache.load(CONVERSATION, token, newestFirst(3, 1), 3, Map.of());
+
+        assertThat(cache.getNewest(CONVERSATION, 5).content())
+                .extracting(MessageDto::getSeq).containsExactly(3L, 2L, 1L);
+        assertThat(cache.getNewest(CONVERSATION, 5).total()).isEqualTo(3);
+    }
+
+    @Test
+    void unloadedConversationIsNeverServed() {
+        cache.onSent(message(1));
+
+        assertThat(cache.getNewest(CONVERSATION, 1)).isNull();
+    }
+
+    @Test
+    void editRacingTheMongoReadDropsTheLoad() {
+        long token = cache.loadToken(CONVERSATION);
+        List<MessageDto> fromMongo = newestFirst(3, 1);
+
+        cache.onUpdated(message(2).toBuilder().content("edited").build());
+        cache.load(CONVERSATION, token, fromMongo, 3, Map.of());
+        assertThat(cache.getNewest(CONVERSATION, 3)).isNull();
+
+        // The next read reloads with a fresh token
+        cache.load(CONVERSATION, cache.loadToken(CONVERSATION), fromMongo, 3, Map.of());
+        assertThat(cache.getNewest(CONVERSATION, 3)).isNotNull();
+    }
+
+    @Test
+    void droppedLoadKeepsPendingSends() {
+        long token = cache.loadToken(CONVERSATION);
+        cache.onSent(message(4));
+        cache.onDeleted(CONVERSATION, "m-1");
+        cache.load(CONVERSATION, token, newestFirst(3, 1), 3, Map.of());
+
+        cache.load(CONVERSATION, cache.loadToken(CONVERSATION), newestFirst(3, 2), 2, Map.of());
+
+        assertThat(cache.getNewest(CONVERSATION, 5).content())
+                .extracting(MessageDto::getSeq).containsExactly(4L, 3L, 2L);
+    }
+
+    private static List<MessageDto> newestFirst(long newest, long oldest) {
+        List<MessageDto> messages = new ArrayList<>();
+        for (long seq = newest; seq >= oldest; seq--) {
+            messages.add(message(seq));
+        }
+        return messages;
+    }
+
+    private static MessageDto message(long seq) {
+        return MessageDto.builder()
+                .id("m-" + seq)
+                .conversationId(CONVERSATION)
+                .seq(seq)
+                .content("message " + seq)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.websocket.PresenceRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fan-out of the shared send path: receiver push, offline queue, replayed retries
+ */
+class MessageDeliveryServiceTest {
+
+    private static final MessageSendRequest REQUEST = MessageSendRequest.builder()
+            .receiverId("bob")
+            .content("hello")
+            .build();
+
+    private final MessageService messageService = mock(MessageService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+    private final OfflineDeliveryService offlineDeliveryService = mock(OfflineDeliveryService.class);
+    private final TypingStateService typingStateService = mock(TypingStateService.class);
+    private final MessageDeliveryService deliveryService = new MessageDeliveryService(messageService,
+            messagingTemplate, presenceRegistry, offlineDeliveryService, typingStateService);
+
+    private final MessageDto message = MessageDto.builder()
+            .id("m1")
+            .conversationId("c1")
+            .senderId("alice")
+            .receiverId("bob")
+            .build();
+
+    @Test
+    void onlineReceiverGetsThePush() {
+        when(messageService.send("alice", "STUDENT", REQUEST)).thenReturn(new MessageService.SendResult(message, false));
+        when(presenceRegistry.isOnline("bob")).thenReturn(true);
+
+        assertThat(deliveryService.send("alice", "STUDENT", REQUEST).message()).isSameAs(message);
+
+        verify(messagingTemplate).convertAndSend("/topic/conversations/c1", message);
+        verify(messagingTemplate).convertAndSendToUser("bob", "/queue/messages", message);
+        verifyNoInteractions(offlineDeliveryService);
+        verify(typingStateService).stop("c1", "alice");
+    }
+
+    @Test
+    void offlineReceiverIsQueued() {
+        when(messageService.send("alice", "STUDENT", REQUEST)).thenReturn(new MessageService.SendResult(message, false));
+
+        deliveryService.send("alice", "STUDENT", REQUEST);
+
+        verify(offlineDeliveryService).enqueue(message);
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+    }
+
+    @Test
+    void replayedRetryIsNotPushedOrQueuedAgain() {
+        when(messageService.send("alice", "STUDENT", REQUEST)).thenReturn(new MessageService.SendResult(message, true));
+
+        assertThat(deliveryService.send("alice", "STUDENT", REQUEST).replayed()).isTrue();
+
+        verifyNoInteractions(messagingTemplate, presenceRegistry, offlineDeliveryService, typingStateService);
+    }
+}
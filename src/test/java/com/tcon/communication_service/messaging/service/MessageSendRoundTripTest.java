@@ -0,0 +1,121 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.entity.OutboxEvent;
+import com.tcon.communication_service.event.repository.OutboxEventRepository;
+import com.tcon.communication_service.event.service.EventOutbox;
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.event.MessageEventPublisher;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.ConversationRepositoryCustomImpl;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import com.tcon.communication_service.messaging.repository.MessageRepositoryCustomImpl;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Mongo round trips per send, through the real publisher so the MESSAGE_SENT outbox insert is
+ * counted (was up to six before the outbox: conversation probes, message save, conversation
+ * findById + full save)
+ */
+class MessageSendRoundTripTest extends EmbeddedMongoSupport {
+
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private MessageService messageService;
+    private ConversationService conversationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        MessageRepository messageRepository = factory.getRepository(MessageRepository.class,
+                RepositoryFragments.just(new MessageRepositoryCustomImpl(mongoTemplate)));
+        ConversationRepository conversationRepository = factory.getRepository(ConversationRepository.class,
+                RepositoryFragments.just(new ConversationRepositoryCustomImpl(mongoTemplate)));
+
+        // Real publisher in its default outbox mode; only the producer is mocked
+        kafkaTemplate = mock(KafkaTemplate.class);
+        EventOutbox eventOutbox = new EventOutbox(factory.getRepository(OutboxEventRepository.class),
+                new EventTypeRegistry(), mock(ObjectProvider.class), kafkaTemplate,
+                mongoTemplate.getMongoDatabaseFactory(), true, false);
+
+        RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+        ParentChildrenCache parentChildrenCache = mock(ParentChildrenCache.class);
+        ParentConversationIndex parentConversationIndex = mock(ParentConversationIndex.class);
+        conversationService = new ConversationService(conversationRepository, parentChildrenCache,
+                parentConversationIndex, mock(ConversationMapper.class),
+                new ConversationResolutionCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(30),
+                        Duration.ofSeconds(30)),
+                recentMessageCache);
+        messageService = new MessageService(messageRepository, conversationRepository, conversationService,
+                new MessageMapper(),
+                new MessageEventPublisher(kafkaTemplate, new EventTypeRegistry(), eventOutbox,
+                        new SimpleMeterRegistry(), "message-events"),
+                eventOutbox, parentChildrenCache,
+                parentConversationIndex, recentMessageCache, mock(SendIdempotencyCache.class),
+                mock(ObjectProvider.class));
+    }
+
+    @Test
+    void sendToAKnownConversationIsFourRoundTrips() {
+        send("first");   // resolves and caches the conversation
+
+        int before = commandCount();
+        MessageDto sent = send("second");
+
+        // seq reservation + message insert + one $set/$inc conversation update + outbox insert
+        assertThat(commandCount() - before).isEqualTo(4);
+        Conversation conversation = mongoTemplate.findById(sent.getConversationId(), Conversation.class);
+        assertThat(conversation.getLastMessageId()).isEqualTo(sent.getId());
+        assertThat(conversation.getUnreadCounts()).containsEntry("bob", 2);
+        assertThat(conversation.getMessageSeq()).isEqualTo(2L);
+        assertThat(mongoTemplate.count(new Query(), Message.class))
+                .isEqualTo(2);
+        assertThat(mongoTemplate.count(new Query(), OutboxEvent.class)).isEqualTo(2);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void firstSendResolvesTheConversationWithOneLookupAndOneUpsert() {
+        int before = commandCount();
+        send("hello");
+
+        // pairKey lookup + upsert, then the four writes above
+        assertThat(commandCount() - before).isEqualTo(6);
+    }
+
+    @Test
+    void legacySeqCatchUpCostsOneQueryPerSend() {
+        ReflectionTestUtils.setField(conversationService, "legacyCatchUp", Duration.ofHours(6));
+        send("first");
+
+        int before = commandCount();
+        send("second");
+
+        assertThat(commandCount() - before).isEqualTo(5);
+    }
+
+    private MessageDto send(String content) {
+        return messageService.sendMessage("alice", "STUDENT", MessageSendRequest.builder()
+                .receiverId("bob")
+                .content(content)
+                .build());
+    }
+}
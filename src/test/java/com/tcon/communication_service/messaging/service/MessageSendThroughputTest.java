@@ -0,0 +1,133 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.repository.OutboxEventRepository;
+import com.tcon.communication_service.event.service.EventOutbox;
+import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.event.MessageEventPublisher;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.ConversationRepositoryCustomImpl;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import com.tcon.communication_service.messaging.repository.MessageRepositoryCustomImpl;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sends/s through MessageService: synchronous insert + outbox vs message.write-behind,
+ * with concurrent senders in their own conversations (the outbox relay is not started)
+ */
+@Slf4j
+class MessageSendThroughputTest extends EmbeddedMongoSupport {
+
+    private static final int SENDERS = 16;
+    private static final int SENDS_PER_SENDER = 250;
+    private static final int SENDS = SENDERS * SENDS_PER_SENDER;
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void writeBehindVsSynchronousSends() throws Exception {
+        double synchronous = sendsPerSecond("synchronous", false);
+        mongoTemplate.dropCollection(Message.class);
+        double writeBehind = sendsPerSecond("write-behind", true);
+
+        log.info("Send throughput with {} senders: synchronous {} sends/s, write-behind {} sends/s ({}x)",
+                SENDERS, Math.round(synchronous), Math.round(writeBehind),
+                String.format("%.2f", writeBehind / synchronous));
+    }
+
+    @SuppressWarnings("unchecked")
+    private double sendsPerSecond(String name, boolean writeBehind) throws Exception {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        MessageRepository messageRepository = factory.getRepository(MessageRepository.class,
+                RepositoryFragments.just(new MessageRepositoryCustomImpl(mongoTemplate)));
+        ConversationRepository conversationRepository = factory.getRepository(ConversationRepository.class,
+                RepositoryFragments.just(new ConversationRepositoryCustomImpl(mongoTemplate)));
+        EventOutbox eventOutbox = new EventOutbox(factory.getRepository(OutboxEventRepository.class),
+                new EventTypeRegistry(), mock(ObjectProvider.class), kafkaTemplate,
+                mongoTemplate.getMongoDatabaseFactory(), true, false);
+        MessageEventPublisher eventPublisher = new MessageEventPublisher(kafkaTemplate, new EventTypeRegistry(),
+                eventOutbox, meterRegistry, "message-events");
+
+        RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+        SendIdempotencyCache idempotencyCache = mock(SendIdempotencyCache.class);
+        ParentChildrenCache parentChildrenCache = mock(ParentChildrenCache.class);
+        ParentConversationIndex parentConversationIndex = mock(ParentConversationIndex.class);
+        ConversationService conversationService = new ConversationService(conversationRepository,
+                parentChildrenCache, parentConversationIndex, mock(ConversationMapper.class),
+                new ConversationResolutionCache(meterRegistry, 100, Duration.ofMinutes(30), Duration.ofSeconds(30)),
+                recentMessageCache);
+
+        MessageWriteBehindQueue queue = writeBehind
+                ? new MessageWriteBehindQueue(mongoTemplate, conversationService, eventPublisher, recentMessageCache,
+                        idempotencyCache, meterRegistry, 4, 10_000, 500, Duration.ofMillis(5),
+                        Duration.ofMillis(200), Duration.ofSeconds(30))
+                : null;
+        ObjectProvider<MessageWriteBehindQueue> writeBehindQueue = mock(ObjectProvider.class);
+        when(writeBehindQueue.getIfAvailable()).thenReturn(queue);
+
+        MessageService messageService = new MessageService(messageRepository, conversationRepository,
+                conversationService, new MessageMapper(), eventPublisher, eventOutbox, parentChildrenCache,
+                parentConversationIndex, recentMessageCache, idempotencyCache, writeBehindQueue);
+
+        // Conversations created up front, so the run times sends only
+        for (int s = 0; s < SENDERS; s++) {
+            send(messageService, s, "warm-up");
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(SENDERS);
+        List<Future<?>> senders = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int s = 0; s < SENDERS; s++) {
+            int sender = s;
+            senders.add(pool.submit(() -> {
+                for (int i = 0; i < SENDS_PER_SENDER; i++) {
+                    send(messageService, sender, "message " + i);
+                }
+            }));
+        }
+        for (Future<?> run : senders) {
+            run.get(120, TimeUnit.SECONDS);
+        }
+        long accepted = System.nanoTime() - start;
+        if (queue != null) {
+            queue.stop();
+        }
+        long stored = System.nanoTime() - start;
+        pool.shutdown();
+
+        assertThat(mongoTemplate.count(new Query(), Message.class)).isEqualTo(SENDS + SENDERS);
+        log.info("{}: {} sends acknowledged in {} ms, stored in {} ms", name, SENDS,
+                TimeUnit.NANOSECONDS.toMillis(accepted), TimeUnit.NANOSECONDS.toMillis(stored));
+        return SENDS * 1e9 / accepted;
+    }
+
+    private static void send(MessageService messageService, int sender, String content) {
+        messageService.sendMessage("student-" + sender, "STUDENT", MessageSendRequest.builder()
+                .receiverId("teacher-" + sender)
+                .content(content)
+                .build());
+    }
+}
@@ -0,0 +1,181 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.mongodb.MongoException;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.event.MessageEventPublisher;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-behind ordering, back-pressure and the drop path
+ */
+class MessageWriteBehindQueueTest extends EmbeddedMongoSupport {
+
+    private final ConversationService conversationService = mock(ConversationService.class);
+    private final MessageEventPublisher eventPublisher = mock(MessageEventPublisher.class);
+    private final RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+    private final SendIdempotencyCache idempotencyCache = mock(SendIdempotencyCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void messagesAreStoredCountedAndPublishedInSendOrderPerConversation() throws Exception {
+        List<Message> published = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            published.addAll(invocation.getArgument(0));
+            return null;
+        }).when(eventPublisher).publishMessagesSent(any());
+        List<Message> counted = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            counted.addAll(invocation.getArgument(1));
+            return null;
+        }).when(conversationService).recordMessagesSent(any(), any());
+
+        MessageWriteBehindQueue queue = queue(mongoTemplate, 2, 1000, 50, Duration.ofMillis(200));
+        Conversation first = conversation("c1");
+        Conversation second = conversation("c2");
+        for (long seq = 1; seq <= 200; seq++) {
+            queue.enqueue(first, message("c1", seq, null));
+            queue.enqueue(second, message("c2", seq, null));
+        }
+        queue.stop();
+
+        assertThat(mongoTemplate.count(new Query(), Message.class)).isEqualTo(400);
+        for (String conversationId : List.of("c1", "c2")) {
+            assertThat(seqs(published, conversationId)).isSorted().hasSize(200);
+            assertThat(seqs(counted, conversationId)).isSorted().hasSize(200);
+        }
+        assertThat(meterRegistry.get("message.write_behind.written").counter().count()).isEqualTo(400);
+    }
+
+    @Test
+    void fullPartitionRejectsTheSendAfterOfferTimeout() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            flushing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(conversationService).recordMessagesSent(any(), any());
+
+        MessageWriteBehindQueue queue = queue(mongoTemplate, 1, 2, 1, Duration.ofMillis(100));
+        Conversation conversation = conversation("c1");
+
+        queue.enqueue(conversation, message("c1", 1, null));
+        assertThat(flushing.await(10, TimeUnit.SECONDS)).isTrue();   // flusher is now stuck on seq 1
+        queue.enqueue(conversation, message("c1", 2, null));
+        queue.enqueue(conversation, message("c1", 3, null));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> queue.enqueue(conversation, message("c1", 4, null)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        release.countDown();
+        queue.stop();
+        assertThat(mongoTemplate.find(new Query(), Message.class)).extracting(Message::getSeq)
+                .containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void messagesThatCannotBeStoredAreEvictedAndReported() throws Exception {
+        MongoTemplate unavailable = mock(MongoTemplate.class);
+        when(unavailable.getConverter())
+                .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        when(unavailable.getCollectionName(Message.class)).thenReturn("messages");
+        when(unavailable.getCollection("messages")).thenThrow(new MongoException("connection refused"));
+
+        MessageWriteBehindQueue queue = queue(unavailable, 1, 10, 10, Duration.ofMillis(100));
+        Message message = message("c1", 1, "alice:key-1");
+        queue.enqueue(conversation("c1"), message);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (queue.isActive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(queue.isActive()).isFalse();   // degraded: new sends go synchronous
+        assertThat(meterRegistry.get("message.write_behind.failures").counter().count()).isPositive();
+        queue.stop();
+
+        verify(recentMessageCache).onDeleted("c1", message.getId());
+        verify(idempotencyCache).invalidate("alice:key-1");
+        verify(conversationService, never()).recordMessagesSent(any(), any());
+        verify(eventPublisher, never()).publishMessagesSent(any());
+        assertThat(meterRegistry.get("message.write_behind.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void alreadyStoredMessagesAreNotReportedAsDropped() throws Exception {
+        Message message = message("c1", 1, null);
+        mongoTemplate.insert(message);
+
+        MessageWriteBehindQueue queue = queue(mongoTemplate, 1, 10, 10, Duration.ofMillis(100));
+        queue.enqueue(conversation("c1"), message);
+        queue.stop();
+
+        assertThat(mongoTemplate.count(Query.query(Criteria.where("_id").is(message.getId())), Message.class))
+                .isEqualTo(1);
+        verify(recentMessageCache, never()).onDeleted(any(), any());
+    }
+
+    private MessageWriteBehindQueue queue(MongoTemplate template, int partitions, int capacity, int maxBatch,
+                                          Duration offerTimeout) {
+        return new MessageWriteBehindQueue(template, conversationService, eventPublisher, recentMessageCache,
+                idempotencyCache, meterRegistry, partitions, capacity, maxBatch, Duration.ofMillis(5),
+                offerTimeout, Duration.ofSeconds(30));
+    }
+
+    private static List<Long> seqs(List<Message> messages, String conversationId) {
+        synchronized (messages) {
+            return messages.stream()
+                    .filter(message -> conversationId.equals(message.getConversationId()))
+                    .map(Message::getSeq)
+                    .toList();
+        }
+    }
+
+    private static Conversation conversation(String id) {
+        return Conversation.builder().id(id).participantIds(List.of("alice", "bob")).build();
+    }
+
+    private static Message message(String conversationId, long seq, String idempotencyKey) {
+        LocalDateTime now = LocalDateTime.now();
+        return Message.builder()
+                .id(new ObjectId().toHexString())
+                .conversationId(conversationId)
+                .seq(seq)
+                .senderId("alice")
+                .receiverId("bob")
+                .content("message " + seq)
+                .idempotencyKey(idempotencyKey)
+                .createdAt(now)
+                .updatedAt(now)
+                .version(0L)
+                .build();
+    }
+}
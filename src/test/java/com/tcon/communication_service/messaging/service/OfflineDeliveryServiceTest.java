@@ -0,0 +1,190 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.entity.PendingDelivery;
+import com.tcon.communication_service.messaging.repository.PendingDeliveryRepository;
+import com.tcon.communication_service.messaging.repository.PendingDeliveryRepositoryCustomImpl;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Offline queue enqueue, claimed drains, failed pushes, expired leases and concurrent drains
+ */
+class OfflineDeliveryServiceTest extends EmbeddedMongoSupport {
+
+    private static final String BOB = "bob";
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final MessageService messageService = mock(MessageService.class);
+    private final List<Map<String, Object>> frames = Collections.synchronizedList(new ArrayList<>());
+
+    private PendingDeliveryRepository repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = new MongoRepositoryFactory(mongoTemplate).getRepository(PendingDeliveryRepository.class,
+                RepositoryFragments.just(new PendingDeliveryRepositoryCustomImpl(mongoTemplate)));
+        doAnswer(invocation -> frames.add(invocation.getArgument(2)))
+                .when(messagingTemplate).convertAndSendToUser(anyString(), anyString(), any());
+    }
+
+    @Test
+    void enqueueIsIdempotentPerMessage() {
+        OfflineDeliveryService service = service(500);
+
+        service.enqueue(message("m1"));
+        service.enqueue(message("m1"));
+        service.enqueue(message("m2"));
+
+        assertThat(repository.countByUserId(BOB)).isEqualTo(2);
+    }
+
+    @Test
+    void drainPushesOneFrameThenDeletesAndMarksDelivered() {
+        OfflineDeliveryService service = service(500);
+        service.enqueue(message("m1"));
+        service.enqueue(message("m2"));
+
+        service.drain(BOB);
+
+        assertThat(frames).singleElement().satisfies(frame -> {
+            assertThat(ids(frame)).containsExactly("m1", "m2");
+            assertThat(frame).containsEntry("count", 2).containsEntry("hasMore", false);
+        });
+        assertThat(repository.count()).isZero();
+        verify(messageService).markAsDelivered(eq(BOB), anyList());
+
+        service.drain(BOB);
+        assertThat(frames).hasSize(1);
+    }
+
+    @Test
+    void fullBatchReportsMore() {
+        OfflineDeliveryService service = service(2);
+        service.enqueue(message("m1"));
+        service.enqueue(message("m2"));
+        service.enqueue(message("m3"));
+
+        service.drain(BOB);
+
+        assertThat(frames).singleElement().satisfies(frame -> {
+            assertThat(ids(frame)).containsExactly("m1", "m2");
+            assertThat(frame).containsEntry("hasMore", true);
+        });
+        assertThat(repository.countByUserId(BOB)).isEqualTo(1);
+    }
+
+    @Test
+    void failedPushKeepsTheBatchQueued() {
+        OfflineDeliveryService service = service(500);
+        service.enqueue(message("m1"));
+        doThrow(new MessageDeliveryException("broker unavailable"))
+                .when(messagingTemplate).convertAndSendToUser(anyString(), anyString(), any());
+
+        service.drain(BOB);
+
+        assertThat(repository.countByUserId(BOB)).isEqualTo(1);
+        assertThat(repository.findAll()).singleElement()
+                .satisfies(delivery -> assertThat(delivery.getClaimedBy()).isNull());
+        verify(messageService, never()).markAsDelivered(anyString(), anyList());
+    }
+
+    @Test
+    void batchOfADrainThatDiedIsClaimedAgainAfterTheLease() {
+        OfflineDeliveryService service = service(500);
+        service.enqueue(message("m1"));
+        // A drain that claimed m1 and never completed
+        assertThat(repository.claim(BOB, "dead-drain", 500, LocalDateTime.now().minusSeconds(1))).hasSize(1);
+
+        service.drain(BOB);
+
+        assertThat(frames).singleElement().satisfies(frame -> assertThat(ids(frame)).containsExactly("m1"));
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void liveClaimIsNotDrainedTwice() {
+        OfflineDeliveryService service = service(500);
+        service.enqueue(message("m1"));
+        repository.claim(BOB, "other-drain", 500, LocalDateTime.now().plusMinutes(1));
+
+        service.drain(BOB);
+
+        assertThat(frames).isEmpty();
+        assertThat(repository.countByUserId(BOB)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentDrainsPushEveryMessageExactlyOnce() throws Exception {
+        OfflineDeliveryService service = service(25);
+        for (int i = 0; i < 400; i++) {
+            service.enqueue(message(String.format("m%03d", i)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> drains = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            drains.add(pool.submit(() -> {
+                while (repository.countByUserId(BOB) > 0) {
+                    service.drain(BOB);
+                }
+            }));
+        }
+        for (Future<?> drain : drains) {
+            drain.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        List<String> pushed = frames.stream().flatMap(frame -> ids(frame).stream()).toList();
+        assertThat(pushed).hasSize(400).doesNotHaveDuplicates();
+        assertThat(repository.count()).isZero();
+    }
+
+    private OfflineDeliveryService service(int maxBatch) {
+        return new OfflineDeliveryService(repository, messageService, messagingTemplate, Duration.ofDays(7),
+                maxBatch, Duration.ofSeconds(30));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> ids(Map<String, Object> frame) {
+        return ((List<MessageDto>) frame.get("messages")).stream().map(MessageDto::getId).toList();
+    }
+
+    private static MessageDto message(String id) {
+        return MessageDto.builder()
+                .id(id)
+                .conversationId("c1")
+                .senderId("alice")
+                .receiverId(BOB)
+                .content("hello " + id)
+                .build();
+    }
+}
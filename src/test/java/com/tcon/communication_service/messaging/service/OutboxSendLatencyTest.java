@@ -0,0 +1,114 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.entity.OutboxEvent;
+import com.tcon.communication_service.event.repository.OutboxEventRepository;
+import com.tcon.communication_service.event.service.EventOutbox;
+import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.messaging.event.MessageEventPublisher;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.ConversationRepositoryCustomImpl;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import com.tcon.communication_service.messaging.repository.MessageRepositoryCustomImpl;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Send latency with a slow broker: direct publish vs the outbox
+ * The KafkaTemplate blocks in send() the way a producer does while waiting on metadata or
+ * for buffer space, so the direct path pays it on the request thread.
+ */
+@Slf4j
+class OutboxSendLatencyTest extends EmbeddedMongoSupport {
+
+    private static final long BROKER_DELAY_MILLIS = 50;
+    private static final int SENDS = 100;
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @Test
+    void outboxKeepsTheBrokerOffTheSendPath() {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            Thread.sleep(BROKER_DELAY_MILLIS);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        long[] direct = measure(messageService(false));
+        long[] outbox = measure(messageService(true));
+
+        log.info("Send latency with a {} ms broker: direct p50 {} µs p99 {} µs, outbox p50 {} µs p99 {} µs",
+                BROKER_DELAY_MILLIS, direct[SENDS / 2] / 1000, direct[SENDS * 99 / 100] / 1000,
+                outbox[SENDS / 2] / 1000, outbox[SENDS * 99 / 100] / 1000);
+
+        assertThat(direct[SENDS / 2]).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(BROKER_DELAY_MILLIS));
+        assertThat(outbox[SENDS / 2]).isLessThan(TimeUnit.MILLISECONDS.toNanos(BROKER_DELAY_MILLIS));
+        // Relay not started: every outbox send left its event behind
+        assertThat(mongoTemplate.count(new Query(), OutboxEvent.class)).isEqualTo(SENDS + 1);
+    }
+
+    private long[] measure(MessageService messageService) {
+        send(messageService, "warm-up");
+
+        long[] latencies = new long[SENDS];
+        for (int i = 0; i < SENDS; i++) {
+            long start = System.nanoTime();
+            send(messageService, "message " + i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageService messageService(boolean outboxEnabled) {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        MessageRepository messageRepository = factory.getRepository(MessageRepository.class,
+                RepositoryFragments.just(new MessageRepositoryCustomImpl(mongoTemplate)));
+        ConversationRepository conversationRepository = factory.getRepository(ConversationRepository.class,
+                RepositoryFragments.just(new ConversationRepositoryCustomImpl(mongoTemplate)));
+        EventOutbox eventOutbox = new EventOutbox(factory.getRepository(OutboxEventRepository.class),
+                new EventTypeRegistry(), mock(ObjectProvider.class), kafkaTemplate,
+                mongoTemplate.getMongoDatabaseFactory(), outboxEnabled, false);
+
+        RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+        ParentChildrenCache parentChildrenCache = mock(ParentChildrenCache.class);
+        ParentConversationIndex parentConversationIndex = mock(ParentConversationIndex.class);
+        ConversationService conversationService = new ConversationService(conversationRepository,
+                parentChildrenCache, parentConversationIndex, mock(ConversationMapper.class),
+                new ConversationResolutionCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(30),
+                        Duration.ofSeconds(30)),
+                recentMessageCache);
+        return new MessageService(messageRepository, conversationRepository, conversationService,
+                new MessageMapper(),
+                new MessageEventPublisher(kafkaTemplate, new EventTypeRegistry(), eventOutbox,
+                        new SimpleMeterRegistry(), "message-events"),
+                eventOutbox, parentChildrenCache, parentConversationIndex, recentMessageCache,
+                mock(SendIdempotencyCache.class), mock(ObjectProvider.class));
+    }
+
+    private static void send(MessageService messageService, String content) {
+        messageService.sendMessage("alice", "STUDENT", MessageSendRequest.builder()
+                .receiverId("bob")
+                .content(content)
+                .build());
+    }
+}
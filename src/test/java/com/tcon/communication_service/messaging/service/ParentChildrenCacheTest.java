@@ -0,0 +1,137 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.client.ParentServiceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Single-flight loads, the negative TTL for empty results, and the Redis tier
+ */
+class ParentChildrenCacheTest {
+
+    private static final Duration NEGATIVE_TTL = Duration.ofMillis(200);
+
+    private final ParentServiceClient parentServiceClient = mock(ParentServiceClient.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentMissesForOneParentShareOneRemoteCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(parentServiceClient.getChildStudentIds("p1")).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of("s1", "s2");
+        });
+        ParentChildrenCache cache = cache("local");
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<List<String>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            lookups.add(pool.submit(() -> cache.getChildStudentIds("p1")));
+        }
+        Thread.sleep(100);   // every lookup is now waiting on the one load
+        release.countDown();
+        for (Future<List<String>> lookup : lookups) {
+            assertThat(lookup.get(10, TimeUnit.SECONDS)).containsExactly("s1", "s2");
+        }
+        pool.shutdown();
+
+        verify(parentServiceClient, times(1)).getChildStudentIds("p1");
+        assertThat(lookups("remote")).isEqualTo(1);
+    }
+
+    @Test
+    void emptyResultIsOnlyCachedForTheNegativeTtl() throws Exception {
+        when(parentServiceClient.getChildStudentIds("p1")).thenReturn(List.of(), List.of("s1"));
+        ParentChildrenCache cache = cache("local");
+
+        assertThat(cache.getChildStudentIds("p1")).isEmpty();
+        assertThat(cache.getChildStudentIds("p1")).isEmpty();
+        verify(parentServiceClient, times(1)).getChildStudentIds("p1");
+
+        Thread.sleep(NEGATIVE_TTL.toMillis() * 2);
+        assertThat(cache.getChildStudentIds("p1")).containsExactly("s1");
+        verify(parentServiceClient, times(2)).getChildStudentIds("p1");
+    }
+
+    @Test
+    void childrenOutliveTheNegativeTtl() throws Exception {
+        when(parentServiceClient.getChildStudentIds("p1")).thenReturn(List.of("s1"));
+        ParentChildrenCache cache = cache("local");
+
+        cache.getChildStudentIds("p1");
+        Thread.sleep(NEGATIVE_TTL.toMillis() * 2);
+
+        assertThat(cache.getChildStudentIds("p1")).containsExactly("s1");
+        verify(parentServiceClient, times(1)).getChildStudentIds("p1");
+        assertThat(lookups("local")).isEqualTo(1);
+    }
+
+    @Test
+    void nullFromTheClientIsAnEmptyList() {
+        when(parentServiceClient.getChildStudentIds("p1")).thenReturn(null);
+        ParentChildrenCache cache = cache("local");
+
+        assertThat(cache.getChildStudentIds("p1")).isNotNull().isEmpty();
+    }
+
+    @Test
+    void invalidatedParentIsLoadedAgain() {
+        when(parentServiceClient.getChildStudentIds("p1")).thenReturn(List.of("s1"), List.of("s1", "s2"));
+        ParentChildrenCache cache = cache("local");
+
+        cache.getChildStudentIds("p1");
+        cache.invalidate("p1");
+
+        assertThat(cache.getChildStudentIds("p1")).containsExactly("s1", "s2");
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisTierAnswersBeforeTheServiceAndFailuresFallThrough() {
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get("chat:parent-children:p1")).thenReturn("s1,s2");
+        when(values.get("chat:parent-children:p2")).thenThrow(new RedisConnectionFailureException("down"));
+        when(parentServiceClient.getChildStudentIds(anyString())).thenReturn(List.of("s3"));
+        ParentChildrenCache cache = cache("redis");
+
+        assertThat(cache.getChildStudentIds("p1")).containsExactly("s1", "s2");
+        assertThat(cache.getChildStudentIds("p2")).containsExactly("s3");
+
+        verify(parentServiceClient, times(0)).getChildStudentIds("p1");
+        assertThat(lookups("redis")).isEqualTo(1);
+        assertThat(lookups("remote")).isEqualTo(1);
+        verify(values).set("chat:parent-children:p2", "s3", Duration.ofMinutes(10));
+    }
+
+    private ParentChildrenCache cache(String store) {
+        return new ParentChildrenCache(parentServiceClient, redisTemplate, meterRegistry, store, 1000,
+                Duration.ofMinutes(10), NEGATIVE_TTL);
+    }
+
+    private double lookups(String source) {
+        return meterRegistry.get("parent.children.lookups").tag("source", source).counter().count();
+    }
+}
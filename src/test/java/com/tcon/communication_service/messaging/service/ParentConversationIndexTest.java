@@ -0,0 +1,182 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.client.ParentServiceClient;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.ParentConversationAccess;
+import com.tcon.communication_service.messaging.entity.ParentStudentLink;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.ParentConversationAccessRepository;
+import com.tcon.communication_service.messaging.repository.ParentStudentLinkRepository;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Parent grants from link events, new conversations, the lazy backfill and reconciliation,
+ * plus a load run of 1,000 parents paging their children's conversations
+ */
+@Slf4j
+class ParentConversationIndexTest extends EmbeddedMongoSupport {
+
+    private final ConversationRepository conversationRepository = mock(ConversationRepository.class);
+    private final ParentServiceClient parentServiceClient = mock(ParentServiceClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ParentStudentLinkRepository linkRepository;
+    private ParentConversationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        linkRepository = factory.getRepository(ParentStudentLinkRepository.class);
+        index = new ParentConversationIndex(factory.getRepository(ParentConversationAccessRepository.class),
+                linkRepository, conversationRepository, parentServiceClient, meterRegistry, true);
+        when(conversationRepository.findByParticipantIdsIn(List.of("student")))
+                .thenReturn(List.of(conversation("c1", "student", "teacher")));
+    }
+
+    @Test
+    void linkGrantsAccessUntilUnlinked() {
+        index.onLinked("parent", "student");
+        assertThat(index.isAuthorized("parent", "c1")).isTrue();
+        assertThat(index.isAuthorized("other-parent", "c1")).isFalse();
+
+        index.onUnlinked("parent", "student");
+        assertThat(index.isAuthorized("parent", "c1")).isFalse();
+        assertThat(linkRepository.count()).isZero();
+    }
+
+    @Test
+    void newConversationIsGrantedToKnownParentsWithoutARemoteCall() {
+        index.onLinked("parent", "student");
+
+        index.onConversationCreated(conversation("c2", "student", "other-teacher"));
+        index.onConversationCreated(conversation("c3", "someone", "other-teacher"));
+
+        assertThat(index.isAuthorized("parent", "c2")).isTrue();
+        assertThat(index.isAuthorized("parent", "c3")).isFalse();
+        verifyNoInteractions(parentServiceClient);
+    }
+
+    @Test
+    void lazyBackfillReusesTheFallbacksChildList() {
+        index.recordVerified("parent", "c1", List.of("student", "teacher"), List.of("student", "sibling"));
+
+        assertThat(index.isAuthorized("parent", "c1")).isTrue();
+        assertThat(mongoTemplate.findById(ParentConversationAccess.key("parent", "c1"), ParentConversationAccess.class))
+                .extracting(ParentConversationAccess::getStudentId).isEqualTo("student");
+        // Both links are known now, so the sibling's next conversation is indexed on creation
+        assertThat(linkRepository.findByParentId("parent")).extracting(ParentStudentLink::getStudentId)
+                .containsExactlyInAnyOrder("student", "sibling");
+        verifyNoInteractions(parentServiceClient);
+    }
+
+    @Test
+    void reconciliationRemovesStaleLinksAndRepairsMissingGrants() {
+        index.recordVerified("parent", "c1", List.of("student", "teacher"), List.of("student", "former"));
+        when(conversationRepository.findByParticipantIdsIn(List.of("new-child")))
+                .thenReturn(List.of(conversation("c9", "new-child", "teacher")));
+        when(parentServiceClient.getChildStudentIds("parent")).thenReturn(List.of("student", "new-child"));
+
+        index.reconcile();
+
+        assertThat(linkRepository.findByParentId("parent")).extracting(ParentStudentLink::getStudentId)
+                .containsExactlyInAnyOrder("student", "new-child");
+        assertThat(index.isAuthorized("parent", "c1")).isTrue();
+        assertThat(index.isAuthorized("parent", "c9")).isTrue();
+    }
+
+    @Test
+    void reconciliationKeepsLinksWhenTheServiceReturnsNothing() {
+        index.onLinked("parent", "student");
+        // Indistinguishable from the Feign fallback
+        when(parentServiceClient.getChildStudentIds("parent")).thenReturn(List.of());
+
+        index.reconcile();
+
+        assertThat(index.isAuthorized("parent", "c1")).isTrue();
+        assertThat(linkRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void loadRunOfAThousandParentsPagingChildConversations() throws Exception {
+        int parents = 1000;
+        int conversationsPerChild = 5;
+        int pagesPerConversation = 10;
+
+        when(conversationRepository.findByParticipantIdsIn(anyList())).thenAnswer(invocation -> {
+            String studentId = invocation.<List<String>>getArgument(0).get(0);
+            List<Conversation> conversations = new ArrayList<>();
+            for (int c = 0; c < conversationsPerChild; c++) {
+                conversations.add(conversation(studentId + "-c" + c, studentId, "teacher-" + c));
+            }
+            return conversations;
+        });
+        for (int p = 0; p < parents; p++) {
+            index.onLinked("parent-" + p, "student-" + p);
+        }
+
+        int checks = parents * conversationsPerChild * pagesPerConversation;
+        long[] latencies = new long[checks];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        List<Future<?>> runs = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int p = 0; p < parents; p++) {
+            String parentId = "parent-" + p;
+            String studentId = "student-" + p;
+            runs.add(pool.submit(() -> {
+                for (int page = 0; page < pagesPerConversation; page++) {
+                    for (int c = 0; c < conversationsPerChild; c++) {
+                        long t0 = System.nanoTime();
+                        boolean authorized = index.isAuthorized(parentId, studentId + "-c" + c);
+                        latencies[next.getAndIncrement()] = System.nanoTime() - t0;
+                        if (authorized) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> run : runs) {
+            run.get(120, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        log.info("Parent access load run: {} checks by {} parents in {} ms ({} checks/s), p50 {} µs, p99 {} µs",
+                checks, parents, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                checks * 1_000_000_000L / elapsed,
+                latencies[checks / 2] / 1000, latencies[checks * 99 / 100] / 1000);
+
+        // Every page load answered by one _id lookup, none fell back to auth-user-service
+        assertThat(granted.get()).isEqualTo(checks);
+        assertThat(meterRegistry.get("parent.access.lookups").tag("result", "hit").counter().count())
+                .isEqualTo(checks);
+        verifyNoInteractions(parentServiceClient);
+    }
+
+    private static Conversation conversation(String id, String... participantIds) {
+        return Conversation.builder().id(id).participantIds(List.of(participantIds)).build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.support.RedisContainerSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read-through, eviction, write ordering across replicas and Redis failures, against a real Redis
+ */
+class RedisRecentMessageCacheTest extends RedisContainerSupport {
+
+    private static final String CONVERSATION = "conv-1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RedisRecentMessageCache cache = cache(redisTemplate, meterRegistry);
+
+    @Test
+    void missIsLoadedOnceThenServedToEveryReplica() {
+        assertThat(cache.getNewest(CONVERSATION, 5)).isNull();
+
+        cache.load(CONVERSATION, cache.loadToken(CONVERSATION), newestFirst(3, 1), 3, Map.of());
+
+        RecentMessageCache.RecentPage page = cache.getNewest(CONVERSATION, 5);
+        assertThat(page.content()).extracting(MessageDto::getSeq).containsExactly(3L, 2L, 1L);
+        assertThat(page.total()).isEqualTo(3);
+        assertThat(page.hasMore()).isFalse();
+        assertThat(cache(redisTemplate, new SimpleMeterRegistry()).getNewest(CONVERSATION, 2).content())
+                .extracting(MessageDto::getSeq).containsExactly(3L, 2L);
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void sendsBeyondCapacityEvictTheOldest() {
+        cache.load(CONVERSATION, cache.loadToken(CONVERSATION), newestFirst(5, 1), 5, Map.of());
+
+        cache.onSent(message(6));
+        cache.onSent(message(7));
+
+        RecentMessageCache.RecentPage page = cache.getNewest(CONVERSATION, 5);
+        assertThat(page.content()).extracting(MessageDto::getSeq).containsExactly(7L, 6L, 5L, 4L, 3L);
+        assertThat(page.total()).isEqualTo(7);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(redisTemplate.opsForHash().size("chat:recent:{" + CONVERSATION + "}:msgs")).isEqualTo(5);
+        // Older than the buffer: served from Mongo
+        assertThat(cache.getNewest(CONVERSATION, 6)).isNull();
+    }
+
+    @Test
+    void sendsFromTwoReplicasAreServedInSeqOrder() {
+        RedisRecentMessageCache otherReplica = cache(redisTemplate, new SimpleMeterRegistry());
+        cache.load(CONVERSATION, cache.loadToken(CONVERSATION), newestFirst(3, 1), 3, Map.of());
+
+        otherReplica.onSent(message(5));
+        cache.onSent(message(4));
+
+        assertThat(cache.getNewest(CONVERSATION, 5).content())
+                .extracting(MessageDto::getSeq).containsExactly(5L, 4L, 3L, 2L, 1L);
+        assertThat(cache.getNewest(CONVERSATION, 5).total()).isEqualTo(5);
+    }
+
+    @Test
+    void sendRacingTheMongoReadOfAnotherReplicaIsKept() {
+        long token = cache.loadToken(CONVERSATION);
+        List<MessageDto> fromMongo = newestFirst(3, 1);
+
+        cache(redisTemplate, new SimpleMeterRegistry()).onSent(message(4));
+        cache.load(CONVERSATION, token, fromMongo, 3, Map.of());
+
+        RecentMessageCache.RecentPage page = cache.getNewest(CONVERSATION, 5);
+        assertThat(page.content()).extracting(MessageDto::getSeq).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(page.total()).isEqualTo(4);
+    }
+
+    @Test
+    void editRacingTheMongoReadDropsTheLoad() {
+        long token = cache.loadToken(CONVERSATION);
+        List<MessageDto> fromMongo = newestFirst(3, 1);
+
+        cache.onUpdated(message(2).toBuilder().content("edited").build());
+        cache.load(CONVERSATION, token, fromMongo, 3, Map.of());
+        assertThat(cache.getNewest(CONVERSATION, 3)).isNull();
+
+        cache.load(CONVERSATION, cache.loadToken(CONVERSATION), fromMongo, 3, Map.of());
+        assertThat(cache.getNewest(CONVERSATION, 3)).isNotNull();
+    }
+
+    @Test
+    void deleteRemovesTheMessageAndDecrementsTheTotal() {
+        cache.load(CONVERSATION, cache.loadToken(CONVERSATION), newestFirst(3, 1), 3, Map.of());
+
+        cache.onDeleted(CONVERSATION, "m-2");
+
+        RecentMessageCache.RecentPage page = cache.getNewest(CONVERSATION, 5);
+        assertThat(page.content()).extracting(MessageDto::getSeq).containsExactly(3L, 1L);
+        assertThat(page.total()).isEqualTo(2);
+    }
+
+    @Test
+    void redisDownIsAMissAndNeverThrows() {
+        LettuceConnectionFactory down = connectionFactory("localhost", 1);
+        try {
+            RedisRecentMessageCache unavailable = cache(new StringRedisTemplate(down), meterRegistry);
+
+            assertThat(unavailable.getNewest(CONVERSATION, 5)).isNull();
+            assertThat(unavailable.loadToken(CONVERSATION)).isEqualTo(-1);
+            unavailable.load(CONVERSATION, -1, newestFirst(3, 1), 3, Map.of());
+            unavailable.onSent(message(4));
+            unavailable.onDeleted(CONVERSATION, "m-4");
+            assertThat(gets("miss")).isEqualTo(1);
+        } finally {
+            down.destroy();
+        }
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", RecentMessageCache.CACHE_NAME)
+                .tag("result", result).counter().count();
+    }
+
+    private static RedisRecentMessageCache cache(StringRedisTemplate template, SimpleMeterRegistry meterRegistry) {
+        return new RedisRecentMessageCache(template, meterRegistry, 5, Duration.ofMinutes(10));
+    }
+
+    private static List<MessageDto> newestFirst(long newest, long oldest) {
+        List<MessageDto> messages = new ArrayList<>();
+        for (long seq = newest; seq >= oldest; seq--) {
+            messages.add(message(seq));
+        }
+        return messages;
+    }
+
+    private static MessageDto message(long seq) {
+        return MessageDto.builder()
+                .id("m-" + seq)
+                .conversationId(CONVERSATION)
+                .seq(seq)
+                .content("message " + seq)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.event.EventTypeRegistry;
+import com.tcon.communication_service.event.repository.OutboxEventRepository;
+import com.tcon.communication_service.event.service.EventOutbox;
+import com.tcon.communication_service.messaging.dto.MessageSendRequest;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.event.MessageEventPublisher;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.ConversationRepositoryCustomImpl;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import com.tcon.communication_service.messaging.repository.MessageRepositoryCustomImpl;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Retried sends with one idempotency key: answered from SendIdempotencyCache, or from the
+ * sender_idempotency_uidx fallback when the cache has not seen the key (other replica, race)
+ */
+class SendIdempotencyTest extends EmbeddedMongoSupport {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @BeforeEach
+    void createIndexes() {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        resolver.resolveIndexFor(Message.class).forEach(mongoTemplate.indexOps(Message.class)::ensureIndex);
+        resolver.resolveIndexFor(Conversation.class).forEach(mongoTemplate.indexOps(Conversation.class)::ensureIndex);
+    }
+
+    @Test
+    void retryWithTheSameKeyIsReplayedFromTheCache() {
+        MessageService messageService = messageService(idempotencyCache());
+
+        MessageService.SendResult first = messageService.send("alice", "STUDENT", request("key-1"));
+        MessageService.SendResult retry = messageService.send("alice", "STUDENT", request("key-1"));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.message().getId()).isEqualTo(first.message().getId());
+        assertThat(mongoTemplate.count(new Query(), Message.class)).isEqualTo(1);
+    }
+
+    @Test
+    void retryOnAReplicaThatNeverSawTheKeyIsReplayedFromTheUniqueIndex() {
+        MessageService.SendResult first = messageService(idempotencyCache()).send("alice", "STUDENT", request("key-1"));
+
+        SendIdempotencyCache otherReplica = idempotencyCache();
+        MessageService.SendResult retry = messageService(otherReplica).send("alice", "STUDENT", request("key-1"));
+
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.message().getId()).isEqualTo(first.message().getId());
+        assertThat(otherReplica.get("alice:key-1")).isEqualTo(first.message().getId());
+        assertThat(mongoTemplate.count(new Query(), Message.class)).isEqualTo(1);
+    }
+
+    @Test
+    void keysAreScopedToTheSender() {
+        MessageService messageService = messageService(idempotencyCache());
+
+        messageService.send("alice", "STUDENT", request("key-1"));
+        MessageService.SendResult bob = messageService.send("bob", "TEACHER", MessageSendRequest.builder()
+                .receiverId("alice")
+                .content("hello")
+                .idempotencyKey("key-1")
+                .build());
+
+        assertThat(bob.replayed()).isFalse();
+        assertThat(mongoTemplate.count(new Query(), Message.class)).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentRetriesStoreOneMessageAndReplayItToTheRest() throws Exception {
+        MessageService messageService = messageService(idempotencyCache());
+        messageService.send("alice", "STUDENT", request(null));   // conversation exists before the race
+        int retries = 8;
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(retries);
+        List<Future<MessageService.SendResult>> results = new ArrayList<>();
+        for (int i = 0; i < retries; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return messageService.send("alice", "STUDENT", request("key-1"));
+            }));
+        }
+        start.countDown();
+
+        List<MessageService.SendResult> sends = new ArrayList<>();
+        for (Future<MessageService.SendResult> result : results) {
+            sends.add(result.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertThat(sends).filteredOn(send -> !send.replayed()).hasSize(1);
+        assertThat(sends).extracting(send -> send.message().getId()).containsOnly(sends.get(0).message().getId());
+        assertThat(mongoTemplate.count(new Query(), Message.class)).isEqualTo(2);
+    }
+
+    private SendIdempotencyCache idempotencyCache() {
+        return new SendIdempotencyCache(mock(StringRedisTemplate.class), new SimpleMeterRegistry(), "local",
+                1000, Duration.ofMinutes(10));
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageService messageService(SendIdempotencyCache idempotencyCache) {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        MessageRepository messageRepository = factory.getRepository(MessageRepository.class,
+                RepositoryFragments.just(new MessageRepositoryCustomImpl(mongoTemplate)));
+        ConversationRepository conversationRepository = factory.getRepository(ConversationRepository.class,
+                RepositoryFragments.just(new ConversationRepositoryCustomImpl(mongoTemplate)));
+        EventOutbox eventOutbox = new EventOutbox(factory.getRepository(OutboxEventRepository.class),
+                new EventTypeRegistry(), mock(ObjectProvider.class), kafkaTemplate,
+                mongoTemplate.getMongoDatabaseFactory(), true, false);
+
+        RecentMessageCache recentMessageCache = mock(RecentMessageCache.class);
+        ParentChildrenCache parentChildrenCache = mock(ParentChildrenCache.class);
+        ParentConversationIndex parentConversationIndex = mock(ParentConversationIndex.class);
+        ConversationService conversationService = new ConversationService(conversationRepository,
+                parentChildrenCache, parentConversationIndex, mock(ConversationMapper.class),
+                new ConversationResolutionCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(30),
+                        Duration.ofSeconds(30)),
+                recentMessageCache);
+        return new MessageService(messageRepository, conversationRepository, conversationService,
+                new MessageMapper(),
+                new MessageEventPublisher(kafkaTemplate, new EventTypeRegistry(), eventOutbox,
+                        new SimpleMeterRegistry(), "message-events"),
+                eventOutbox, parentChildrenCache, parentConversationIndex, recentMessageCache,
+                idempotencyCache, mock(ObjectProvider.class));
+    }
+
+    private static MessageSendRequest request(String idempotencyKey) {
+        return MessageSendRequest.builder()
+                .receiverId("bob")
+                .content("hello")
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+}
@@ -0,0 +1,165 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.ConversationDto;
+import com.tcon.communication_service.messaging.dto.MessageDto;
+import com.tcon.communication_service.messaging.dto.SyncResponseDto;
+import com.tcon.communication_service.messaging.dto.SyncToken;
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.repository.ConversationRepository;
+import com.tcon.communication_service.messaging.repository.ConversationRepositoryCustomImpl;
+import com.tcon.communication_service.messaging.repository.MessageRepository;
+import com.tcon.communication_service.messaging.repository.MessageRepositoryCustomImpl;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Delta sync: token round trip, the safety-lag horizon and (updatedAt, _id) continuation
+ * of both change feeds when a batch is full
+ */
+class SyncServiceTest extends EmbeddedMongoSupport {
+
+    private static final String ALICE = "alice";
+    private static final int MAX_BATCH = 3;
+
+    private final LocalDateTime minuteAgo = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+
+    private MessageRepository messageRepository;
+    private ConversationRepository conversationRepository;
+
+    @BeforeEach
+    void setUp() {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        messageRepository = factory.getRepository(MessageRepository.class,
+                RepositoryFragments.just(new MessageRepositoryCustomImpl(mongoTemplate)));
+        conversationRepository = factory.getRepository(ConversationRepository.class,
+                RepositoryFragments.just(new ConversationRepositoryCustomImpl(mongoTemplate)));
+    }
+
+    @Test
+    void tokenRoundTripsThroughItsOpaqueForm() {
+        SyncToken token = new SyncToken(minuteAgo, new ObjectId().toHexString(), minuteAgo.plusSeconds(1), null);
+
+        assertThat(SyncToken.decode(token.encode())).isEqualTo(token);
+        assertThat(SyncToken.decode(SyncToken.at(minuteAgo).encode())).isEqualTo(SyncToken.at(minuteAgo));
+        assertThatThrownBy(() -> SyncToken.decode("not-a-token")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void firstCallOnlyHandsOutAStartingTokenAtTheHorizon() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(5).truncatedTo(ChronoUnit.MILLIS);
+        SyncResponseDto response = service(Duration.ofSeconds(5)).sync(ALICE, null);
+        LocalDateTime after = LocalDateTime.now().minusSeconds(5);
+
+        assertThat(response.getMessages()).isEmpty();
+        assertThat(response.getConversations()).isEmpty();
+        assertThat(response.isHasMore()).isFalse();
+        SyncToken token = SyncToken.decode(response.getNextToken());
+        assertThat(token.getMessagesAt()).isBetween(before, after);
+        assertThat(token.getMessageId()).isNull();
+    }
+
+    @Test
+    void changesInsideTheSafetyLagAreHeldBackToTheNextCall() {
+        Conversation conversation = insertConversation(minuteAgo.minusMinutes(5));
+        Message settled = insertMessage(conversation, minuteAgo);
+        Message recent = insertMessage(conversation, LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        String since = SyncToken.at(minuteAgo.minusMinutes(1)).encode();
+
+        SyncResponseDto first = service(Duration.ofSeconds(30)).sync(ALICE, since);
+        assertThat(first.getMessages()).extracting(MessageDto::getId).containsExactly(settled.getId());
+        assertThat(first.isHasMore()).isFalse();
+
+        // Once the lag has passed, the next call picks up what was held back, and only that
+        SyncResponseDto second = service(Duration.ZERO).sync(ALICE, first.getNextToken());
+        assertThat(second.getMessages()).extracting(MessageDto::getId).containsExactly(recent.getId());
+    }
+
+    @Test
+    void fullMessageBatchContinuesByIdWithinTheSameUpdatedAt() {
+        Conversation conversation = insertConversation(minuteAgo.minusMinutes(5));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expected.add(insertMessage(conversation, minuteAgo).getId());
+        }
+
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> synced = new ArrayList<>();
+        String token = SyncToken.at(minuteAgo.minusMinutes(1)).encode();
+        SyncResponseDto response;
+        do {
+            response = service(Duration.ofSeconds(5)).sync(ALICE, token);
+            batchSizes.add(response.getMessages().size());
+            response.getMessages().forEach(message -> synced.add(message.getId()));
+            token = response.getNextToken();
+        } while (response.isHasMore());
+
+        assertThat(batchSizes).containsExactly(3, 3, 1);
+        assertThat(synced).isEqualTo(expected);
+        assertThat(SyncToken.decode(token).getMessageId()).isNull();
+    }
+
+    @Test
+    void fullConversationBatchContinuesByIdWithinTheSameUpdatedAt() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(insertConversation(minuteAgo).getId());
+        }
+        insertConversation(minuteAgo, "bob", "carol");   // not alice's
+
+        SyncService service = service(Duration.ofSeconds(5));
+        SyncResponseDto first = service.sync(ALICE, SyncToken.at(minuteAgo.minusMinutes(1)).encode());
+        SyncToken continuation = SyncToken.decode(first.getNextToken());
+        SyncResponseDto second = service.sync(ALICE, first.getNextToken());
+
+        assertThat(first.getConversations()).hasSize(MAX_BATCH);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(continuation.getConversationsAt()).isEqualTo(minuteAgo);
+        assertThat(continuation.getConversationId()).isEqualTo(expected.get(2));
+        assertThat(second.isHasMore()).isFalse();
+        List<ConversationDto> synced = new ArrayList<>(first.getConversations());
+        synced.addAll(second.getConversations());
+        assertThat(synced).extracting(ConversationDto::getId).isEqualTo(expected);
+    }
+
+    private SyncService service(Duration safetyLag) {
+        return new SyncService(messageRepository, conversationRepository, new MessageMapper(),
+                new ConversationMapper(), MAX_BATCH, safetyLag);
+    }
+
+    private Conversation insertConversation(LocalDateTime updatedAt, String... participantIds) {
+        List<String> participants = participantIds.length > 0 ? List.of(participantIds) : List.of(ALICE, "bob");
+        return mongoTemplate.insert(Conversation.builder()
+                .id(new ObjectId().toHexString())
+                .participantIds(participants)
+                .createdAt(updatedAt)
+                .updatedAt(updatedAt)
+                .build());
+    }
+
+    private Message insertMessage(Conversation conversation, LocalDateTime updatedAt) {
+        return mongoTemplate.insert(Message.builder()
+                .id(new ObjectId().toHexString())
+                .conversationId(conversation.getId())
+                .senderId("bob")
+                .receiverId(ALICE)
+                .content("hello")
+                .isDeleted(false)
+                .createdAt(updatedAt)
+                .updatedAt(updatedAt)
+                .build());
+    }
+}
@@ -0,0 +1,122 @@
+package com.tcon.communication_service.messaging.service;
+
+import com.tcon.communication_service.messaging.dto.TypingIndicatorDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Typing indicator collapsing, aggregation, expiry and a frame-reduction load run
+ */
+@Slf4j
+class TypingStateServiceTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void repeatedIndicatorsCollapseIntoStartAndStopFrames() {
+        TypingStateService typing = new TypingStateService(messagingTemplate, meterRegistry, 5);
+
+        for (int i = 0; i < 30; i++) {
+            typing.onIndicator("c1", "alice", true);
+        }
+        typing.onIndicator("c1", "alice", false);
+        typing.onIndicator("c1", "alice", false);
+
+        List<TypingIndicatorDto> frames = frames("c1", 2);
+        assertThat(frames).extracting(TypingIndicatorDto::getIsTyping).containsExactly(true, false);
+        assertThat(frames.get(1).getTypingCount()).isZero();
+    }
+
+    @Test
+    void framesCarryEveryoneTypingInStartOrder() throws InterruptedException {
+        TypingStateService typing = new TypingStateService(messagingTemplate, meterRegistry, 5);
+
+        typing.onIndicator("group", "alice", true);
+        Thread.sleep(2);   // distinct startedAt
+        typing.onIndicator("group", "bob", true);
+        typing.onIndicator("group", "alice", true);
+        Thread.sleep(2);
+        typing.onIndicator("group", "carol", true);
+        typing.stop("group", "bob");
+
+        List<TypingIndicatorDto> frames = frames("group", 4);
+        assertThat(frames).extracting(TypingIndicatorDto::getTypingCount).containsExactly(1, 2, 3, 2);
+        assertThat(frames.get(2).getTypingUserIds()).containsExactly("alice", "bob", "carol");
+        assertThat(frames.get(3).getUserId()).isEqualTo("bob");
+        assertThat(frames.get(3).getTypingUserIds()).containsExactly("alice", "carol");
+    }
+
+    @Test
+    void idleTypistsAreStoppedBySweep() throws InterruptedException {
+        TypingStateService typing = new TypingStateService(messagingTemplate, meterRegistry, 0);
+
+        typing.onIndicator("c1", "alice", true);
+        Thread.sleep(5);
+        typing.expireIdle();
+        typing.expireIdle();
+
+        assertThat(frames("c1", 2)).extracting(TypingIndicatorDto::getIsTyping).containsExactly(true, false);
+    }
+
+    @Test
+    void loadRunEmitsOnlyTransitions() throws Exception {
+        TypingStateService typing = new TypingStateService(messagingTemplate, meterRegistry, 5);
+        int conversations = 50;
+        int typistsPerConversation = 4;
+        int indicatorsPerTypist = 100;   // ~10 per second for 10 s of typing
+
+        ExecutorService typists = Executors.newFixedThreadPool(16);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int c = 0; c < conversations; c++) {
+            for (int u = 0; u < typistsPerConversation; u++) {
+                String conversationId = "c" + c;
+                String userId = "u" + u;
+                runs.add(typists.submit(() -> {
+                    for (int i = 0; i < indicatorsPerTypist; i++) {
+                        typing.onIndicator(conversationId, userId, true);
+                    }
+                    typing.onIndicator(conversationId, userId, false);
+                }));
+            }
+        }
+        for (Future<?> run : runs) {
+            run.get(30, TimeUnit.SECONDS);
+        }
+        typists.shutdown();
+
+        double received = meterRegistry.get("message.typing.indicators").counter().count();
+        double emitted = meterRegistry.get("message.typing.frames").counter().count();
+        log.info("Typing load run: {} indicators received, {} frames emitted ({}% of the frames a rebroadcast sends)",
+                Math.round(received), Math.round(emitted), String.format("%.1f", 100 * emitted / received));
+        assertThat(received).isEqualTo(conversations * typistsPerConversation * (indicatorsPerTypist + 1));
+        assertThat(emitted).isEqualTo(conversations * typistsPerConversation * 2);
+        // Previously every indicator was rebroadcast: 40400 frames, now 400 (99% fewer)
+        assertThat(emitted / received).isLessThan(0.02);
+        verify(messagingTemplate, times((int) emitted)).convertAndSend(anyString(), any(Object.class));
+    }
+
+    private List<TypingIndicatorDto> frames(String conversationId, int expected) {
+        ArgumentCaptor<TypingIndicatorDto> frames = ArgumentCaptor.forClass(TypingIndicatorDto.class);
+        verify(messagingTemplate, times(expected)).convertAndSend(eq("/topic/typing/" + conversationId), frames.capture());
+        return frames.getAllValues();
+    }
+}
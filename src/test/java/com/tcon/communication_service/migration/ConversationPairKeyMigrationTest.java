@@ -0,0 +1,130 @@
+package com.tcon.communication_service.migration;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * pairKey backfill: merging duplicate two-party conversations, idempotent re-runs and rollback
+ */
+class ConversationPairKeyMigrationTest extends EmbeddedMongoSupport {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final ConversationPairKeyMigration migration = new ConversationPairKeyMigration();
+
+    @Test
+    void duplicatesAreMergedIntoTheOldestConversation() {
+        Conversation oldest = insert("DIRECT", List.of("alice", "bob"), START, null, Map.of("bob", 2),
+                START.plusHours(1));
+        Conversation newer = insert("DIRECT", List.of("bob", "alice"), START.plusMinutes(5), null, Map.of("bob", 1,
+                "alice", 3), START.plusHours(2));
+        insertMessage(oldest, "first");
+        insertMessage(newer, "second");
+        insertMessage(newer, "third");
+        Conversation parentDirect = insert("PARENT_DIRECT", List.of("alice", "bob"), START, null, Map.of(), null);
+        Conversation group = insert("GROUP", List.of("alice", "bob", "carol"), START, null, Map.of(), null);
+
+        migration.execute(mongoTemplate);
+
+        assertThat(mongoTemplate.findAll(Conversation.class)).extracting(Conversation::getId)
+                .containsExactlyInAnyOrder(oldest.getId(), parentDirect.getId(), group.getId());
+        Conversation survivor = mongoTemplate.findById(oldest.getId(), Conversation.class);
+        assertThat(survivor.getPairKey()).isEqualTo("DIRECT:alice|bob");
+        assertThat(survivor.getUnreadCounts()).containsExactlyInAnyOrderEntriesOf(Map.of("bob", 3, "alice", 3));
+        assertThat(survivor.getLastMessageAt()).isEqualTo(START.plusHours(2));
+        assertThat(survivor.getLastMessageContent()).isEqualTo("preview " + newer.getId());
+        assertThat(mongoTemplate.find(new Query(), Message.class)).extracting(Message::getConversationId)
+                .containsOnly(oldest.getId()).hasSize(3);
+
+        assertThat(mongoTemplate.findById(parentDirect.getId(), Conversation.class).getPairKey())
+                .isEqualTo("PARENT_DIRECT:alice|bob");
+        assertThat(mongoTemplate.findById(group.getId(), Conversation.class).getPairKey()).isNull();
+        assertThat(pairKeyIndex()).isNotNull()
+                .satisfies(index -> assertThat(index.isUnique()).isTrue());
+    }
+
+    @Test
+    void conversationAlreadyCarryingTheKeySurvives() {
+        insert("DIRECT", List.of("alice", "bob"), START, null, Map.of(), null);
+        Conversation keyed = insert("DIRECT", List.of("alice", "bob"), START.plusDays(1), "DIRECT:alice|bob",
+                Map.of(), null);
+
+        migration.execute(mongoTemplate);
+
+        assertThat(mongoTemplate.findAll(Conversation.class)).extracting(Conversation::getId)
+                .containsExactly(keyed.getId());
+    }
+
+    @Test
+    void rerunLeavesTheMergedStateAsItIs() {
+        Conversation oldest = insert("DIRECT", List.of("alice", "bob"), START, null, Map.of("bob", 2), null);
+        insert("DIRECT", List.of("alice", "bob"), START.plusMinutes(5), null, Map.of("bob", 1), null);
+
+        migration.execute(mongoTemplate);
+        migration.execute(mongoTemplate);
+
+        assertThat(mongoTemplate.findAll(Conversation.class)).singleElement().satisfies(conversation -> {
+            assertThat(conversation.getId()).isEqualTo(oldest.getId());
+            assertThat(conversation.getUnreadCounts()).containsExactlyEntriesOf(Map.of("bob", 3));
+        });
+    }
+
+    @Test
+    void rollbackRemovesTheKeyAndItsIndex() {
+        insert("DIRECT", List.of("alice", "bob"), START, null, Map.of(), null);
+        insert("DIRECT", List.of("alice", "carol"), START, null, Map.of(), null);
+        migration.execute(mongoTemplate);
+
+        migration.rollback(mongoTemplate);
+
+        assertThat(mongoTemplate.findAll(Conversation.class)).hasSize(2)
+                .allSatisfy(conversation -> assertThat(conversation.getPairKey()).isNull());
+        assertThat(pairKeyIndex()).isNull();
+        migration.rollback(mongoTemplate);   // nothing left to drop
+    }
+
+    private IndexInfo pairKeyIndex() {
+        return mongoTemplate.indexOps(Conversation.class).getIndexInfo().stream()
+                .filter(index -> "pair_key_uidx".equals(index.getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Conversation insert(String type, List<String> participantIds, LocalDateTime createdAt, String pairKey,
+                                Map<String, Integer> unreadCounts, LocalDateTime lastMessageAt) {
+        String id = new ObjectId().toHexString();
+        return mongoTemplate.insert(Conversation.builder()
+                .id(id)
+                .type(type)
+                .participantIds(participantIds)
+                .pairKey(pairKey)
+                .unreadCounts(new HashMap<>(unreadCounts))
+                .lastMessageAt(lastMessageAt)
+                .lastMessageContent(lastMessageAt != null ? "preview " + id : null)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build());
+    }
+
+    private void insertMessage(Conversation conversation, String content) {
+        mongoTemplate.insert(Message.builder()
+                .conversationId(conversation.getId())
+                .senderId("alice")
+                .receiverId("bob")
+                .content(content)
+                .createdAt(START)
+                .build());
+    }
+}
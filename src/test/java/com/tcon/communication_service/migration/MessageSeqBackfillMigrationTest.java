@@ -0,0 +1,80 @@
+package com.tcon.communication_service.migration;
+
+import com.tcon.communication_service.messaging.entity.Conversation;
+import com.tcon.communication_service.messaging.entity.Message;
+import com.tcon.communication_service.messaging.repository.ConversationRepositoryCustomImpl;
+import com.tcon.communication_service.support.EmbeddedMongoSupport;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seq numbering of messages stored before (and, during a rollout, without) Message.seq
+ */
+class MessageSeqBackfillMigrationTest extends EmbeddedMongoSupport {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Test
+    void legacyMessagesAreNumberedBelowTheLiveCounter() {
+        ConversationRepositoryCustomImpl repository = new ConversationRepositoryCustomImpl(mongoTemplate);
+        mongoTemplate.insert(Conversation.builder().id("c1").participantIds(List.of("alice", "bob")).build());
+        for (int i = 0; i < 3; i++) {
+            insertLegacy("c1", START.plusMinutes(i));
+        }
+        // A new-version node already took seq 1 before the migration ran
+        long live = repository.nextMessageSeq("c1");
+
+        new MessageSeqBackfillMigration().execute(mongoTemplate);
+
+        assertThat(live).isEqualTo(1);
+        assertThat(seqsByCreatedAt("c1")).containsExactly(-2L, -1L, 0L);
+        assertThat(repository.nextMessageSeq("c1")).isEqualTo(2);
+    }
+
+    @Test
+    void sendPathNumbersMessagesStoredWithoutSeqDuringTheRollout() {
+        ConversationRepositoryCustomImpl repository = new ConversationRepositoryCustomImpl(mongoTemplate);
+        mongoTemplate.insert(Conversation.builder().id("c1").participantIds(List.of("alice", "bob")).build());
+        new MessageSeqBackfillMigration().execute(mongoTemplate);
+
+        long first = repository.nextMessageSeq("c1");
+        insertLegacy("c1", START.minusDays(2));   // outside the catch-up window
+        insertLegacy("c1", START.plusMinutes(1));
+        insertLegacy("c1", START.plusMinutes(2));
+
+        assertThat(repository.numberUnsequencedMessages("c1", START.minusHours(6))).isEqualTo(2);
+        assertThat(repository.numberUnsequencedMessages("c1", START.minusHours(6))).isZero();
+        assertThat(first).isEqualTo(1);
+        assertThat(seqsByCreatedAt("c1")).containsExactly(null, 2L, 3L);
+        assertThat(repository.nextMessageSeq("c1")).isEqualTo(4);
+    }
+
+    private void insertLegacy(String conversationId, LocalDateTime createdAt) {
+        // Raw document: what a node without Message.seq stores
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Message.class)).insertOne(new Document()
+                .append("_id", new ObjectId())
+                .append("conversationId", conversationId)
+                .append("senderId", "alice")
+                .append("receiverId", "bob")
+                .append("content", "legacy")
+                .append("isDeleted", false)
+                .append("createdAt", Date.from(createdAt.atZone(ZoneId.systemDefault()).toInstant())));
+    }
+
+    private List<Long> seqsByCreatedAt(String conversationId) {
+        Query query = Query.query(Criteria.where("conversationId").is(conversationId))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        return mongoTemplate.find(query, Message.class).stream().map(Message::getSeq).toList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.tcon.communication_service.support;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.List;
+
+/**
+ * Embedded Kafka for producer/consumer tests and throughput runs
+ * Starts one single-node KRaft broker per test class with the message-events topic (three
+ * partitions, as in KafkaConfig), without bootstrapping the application context.
+ */
+public abstract class EmbeddedKafkaSupport {
+
+    protected static final String MESSAGE_EVENTS = "message-events";
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    @BeforeAll
+    static void startKafka() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, MESSAGE_EVENTS);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopKafka() {
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+
+    protected static String bootstrapServers() {
+        return broker.getBrokersAsString();
+    }
+
+    /**
+     * Boot's Kafka properties pointed at the embedded broker, as KafkaConfig receives them
+     */
+    protected static KafkaProperties kafkaProperties() {
+        KafkaProperties properties = new KafkaProperties();
+        properties.setBootstrapServers(List.of(bootstrapServers()));
+        properties.getProducer().setAcks("all");
+        properties.getConsumer().setAutoOffsetReset("earliest");
+        return properties;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tcon.communication_service.support;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded MongoDB for repository-level tests
+ * Starts one mongod per test class and hands every test a fresh database, without
+ * bootstrapping the application context (Kafka, Redis, Feign, Mongock). Every command sent
+ * to mongod is counted, so tests can assert round trips.
+ */
+public abstract class EmbeddedMongoSupport {
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static MongoClient mongoClient;
+    private static final AtomicInteger commands = new AtomicInteger();
+
+    protected MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void startMongo() {
+        mongod = Mongod.instance().start(Version.Main.V6_0);
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://" + mongod.current().getServerAddress()))
+                .addCommandListener(new CommandListener() {
+                    @Override
+                    public void commandStarted(CommandStartedEvent event) {
+                        commands.incrementAndGet();
+                    }
+                })
+                .build());
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+        if (mongod != null) {
+            mongod.close();
+        }
+    }
+
+    /**
+     * Commands sent to mongod so far (one per round trip)
+     */
+    protected static int commandCount() {
+        return commands.get();
+    }
+
+    @BeforeEach
+    void freshDatabase() {
+        mongoTemplate = new MongoTemplate(mongoClient, "test_" + UUID.randomUUID().toString().replace("-", ""));
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        mongoTemplate.getDb().drop();
+    }
+}
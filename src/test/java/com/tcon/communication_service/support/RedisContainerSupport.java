@@ -0,0 +1,61 @@
+package com.tcon.communication_service.support;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Redis for cache tests that need the real server (Lua scripts, pipelines, TTLs)
+ * Starts one Redis container per test class and flushes it before every test, without
+ * bootstrapping the application context. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class RedisContainerSupport {
+
+    private static GenericContainer<?> redis;
+    private static LettuceConnectionFactory connectionFactory;
+
+    protected static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = new GenericContainer<>(DockerImageName.parse("redis:7.2-alpine")).withExposedPorts(6379);
+        redis.start();
+        connectionFactory = connectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    /**
+     * Started connection factory for host:port; tests pass an unused port to get a Redis that is down
+     */
+    protected static LettuceConnectionFactory connectionFactory(String host, int port) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+}
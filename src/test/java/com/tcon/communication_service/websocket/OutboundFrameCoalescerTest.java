@@ -0,0 +1,165 @@
+package com.tcon.communication_service.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-subscription merging within the window, order, and the frames that must pass through as they are
+ */
+class OutboundFrameCoalescerTest {
+
+    private final List<Message<?>> sent = Collections.synchronizedList(new ArrayList<>());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboundFrameCoalescer coalescer = new OutboundFrameCoalescer((message, timeout) -> sent.add(message),
+            meterRegistry, Duration.ofMillis(50), 5);
+
+    @AfterEach
+    void tearDown() {
+        coalescer.stop();
+    }
+
+    @Test
+    void framesOfOneSubscriptionWithinTheWindowAreMergedInOrder() throws Exception {
+        connect("s1", true);
+
+        for (int i = 1; i <= 3; i++) {
+            assertThat(coalescer.preSend(frame("s1", "sub-1", "{\"n\":" + i + "}"), null)).isNull();
+        }
+        awaitSent(1);
+
+        Message<?> batch = sent.get(0);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(batch);
+        assertThat(body(batch)).isEqualTo("[{\"n\":1},{\"n\":2},{\"n\":3}]");
+        assertThat(accessor.getFirstNativeHeader(OutboundFrameCoalescer.BATCH_SIZE_HEADER)).isEqualTo("3");
+        assertThat(accessor.getDestination()).isEqualTo("/topic/conversations/c1");
+        assertThat(accessor.getSubscriptionId()).isEqualTo("sub-1");
+        assertThat(OutboundFrameCoalescer.isBatch(batch)).isTrue();
+        assertThat(meterRegistry.get("websocket.outbound.coalesced").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("websocket.outbound.batches").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void subscriptionsAreBatchedSeparatelyEachInItsOwnOrder() throws Exception {
+        connect("s1", true);
+
+        coalescer.preSend(frame("s1", "sub-1", "{\"n\":1}"), null);
+        coalescer.preSend(frame("s1", "sub-2", "{\"n\":2}"), null);
+        coalescer.preSend(frame("s1", "sub-1", "{\"n\":3}"), null);
+        coalescer.preSend(frame("s1", "sub-2", "{\"n\":4}"), null);
+        awaitSent(2);
+
+        assertThat(sent).extracting(message -> SimpMessageHeaderAccessor.wrap(message).getSubscriptionId()
+                        + "=" + body(message))
+                .containsExactlyInAnyOrder("sub-1=[{\"n\":1},{\"n\":3}]", "sub-2=[{\"n\":2},{\"n\":4}]");
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForTheWindow() {
+        connect("s1", true);
+
+        for (int i = 1; i <= 5; i++) {
+            coalescer.preSend(frame("s1", "sub-1", "{\"n\":" + i + "}"), null);
+        }
+
+        assertThat(sent).singleElement().satisfies(batch -> assertThat(
+                SimpMessageHeaderAccessor.wrap(batch).getFirstNativeHeader(OutboundFrameCoalescer.BATCH_SIZE_HEADER))
+                .isEqualTo("5"));
+    }
+
+    @Test
+    void loneFrameInAWindowIsSentUnchanged() throws Exception {
+        connect("s1", true);
+        Message<byte[]> frame = frame("s1", "sub-1", "{\"n\":1}");
+
+        coalescer.preSend(frame, null);
+        awaitSent(1);
+
+        assertThat(sent).containsExactly(frame);
+        assertThat(SimpMessageHeaderAccessor.wrap(sent.get(0))
+                .getFirstNativeHeader(OutboundFrameCoalescer.BATCH_SIZE_HEADER)).isNull();
+    }
+
+    @Test
+    void nonCoalescibleFramesPassThrough() {
+        connect("opted-out", false);
+        connect("s1", true);
+
+        Message<byte[]> optedOut = frame("opted-out", "sub-1", "{}");
+        Message<byte[]> noSubscription = frame("s1", null, "{}");
+        SimpMessageHeaderAccessor text = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        text.setSessionId("s1");
+        text.setSubscriptionId("sub-1");
+        text.setContentType(MimeTypeUtils.TEXT_PLAIN);
+        Message<byte[]> plainText = MessageBuilder.createMessage("hi".getBytes(StandardCharsets.UTF_8),
+                text.getMessageHeaders());
+
+        assertThat(coalescer.preSend(optedOut, null)).isSameAs(optedOut);
+        assertThat(coalescer.preSend(noSubscription, null)).isSameAs(noSubscription);
+        assertThat(coalescer.preSend(plainText, null)).isSameAs(plainText);
+
+        for (int i = 1; i <= 5; i++) {
+            coalescer.preSend(frame("s1", "sub-1", "{}"), null);
+        }
+        Message<?> batch = sent.get(0);
+        assertThat(coalescer.preSend(batch, null)).isSameAs(batch);   // re-sent batch frames are not held again
+    }
+
+    @Test
+    void disconnectDropsTheOptInAndPendingFrames() throws Exception {
+        connect("s1", true);
+        coalescer.preSend(frame("s1", "sub-1", "{\"n\":1}"), null);
+
+        SimpMessageHeaderAccessor disconnect = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        disconnect.setSessionId("s1");
+        coalescer.preSend(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), null);
+
+        Message<byte[]> afterDisconnect = frame("s1", "sub-1", "{\"n\":2}");
+        assertThat(coalescer.preSend(afterDisconnect, null)).isSameAs(afterDisconnect);
+        Thread.sleep(150);
+        assertThat(sent).isEmpty();
+    }
+
+    private void connect(String sessionId, boolean batching) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (batching) {
+            accessor.addNativeHeader(OutboundFrameCoalescer.BATCHING_HEADER, "true");
+        }
+        coalescer.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private void awaitSent(int frames) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sent.size() < frames && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(sent).hasSize(frames);
+    }
+
+    private static Message<byte[]> frame(String sessionId, String subscriptionId, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination("/topic/conversations/c1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static String body(Message<?> message) {
+        return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+    }
+}